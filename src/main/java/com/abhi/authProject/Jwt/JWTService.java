@@ -1,71 +1,149 @@
 package com.abhi.authProject.Jwt;
 
 import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import javax.crypto.SecretKey;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationContext;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import com.abhi.authProject.model.BlackListedToken;
+import com.abhi.authProject.model.Users;
 import com.abhi.authProject.repo.BlacklistedTokenRepository;
-import com.abhi.authProject.service.MyUserDetailsService;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class JWTService {
 
+    private static final Logger logger = LoggerFactory.getLogger(JWTService.class);
+
     @Value("${jwt.secret}")
     private String secretkey;
 
-    @Autowired
-    private ApplicationContext context;
+    @Value("${jwt.access-token.ttl-minutes:15}")
+    private long accessTokenTtlMinutes;
 
     @Autowired
     private BlacklistedTokenRepository blacklistedTokenRepository;
 
+    @Autowired
+    private JwtPrincipalCache principalCache;
+
+    // Built once from the secret; both are immutable and thread-safe
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+
+    @Autowired
+    private TokenGenerationService tokenGenerationService;
+
+    // Negative cache over the legacy blacklisted_tokens table. New revocations use
+    // token generations instead, so this only shrinks as old rows expire.
+    private volatile TokenBloomFilter legacyBlacklist = new TokenBloomFilter(1, 0.01);
+    private volatile boolean legacyBlacklistEmpty = true;
+
+    @PostConstruct
+    public void loadLegacyBlacklist() {
+        try {
+            List<BlackListedToken> rows = blacklistedTokenRepository.findAll();
+            TokenBloomFilter filter = new TokenBloomFilter(Math.max(rows.size(), 1024), 0.01);
+            for (BlackListedToken t : rows) {
+                filter.put(JwtPrincipalCache.digest(t.getToken()));
+            }
+            legacyBlacklist = filter;
+            legacyBlacklistEmpty = rows.isEmpty();
+            logger.info("Loaded {} legacy blacklisted tokens into bloom filter", rows.size());
+        } catch (Exception e) {
+            logger.warn("Could not preload blacklisted tokens: {}", e.getMessage());
+            // Fail safe: without a filter every check falls through to the database
+            legacyBlacklistEmpty = false;
+            legacyBlacklist = null;
+        }
+    }
+
     // Scheduled task to clean expired blacklisted tokens every 24 hours
     @Scheduled(fixedRate = 86400000)
     @Transactional
     public void cleanExpiredBlacklistedTokens() {
         blacklistedTokenRepository.deleteByExpiryDateBefore(new Date());
+        loadLegacyBlacklist();
     }
 
-    public String generateToken(String username) {
+    /**
+     * Issues a short-lived access token whose claims carry everything the
+     * filter needs to authorize a request without touching the database.
+     */
+    public String generateToken(Users user) {
         Map<String, Object> claims = new HashMap<>();
-        UserDetails userDetails = context.getBean(MyUserDetailsService.class)
-                .loadUserByUsername(username);
-        claims.put("authorities", userDetails.getAuthorities()
-                .stream()
-                .map(auth -> "ROLE_" + auth.getAuthority().replace("ROLE_", ""))
-                .collect(Collectors.toList()));
+        claims.put("authorities", List.of("ROLE_" + user.getRole()));
+        claims.put(TokenGenerationService.CLAIM, tokenGenerationService.currentGeneration(user.getUsername()));
+        claims.put("typ", VerifiedToken.TYPE_ACCESS);
+        claims.put("role", user.getRole());
+        claims.put("verified", user.isVerified());
+        claims.put("enabled", user.isEnabled());
+        if (user.getBranch() != null) {
+            claims.put("branch", user.getBranch());
+        }
+        if (user.getSemester() != null) {
+            claims.put("semester", user.getSemester());
+        }
+        if (user.getLockedUntil() != null) {
+            claims.put("lockedUntil", user.getLockedUntil().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
 
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .claims(claims)
-                .subject(username)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hours
+                .subject(user.getUsername())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + getAccessTokenTtlSeconds() * 1000))
                 .signWith(getKey(), Jwts.SIG.HS384)
                 .compact();
     }
 
+    public long getAccessTokenTtlSeconds() {
+        return accessTokenTtlMinutes * 60;
+    }
+
     private SecretKey getKey() {
-        byte[] keyBytes = secretkey.getBytes(StandardCharsets.UTF_8); // No Base64 decoding
-        return Keys.hmacShaKeyFor(keyBytes);
+        SecretKey key = signingKey;
+        if (key == null) {
+            byte[] keyBytes = secretkey.getBytes(StandardCharsets.UTF_8); // No Base64 decoding
+            key = Keys.hmacShaKeyFor(keyBytes);
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser p = parser;
+        if (p == null) {
+            p = Jwts.parser().verifyWith(getKey()).build();
+            parser = p;
+        }
+        return p;
+    }
+
+    /**
+     * Parses the token and verifies its signature and expiry exactly once.
+     * Throws a {@link io.jsonwebtoken.JwtException} if the token is invalid or expired.
+     */
+    public VerifiedToken verify(String token) {
+        return VerifiedToken.from(extractAllClaims(token));
     }
 
     public String extractUserName(String token) {
@@ -78,63 +156,75 @@ public class JWTService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getKey())
-                .build()
+        return getParser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String userName = extractUserName(token);
-        return (userName.equals(userDetails.getUsername())
-                && !isTokenExpired(token)
-                && !isTokenBlacklisted(token));
+        try {
+            return validateToken(token, verify(token), userDetails);
+        } catch (Exception e) {
+            return false;
+        }
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // Variant for callers that already hold the verified claims, so the token is not parsed again
+    public boolean validateToken(String token, VerifiedToken verified, UserDetails userDetails) {
+        return verified.subject() != null
+                && verified.subject().equals(userDetails.getUsername())
+                && !verified.isExpired()
+                && tokenGenerationService.isCurrent(verified.subject(), verified.generation())
+                && !isTokenBlacklisted(token);
     }
 
-    private Date extractExpiration(String token) {
+    /**
+     * Claims-only check for access tokens: no user row, no blacklist table. The
+     * account state is the one at issue time; locking an account bumps its token
+     * generation, so later changes are caught by that check. {@code enabled} is
+     * not checked here: it only gates company-admin actions, which report it.
+     */
+    public boolean validateAccessToken(VerifiedToken verified) {
+        return verified.isAccessToken()
+                && verified.subject() != null
+                && !verified.isExpired()
+                && verified.verified()
+                && !verified.isLocked()
+                && tokenGenerationService.isCurrent(verified.subject(), verified.generation());
+    }
+
+    public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
 
+    /**
+     * Legacy per-token blacklist check. The bloom filter answers "definitely not
+     * blacklisted" from memory; only a possible hit is confirmed in the database.
+     */
     public boolean isTokenBlacklisted(String token) {
+        if (legacyBlacklistEmpty) {
+            return false;
+        }
+        TokenBloomFilter filter = legacyBlacklist;
+        if (filter != null && !filter.mightContain(JwtPrincipalCache.digest(token))) {
+            return false;
+        }
         return blacklistedTokenRepository.existsById(token);
     }
 
+    /**
+     * Revokes the token by bumping its owner's token generation, which also
+     * invalidates every other token issued to that user.
+     */
     public void forceBlacklistToken(String token) {
-        if (!isTokenBlacklisted(token)) {
-            BlackListedToken blacklistedToken = new BlackListedToken();
-            blacklistedToken.setToken(token);
-            blacklistedToken.setExpiryDate(new Date(System.currentTimeMillis() + 86400000)); // 24 hours
-            blacklistedTokenRepository.save(blacklistedToken);
-        }
+        blacklistToken(token);
     }
 
     public void blacklistToken(String token) {
         try {
-            if (!isTokenBlacklisted(token)) {
-                BlackListedToken blacklistedToken = new BlackListedToken();
-                blacklistedToken.setToken(token);
-
-                Date expiry = extractExpirationSafe(token);
-                blacklistedToken
-                        .setExpiryDate(expiry != null ? expiry : new Date(System.currentTimeMillis() + 86400000));
-
-                blacklistedTokenRepository.save(blacklistedToken);
-            }
-        } catch (Exception e) {
-            System.err.println("Error blacklisting token: " + e.getMessage());
-        }
-    }
-
-    private Date extractExpirationSafe(String token) {
-        try {
-            return extractExpiration(token);
+            tokenGenerationService.revokeAll(verify(token).subject());
         } catch (Exception e) {
-            return null;
+            logger.warn("Error blacklisting token: {}", e.getMessage());
         }
     }
 }
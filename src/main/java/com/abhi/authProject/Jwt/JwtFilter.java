@@ -22,6 +22,9 @@ public class JwtFilter extends OncePerRequestFilter {
     @Autowired
     private JWTService jwtService;
 
+    @Autowired
+    private JwtPrincipalCache principalCache;
+
     @Autowired
     private ApplicationContext context;
 
@@ -41,21 +44,41 @@ public class JwtFilter extends OncePerRequestFilter {
         // Log the token status for debugging
         System.out.println("Authorization Status - Header: " + (authHeader != null) + ", Query Token: " + (request.getParameter("token") != null));
 
-        if (token != null && !token.trim().isEmpty()) {
+        if (token != null && !token.trim().isEmpty()
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
                 try {
-                    String username = jwtService.extractUserName(token);
+                    String tokenDigest = JwtPrincipalCache.digest(token);
+                    UserDetails userDetails = principalCache.get(tokenDigest);
+
+                    if (userDetails == null) {
+                        // Single parse: signature, expiry and claims are all checked here
+                        VerifiedToken verified = jwtService.verify(token);
+                        String username = verified.subject();
 
-                    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                        MyUserDetailsService myUserDetailsService = context.getBean(MyUserDetailsService.class);
-                        UserDetails userDetails = myUserDetailsService.loadUserByUsername(username);
+                        if (verified.isAccessToken()) {
+                            // Short-lived access token: authorized from its claims, no DB access
+                            if (jwtService.validateAccessToken(verified)) {
+                                userDetails = new TokenPrincipal(verified);
+                            }
+                        } else if (username != null) {
+                            // Long-lived token issued before access/refresh pairs: verify against the user row
+                            MyUserDetailsService myUserDetailsService = context.getBean(MyUserDetailsService.class);
+                            UserDetails loaded = myUserDetailsService.loadUserByUsername(username);
 
-                        if (jwtService.validateToken(token, userDetails)) {
-                            UsernamePasswordAuthenticationToken authToken =
-                                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                            SecurityContextHolder.getContext().setAuthentication(authToken);
+                            // Also checks the token generation and the legacy blacklist
+                            if (jwtService.validateToken(token, verified, loaded)) {
+                                principalCache.put(tokenDigest, loaded, verified.expiresAtMillis());
+                                userDetails = loaded;
+                            }
                         }
                     }
+
+                    if (userDetails != null) {
+                        UsernamePasswordAuthenticationToken authToken =
+                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authToken);
+                    }
                 } catch (Exception e) {
                     // Log and ignore invalid token errors
                     System.err.println("Invalid JWT token: " + e.getMessage());
@@ -0,0 +1,129 @@
+package com.abhi.authProject.Jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded, TTL based cache of principals that were already verified by
+ * {@link JwtFilter}. Entries are keyed by a SHA-256 digest of the token so the
+ * raw token string is never held in memory, and each entry expires at the
+ * earlier of the token expiry and the configured TTL. This lets the filter
+ * authenticate repeat requests without loading the user row again.
+ */
+@Component
+public class JwtPrincipalCache {
+
+    @Value("${jwt.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    // Access-ordered so the least recently used principal is evicted first
+    private final Map<String, CachedPrincipal> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public record CachedPrincipal(UserDetails principal, long expiresAtMillis) {
+        boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+    }
+
+    public static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public UserDetails get(String tokenDigest) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedPrincipal cached = entries.get(tokenDigest);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.isExpired(now)) {
+                entries.remove(tokenDigest);
+                return null;
+            }
+            return cached.principal();
+        }
+    }
+
+    /**
+     * Caches a verified principal. The stored copy carries only the username,
+     * authorities and account flags; the password hash is dropped.
+     */
+    public void put(String tokenDigest, UserDetails userDetails, long tokenExpiresAtMillis) {
+        long expiresAt = Math.min(tokenExpiresAtMillis, System.currentTimeMillis() + ttlSeconds * 1000);
+        Collection<? extends GrantedAuthority> authorities = userDetails.getAuthorities();
+        UserDetails principal = new User(
+                userDetails.getUsername(),
+                "",
+                userDetails.isEnabled(),
+                userDetails.isAccountNonExpired(),
+                userDetails.isCredentialsNonExpired(),
+                userDetails.isAccountNonLocked(),
+                authorities);
+        synchronized (entries) {
+            entries.put(tokenDigest, new CachedPrincipal(principal, expiresAt));
+        }
+    }
+
+    public void evict(String tokenDigest) {
+        synchronized (entries) {
+            entries.remove(tokenDigest);
+        }
+    }
+
+    // Called when a user's role, password or status changes so the next request reloads it
+    public void evictUser(String username) {
+        if (username == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.values().removeIf(cached -> username.equals(cached.principal().getUsername()));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Drop expired entries every minute so idle tokens do not linger until evicted by size
+    @Scheduled(fixedRate = 60000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entries.values().removeIf(cached -> cached.isExpired(now));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.abhi.authProject.Jwt;
+
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compact, thread-safe Bloom filter over token digests produced by
+ * {@link JwtPrincipalCache#digest(String)}. Used as a negative cache in front of
+ * the legacy {@code blacklisted_tokens} table: a miss means the token was never
+ * blacklisted, a hit has to be confirmed against the database.
+ */
+public class TokenBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final int numBits;
+    private final int numHashes;
+
+    public TokenBloomFilter(int expectedEntries, double falsePositiveRate) {
+        int n = Math.max(expectedEntries, 1);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+        this.bits = new AtomicLongArray((numBits + 63) / 64);
+    }
+
+    public void put(String tokenDigest) {
+        long[] h = hashes(tokenDigest);
+        for (int i = 0; i < numHashes; i++) {
+            int bit = index(h[0], h[1], i);
+            int word = bit >>> 6;
+            long mask = 1L << (bit & 63);
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String tokenDigest) {
+        long[] h = hashes(tokenDigest);
+        for (int i = 0; i < numHashes; i++) {
+            int bit = index(h[0], h[1], i);
+            if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(long h1, long h2, int i) {
+        // Kirsch-Mitzenmacher double hashing
+        long combined = h1 + i * h2;
+        return (int) Math.floorMod(combined, (long) numBits);
+    }
+
+    // The digest is already a SHA-256 hash, so its first 16 bytes give two independent 64-bit hashes
+    private static long[] hashes(String tokenDigest) {
+        byte[] raw = Base64.getUrlDecoder().decode(tokenDigest);
+        long h1 = 0;
+        long h2 = 0;
+        for (int i = 0; i < 8; i++) {
+            h1 = (h1 << 8) | (raw[i] & 0xff);
+            h2 = (h2 << 8) | (raw[i + 8] & 0xff);
+        }
+        return new long[] { h1, h2 | 1 };
+    }
+}
@@ -0,0 +1,82 @@
+package com.abhi.authProject.Jwt;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.abhi.authProject.repo.RefreshTokenRepository;
+import com.abhi.authProject.repo.UserRepo;
+import com.abhi.authProject.service.CurrentUserService;
+
+/**
+ * Per-user token generation numbers. Every JWT carries the generation that was
+ * current when it was issued (claim {@code gen}); bumping a user's generation
+ * revokes all of their outstanding tokens at once without storing any token
+ * strings. Generations are read from the database once per user and then held
+ * in memory.
+ */
+@Service
+public class TokenGenerationService {
+
+    public static final String CLAIM = "gen";
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private JwtPrincipalCache principalCache;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private CurrentUserService currentUserService;
+
+    private final Map<String, Integer> generations = new ConcurrentHashMap<>();
+
+    public int currentGeneration(String username) {
+        return generations.computeIfAbsent(username,
+                u -> userRepo.findTokenGenerationByUsername(u).orElse(0));
+    }
+
+    public boolean isCurrent(String username, int tokenGeneration) {
+        return tokenGeneration >= currentGeneration(username);
+    }
+
+    /**
+     * Invalidates every token issued to this user so far (logout, password
+     * reset, account disabled), including their refresh tokens.
+     */
+    public void revokeAll(String username) {
+        if (username == null) {
+            return;
+        }
+        invalidateAccessTokens(username);
+        refreshTokenRepository.revokeAllForUser(username);
+    }
+
+    /**
+     * Invalidates outstanding access tokens only, e.g. after a role change. The
+     * user stays logged in: the next refresh issues a token with fresh claims.
+     */
+    public void invalidateAccessTokens(String username) {
+        if (username == null) {
+            return;
+        }
+        userRepo.incrementTokenGeneration(username);
+        generations.put(username, userRepo.findTokenGenerationByUsername(username).orElse(0));
+        principalCache.evictUser(username);
+        currentUserService.evict(username);
+    }
+
+    // For renamed or deleted accounts: the next lookup goes back to the database
+    public void forget(String username) {
+        if (username != null) {
+            generations.remove(username);
+            principalCache.evictUser(username);
+            currentUserService.evict(username);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.abhi.authProject.Jwt;
+
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Principal built from a verified access token's claims. Carries the role,
+ * branch and semester so controllers can authorize without reloading the user.
+ */
+public class TokenPrincipal implements UserDetails {
+
+    private final String username;
+    private final String role;
+    private final String branch;
+    private final Integer semester;
+    private final boolean enabled;
+    private final boolean locked;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    public TokenPrincipal(VerifiedToken token) {
+        this.username = token.subject();
+        this.role = token.role();
+        this.branch = token.branch();
+        this.semester = token.semester();
+        this.enabled = token.enabled();
+        this.locked = token.isLocked();
+        this.authorities = token.grantedAuthorities();
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public Integer getSemester() {
+        return semester;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return "";
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return !locked;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenPrincipal[" + username + ", " + role + "]";
+    }
+}
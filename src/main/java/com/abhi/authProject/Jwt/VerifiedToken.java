@@ -0,0 +1,75 @@
+package com.abhi.authProject.Jwt;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Immutable view of a token whose signature has already been verified by
+ * {@link JWTService#verify(String)}. Holds only the claims the security layer
+ * reads, so the token never needs to be parsed a second time.
+ *
+ * Access tokens (type {@code access}) also carry the account state needed to
+ * authorize a request without loading the user: role, branch, semester,
+ * verification/enabled flags and the lock expiry at issue time.
+ */
+public record VerifiedToken(String subject, Date issuedAt, Date expiration, List<String> authorities,
+        int generation, String type, String role, String branch, Integer semester,
+        boolean verified, boolean enabled, Long lockedUntilMillis) {
+
+    public static final String TYPE_ACCESS = "access";
+
+    public VerifiedToken {
+        authorities = authorities == null ? List.of() : List.copyOf(authorities);
+    }
+
+    static VerifiedToken from(Claims claims) {
+        List<String> authorities = List.of();
+        Object raw = claims.get("authorities");
+        if (raw instanceof Collection<?> values) {
+            authorities = values.stream().map(String::valueOf).toList();
+        }
+        // Tokens issued before generations existed carry no claim and count as generation 0
+        Object gen = claims.get(TokenGenerationService.CLAIM);
+        int generation = gen instanceof Number number ? number.intValue() : 0;
+        Object semester = claims.get("semester");
+        Object lockedUntil = claims.get("lockedUntil");
+        return new VerifiedToken(claims.getSubject(), claims.getIssuedAt(), claims.getExpiration(), authorities,
+                generation,
+                claims.get("typ", String.class),
+                claims.get("role", String.class),
+                claims.get("branch", String.class),
+                semester instanceof Number n ? n.intValue() : null,
+                !Boolean.FALSE.equals(claims.get("verified")),
+                !Boolean.FALSE.equals(claims.get("enabled")),
+                lockedUntil instanceof Number n ? n.longValue() : null);
+    }
+
+    // Short-lived token that is authorized from its claims alone
+    public boolean isAccessToken() {
+        return TYPE_ACCESS.equals(type);
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+
+    public long expiresAtMillis() {
+        return expiration != null ? expiration.getTime() : Long.MAX_VALUE;
+    }
+
+    public boolean isLocked() {
+        return lockedUntilMillis != null && lockedUntilMillis > System.currentTimeMillis();
+    }
+
+    public List<GrantedAuthority> grantedAuthorities() {
+        return authorities.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+}
@@ -0,0 +1,48 @@
+package com.abhi.authProject.config;
+
+import com.abhi.authProject.service.BlobContent;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link BlobContent} response body (the whole file or a byte range)
+ * with a known Content-Length, straight from its file channel, and closes it.
+ */
+public class BlobContentHttpMessageConverter extends AbstractHttpMessageConverter<BlobContent> {
+
+    public BlobContentHttpMessageConverter() {
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BlobContent.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected BlobContent readInternal(Class<? extends BlobContent> clazz,
+            HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Stored files are write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(BlobContent file, MediaType contentType) {
+        return file.length();
+    }
+
+    @Override
+    protected void writeInternal(BlobContent file, HttpOutputMessage outputMessage)
+            throws IOException {
+        file.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,17 @@
+package com.abhi.authProject.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the calling user into a controller method parameter. Supported
+ * parameter types are {@link com.abhi.authProject.model.UserAuthView} (cached,
+ * read-only) and {@link com.abhi.authProject.model.Users} (the full entity).
+ * Resolves to {@code null} for anonymous requests or unknown users.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+}
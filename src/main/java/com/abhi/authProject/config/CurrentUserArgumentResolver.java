@@ -0,0 +1,61 @@
+package com.abhi.authProject.config;
+
+import com.abhi.authProject.model.UserAuthView;
+import com.abhi.authProject.model.Users;
+import com.abhi.authProject.service.CurrentUserService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Resolves {@link CurrentUser} parameters through {@link CurrentUserService}
+ * and, as an interceptor, records how many user lookups each request made.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver, HandlerInterceptor {
+
+    @Autowired
+    private CurrentUserService currentUserService;
+
+    private final DistributionSummary lookupsPerRequest;
+
+    public CurrentUserArgumentResolver(MeterRegistry meterRegistry) {
+        this.lookupsPerRequest = DistributionSummary.builder("users.lookups.per-request")
+                .description("User lookups made through CurrentUserService per request")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && (type == UserAuthView.class || type == Users.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return parameter.getParameterType() == Users.class
+                ? currentUserService.currentEntity()
+                : currentUserService.currentView();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            lookupsPerRequest.record(CurrentUserService.lookupCount(attributes));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.abhi.authProject.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Password encoder setup. New hashes are written as {@code {id}hash} using the
+ * configured algorithm; existing un-prefixed BCrypt hashes (any cost) still
+ * verify and are flagged for upgrade, so they get rehashed on the next
+ * successful login.
+ *
+ * With {@code auth.hash.bcrypt.cost=0} the BCrypt cost is calibrated at startup
+ * to the highest cost that stays within {@code auth.hash.target-ms} on this
+ * machine (clamped to 10..14).
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordEncoderConfig.class);
+
+    private static final int MIN_BCRYPT_COST = 10;
+    private static final int MAX_BCRYPT_COST = 14;
+
+    @Value("${auth.hash.algorithm:bcrypt}")
+    private String algorithm;
+
+    @Value("${auth.hash.bcrypt.cost:12}")
+    private int bcryptCost;
+
+    @Value("${auth.hash.target-ms:250}")
+    private long targetMs;
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        int cost = bcryptCost > 0 ? bcryptCost : calibrateBcryptCost(targetMs);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(cost));
+        encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        String idForEncode = encoders.containsKey(algorithm) ? algorithm : "bcrypt";
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(idForEncode, encoders);
+        // Hashes stored before the switch have no {id} prefix; they are all BCrypt
+        delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+
+        logger.info("Password encoder: {} (bcrypt cost {})", idForEncode, cost);
+        return delegating;
+    }
+
+    /**
+     * Measures a BCrypt hash at the minimum cost and extrapolates (each cost
+     * step doubles the work) to the largest cost within the latency budget.
+     */
+    static int calibrateBcryptCost(long targetMs) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_BCRYPT_COST);
+        probe.encode("warm-up");
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-probe");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double baseMs = best / 1_000_000.0;
+
+        int cost = MIN_BCRYPT_COST;
+        double estimate = baseMs;
+        while (cost < MAX_BCRYPT_COST && estimate * 2 <= targetMs) {
+            estimate *= 2;
+            cost++;
+        }
+        logger.info("BCrypt calibration: cost {} takes {} ms, picked cost {} (~{} ms, target {} ms)",
+                MIN_BCRYPT_COST, Math.round(baseMs), cost, Math.round(estimate), targetMs);
+        return cost;
+    }
+}
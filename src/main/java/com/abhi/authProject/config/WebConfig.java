@@ -1,15 +1,44 @@
 package com.abhi.authProject.config;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
 
 /**
  * Configures Cross-Origin Resource Sharing (CORS) for the application.
  * This allows the frontend client, hosted on a different domain, to communicate
- * with this backend server.
+ * with this backend server. Also registers the {@link CurrentUser} resolver,
+ * the converter that streams cached Drive files, and open-in-view for every
+ * endpoint except those that stream a file body.
  */
 @Configuration
-public class WebConfig {
+public class WebConfig implements WebMvcConfigurer {
+
+    // Endpoints whose body is a file stream. Without an open-in-view EntityManager each
+    // repository call returns its pooled connection at once, instead of holding it until
+    // a slow client has received the whole file.
+    static final String[] STREAMING_PATHS = {
+            "/api/papers/proxy/**",
+            "/api/papers/download/**",
+            "/api/papers/batch-download",
+            "/api/papers/pending/*/view",
+            "/api/public/papers/download/**",
+            "/api/notes/download/**"
+    };
+
+    @Autowired
+    private CurrentUserArgumentResolver currentUserArgumentResolver;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     @org.springframework.beans.factory.annotation.Value("${frontend.url}")
     private String frontendUrl;
@@ -27,4 +56,24 @@ public class WebConfig {
         source.registerCorsConfiguration("/**", config);
         return new org.springframework.web.filter.CorsFilter(source);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(currentUserArgumentResolver);
+
+        // Takes over from Boot's open-in-view (spring.jpa.open-in-view=false) so it can skip the streaming endpoints
+        OpenEntityManagerInViewInterceptor openInView = new OpenEntityManagerInViewInterceptor();
+        openInView.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(openInView).excludePathPatterns(STREAMING_PATHS);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new BlobContentHttpMessageConverter());
+    }
+}
@@ -25,10 +25,7 @@ public class AdminJobController {
     private com.abhi.authProject.service.JobService jobService;
 
     @Autowired
-    private com.abhi.authProject.service.EmailService emailService;
-
-    @Autowired
-    private com.abhi.authProject.repo.UserRepo userRepo;
+    private com.abhi.authProject.service.JobAlertService jobAlertService;
 
     @GetMapping
     public ResponseEntity<List<JobDetails>> getAllJobs(java.security.Principal principal) {
@@ -42,10 +39,10 @@ public class AdminJobController {
     public ResponseEntity<?> createJob(
             @RequestBody JobDetails job,
             @RequestParam(defaultValue = "true") boolean sendEmails,
-            java.security.Principal principal) {
-        String username = principal.getName();
-        com.abhi.authProject.model.Users user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            @com.abhi.authProject.config.CurrentUser com.abhi.authProject.model.UserAuthView user) {
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
 
         if ("COMPANY_ADMIN".equals(user.getRole())) {
             // Force company name to match the admin's company
@@ -68,41 +65,29 @@ public class AdminJobController {
             return ResponseEntity.status(500).body("Error saving job: " + e.getMessage());
         }
 
-        // Async: Send notifications to all students (only if sendEmails is true)
+        // Queue alerts for eligible students; runs after commit on the fan-out workers
         if (sendEmails) {
-            java.util.concurrent.CompletableFuture.runAsync(() -> {
-                try {
-                    // Fetch only users with role USER ideally, butfindAll is fine for MVP if small
-                    // Better to add findByRole in UserRepo later
-                    List<com.abhi.authProject.model.Users> students = userRepo.findAll().stream()
-                            .filter(u -> "USER".equals(u.getRole()))
-                            .toList();
-
-                    for (com.abhi.authProject.model.Users student : students) {
-                        emailService.sendNewJobAlert(
-                                student.getEmail(),
-                                student.getUsername(),
-                                savedJob.getTitle(),
-                                savedJob.getCompany_name(),
-                                String.valueOf(savedJob.getSalary()),
-                                savedJob.getApply_link());
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error sending bulk job alerts: " + e.getMessage());
-                }
-            });
+            jobAlertService.start(savedJob);
         }
 
         return ResponseEntity.ok(savedJob);
     }
 
+    // Progress of the new-job email fan-out for this job
+    @GetMapping("/{id}/alerts")
+    public ResponseEntity<?> getAlertProgress(@PathVariable int id) {
+        return jobAlertService.progress(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PutMapping("/{id}")
     @Transactional
     public ResponseEntity<?> updateJob(@PathVariable int id, @RequestBody JobDetails updatedJob,
-            java.security.Principal principal) {
-        String username = principal.getName();
-        com.abhi.authProject.model.Users user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            @com.abhi.authProject.config.CurrentUser com.abhi.authProject.model.UserAuthView user) {
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
 
         Optional<JobDetails> optionalJob = jobRepository.findById(id);
         if (optionalJob.isPresent()) {
@@ -149,10 +134,10 @@ public class AdminJobController {
 
     @DeleteMapping("/{id}")
     @Transactional
-    public ResponseEntity<?> deleteJob(@PathVariable int id, java.security.Principal principal) {
-        String username = principal.getName();
-        com.abhi.authProject.model.Users user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public ResponseEntity<?> deleteJob(@PathVariable int id, @com.abhi.authProject.config.CurrentUser com.abhi.authProject.model.UserAuthView user) {
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
 
         Optional<JobDetails> optionalJob = jobRepository.findById(id);
         if (optionalJob.isPresent()) {
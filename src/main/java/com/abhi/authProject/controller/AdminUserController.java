@@ -46,6 +46,9 @@ public class AdminUserController {
     @Autowired
     private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private com.abhi.authProject.Jwt.TokenGenerationService tokenGenerationService;
+
     @GetMapping("/users")
     public ResponseEntity<List<UserDto>> getAllUsers(java.security.Principal principal) {
         List<Users> users = userRepo.findAll();
@@ -275,6 +278,9 @@ public class AdminUserController {
                         }
                     }
 
+                    // Role/verification may change below; outstanding access tokens carry the old claims
+                    tokenGenerationService.invalidateAccessTokens(user.getUsername());
+
                     user.setUsername(updatedUser.getUsername());
                     user.setEmail(updatedUser.getEmail());
                     user.setRole(updatedUser.getRole());
@@ -373,6 +379,7 @@ public class AdminUserController {
             }
 
             userRepo.deleteById(id);
+            tokenGenerationService.forget(userToDelete.getUsername());
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
@@ -387,6 +394,8 @@ public class AdminUserController {
                     // Toggle the enabled status
                     user.setEnabled(!user.isEnabled());
                     Users saved = userRepo.save(user);
+                    // Disabling (or re-enabling) an account invalidates every token it holds
+                    tokenGenerationService.revokeAll(saved.getUsername());
 
                     return ResponseEntity.ok(new java.util.HashMap<String, Object>() {
                         {
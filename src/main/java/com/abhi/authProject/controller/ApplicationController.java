@@ -1,16 +1,16 @@
 package com.abhi.authProject.controller;
 
+import com.abhi.authProject.config.CurrentUser;
 import com.abhi.authProject.model.Application;
 import com.abhi.authProject.model.InterviewDrive;
+import com.abhi.authProject.model.UserAuthView;
 import com.abhi.authProject.model.Users;
 import com.abhi.authProject.repo.ApplicationRepo;
 import com.abhi.authProject.repo.InterviewDriveRepo;
-import com.abhi.authProject.repo.UserRepo;
 import com.abhi.authProject.service.EmailService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -26,18 +26,14 @@ public class ApplicationController {
     @Autowired
     private InterviewDriveRepo interviewDriveRepo;
 
-    @Autowired
-    private UserRepo userRepo;
-
     @Autowired
     private EmailService emailService;
 
     // Student: Submit application
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> submitApplication(@RequestBody Map<String, Object> payload, Authentication auth) {
-        String username = auth.getName();
-        Users student = userRepo.findByUsername(username).orElse(null);
+    public ResponseEntity<?> submitApplication(@RequestBody Map<String, Object> payload,
+            @CurrentUser Users student) {
 
         if (student == null) {
             return ResponseEntity.badRequest().body("User not found");
@@ -67,9 +63,7 @@ public class ApplicationController {
     // Student: Get my applications
     @GetMapping("/my")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> getMyApplications(Authentication auth) {
-        String username = auth.getName();
-        Users student = userRepo.findByUsername(username).orElse(null);
+    public ResponseEntity<?> getMyApplications(@CurrentUser UserAuthView student) {
 
         if (student == null) {
             return ResponseEntity.notFound().build();
@@ -81,9 +75,7 @@ public class ApplicationController {
     // Student: Withdraw application
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> withdrawApplication(@PathVariable Long id, Authentication auth) {
-        String username = auth.getName();
-        Users student = userRepo.findByUsername(username).orElse(null);
+    public ResponseEntity<?> withdrawApplication(@PathVariable Long id, @CurrentUser UserAuthView student) {
 
         Application app = applicationRepo.findById(id).orElse(null);
         if (app == null || app.getStudent().getId() != student.getId()) {
@@ -2,19 +2,23 @@ package com.abhi.authProject.controller;
 
 import com.abhi.authProject.Jwt.JWTService;
 import com.abhi.authProject.model.Users;
+import com.abhi.authProject.service.LoginThrottleService;
+import com.abhi.authProject.service.RefreshTokenService;
+import com.abhi.authProject.service.UserActivityWriteBehind;
 import com.abhi.authProject.service.UserService;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -25,21 +29,28 @@ import com.abhi.authProject.service.EmailService;
 import jakarta.transaction.Transactional;
 
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
-    @Autowired
-    private AuthenticationManager authenticationManager;
-
     @Autowired
     private JWTService jwtService;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserActivityWriteBehind userActivityWriteBehind;
+
+    @Autowired
+    private LoginThrottleService loginThrottleService;
+
     @Autowired
     private EmailService emailService;
 
@@ -52,7 +63,21 @@ public class AuthController {
     // Link-based /me endpoint removed. Please use the Header-based one below.
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest,
+            jakarta.servlet.http.HttpServletRequest request) {
+        String identifier = loginRequest.getComputerCode() != null && !loginRequest.getComputerCode().isEmpty()
+                ? loginRequest.getComputerCode()
+                : loginRequest.getUsername();
+
+        // Throttle before any DB lookup or password hash so flooding costs almost nothing
+        long retryAfter = loginThrottleService.checkAndRecordAttempt(identifier, request.getRemoteAddr());
+        if (retryAfter > 0) {
+            System.err.println("⚠️ Login throttled for identifier " + identifier + " from " + request.getRemoteAddr());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(Map.of("message", "Too many login attempts. Please try again in " + retryAfter + " seconds."));
+        }
+
         try {
             System.out.println("🔐 Login attempt started");
             System.out.println("Username provided: " + loginRequest.getUsername());
@@ -62,16 +87,13 @@ public class AuthController {
                             : "null"));
 
             // Support both username and computerCode
-            String identifier = loginRequest.getComputerCode() != null && !loginRequest.getComputerCode().isEmpty()
-                    ? loginRequest.getComputerCode()
-                    : loginRequest.getUsername();
-
             System.out.println("Identifier being used for login: " + identifier);
 
             // Check if user exists
             Users user = userRepo.findByComputerCodeOrUsername(identifier).orElse(null);
             if (user == null) {
                 System.err.println("❌ User not found with identifier: " + identifier);
+                loginThrottleService.recordFailure(identifier);
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                         .body(Map.of("message", "User not found. Please check your credentials."));
             }
@@ -88,14 +110,9 @@ public class AuthController {
                                 "secondsLeft", secondsLeft
                             ));
                 } else {
-                    // Auto-clear once expired
-                    user.setSecurityStrikes(0);
-                    // Reset lockout count if the last lockout ended on a previous calendar day
-                    if (user.getLockedUntil() != null && user.getLockedUntil().toLocalDate().isBefore(java.time.LocalDate.now())) {
-                        user.setLockoutCount(0);
-                    }
-                    user.setLockedUntil(null);
-                    userRepo.save(user);
+                    // Auto-clear once expired (strikes, lock and, if it ended on a previous day, the
+                    // lockout count); written behind so login does not wait on a row update
+                    userActivityWriteBehind.clearExpiredLock(user);
                 }
             }
 
@@ -114,21 +131,25 @@ public class AuthController {
             }
 
             System.out.println("Attempting authentication...");
-            String token = userService.verifyAndLogin(identifier, loginRequest.getPassword());
+            // Password is verified once here (on the bounded hashing pool); no second authenticate() call
+            String token = userService.verifyAndLogin(user, loginRequest.getPassword());
 
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(identifier, loginRequest.getPassword()));
+            Authentication authentication = new UsernamePasswordAuthenticationToken(user.getUsername(), null,
+                    java.util.List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole())));
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
             System.out.println("✅ Authentication successful!");
+            loginThrottleService.recordSuccess(identifier);
 
-            user.setLastLoginDate(java.time.LocalDateTime.now());
-            userRepo.save(user);
+            userActivityWriteBehind.recordLogin(user, java.time.LocalDateTime.now());
 
             String companyName = user.getCompanyName();
+            String refreshToken = refreshTokenService.issue(user.getUsername());
 
             return ResponseEntity.ok(Map.of(
                     "token", token,
+                    "refreshToken", refreshToken,
+                    "expiresIn", jwtService.getAccessTokenTtlSeconds(),
                     "username", authentication.getName(),
                     "name", (user.getName() != null && !user.getName().isEmpty()) ? user.getName() : 
                            ((user.getFullName() != null && !user.getFullName().isEmpty()) ? user.getFullName() : authentication.getName()),
@@ -139,8 +160,14 @@ public class AuthController {
                             .collect(Collectors.toList())));
         } catch (BadCredentialsException e) {
             System.err.println("❌ Bad credentials exception: " + e.getMessage());
+            loginThrottleService.recordFailure(identifier);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("message", "Invalid credentials"));
+        } catch (RejectedExecutionException e) {
+            System.err.println("⚠️ Login shed, hashing pool saturated: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "2")
+                    .body(Map.of("message", e.getMessage()));
         } catch (IllegalStateException e) {
             System.err.println("❌ Illegal state exception: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
@@ -152,6 +179,32 @@ public class AuthController {
         }
     }
 
+    // Exchange a refresh token for a new access token (the refresh token is rotated)
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> request) {
+        try {
+            RefreshTokenService.TokenPair pair = refreshTokenService.rotate(request.get("refreshToken"));
+            return ResponseEntity.ok(Map.of(
+                    "token", pair.accessToken(),
+                    "refreshToken", pair.refreshToken(),
+                    "expiresIn", pair.expiresIn()));
+        } catch (BadCredentialsException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Logout: bumps the caller's token generation, which revokes all of their tokens
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            jwtService.blacklistToken(authHeader.substring(7));
+        }
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
+    }
+
     // Get current user information
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentUser(@RequestHeader("Authorization") String authHeader) {
@@ -572,7 +625,7 @@ public class AuthController {
         System.out.println("✅ User verified - Route: SIMPLE_RESET");
 
         // Generate recovery token (JWT valid for 1 hour)
-        String recoveryToken = jwtService.generateToken(user.getUsername());
+        String recoveryToken = jwtService.generateToken(user);
 
         // Return simple reset for both new users and admins
         return ResponseEntity.ok(Map.of(
@@ -645,14 +698,15 @@ public class AuthController {
             }
 
             // Generate NEW Login Token for Auto-Login / Verification
-            String newToken = jwtService.generateToken(user.getUsername());
+            String newToken = jwtService.generateToken(user);
 
             System.out.println("✅ Password reset successful for user: " + username);
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Password reset successful",
-                    "token", newToken));
+                    "token", newToken,
+                    "refreshToken", refreshTokenService.issue(user.getUsername())));
         } catch (Exception e) {
             System.err.println("❌ Unexpected error in resetPassword: " + e.getMessage());
             e.printStackTrace();
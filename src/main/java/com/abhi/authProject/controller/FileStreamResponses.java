@@ -0,0 +1,161 @@
+package com.abhi.authProject.controller;
+
+import com.abhi.authProject.model.StorageRef;
+import com.abhi.authProject.service.DriveBulkhead;
+import com.abhi.authProject.service.BlobContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Builds PDF streaming responses for the paper and note endpoints: ETag (file
+ * MD5) and Last-Modified validators with 304 Not Modified, and single byte
+ * ranges with 206 Partial Content so PDF viewers can load page by page.
+ * Last-Modified is the stored file's modified time when the entity has one,
+ * so it does not change when the file is fetched again; rows without it use
+ * the time this instance fetched the file.
+ */
+final class FileStreamResponses {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileStreamResponses.class);
+
+    private FileStreamResponses() {
+    }
+
+    static ResponseEntity<?> pdf(BlobContent file, StorageRef storage, HttpHeaders request,
+            String contentDisposition) throws IOException {
+        String etag = "\"" + file.md5() + "\"";
+        long size = file.size();
+        long lastModified = storage != null && storage.getModifiedAt() != null
+                ? millis(storage.getModifiedAt())
+                : file.lastModifiedMillis();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setETag(etag);
+        headers.setLastModified(lastModified);
+        // Authenticated content: browsers may keep it but must revalidate
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+
+        if (notModified(request, etag, lastModified)) {
+            file.close();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        List<HttpRange> ranges = List.of();
+        try {
+            ranges = request.getRange();
+        } catch (IllegalArgumentException e) {
+            // Malformed Range header: ignore it and send the whole file
+        }
+        if (ranges.size() == 1 && rangeStillValid(request, etag, lastModified)) {
+            HttpRange range = ranges.get(0);
+            long start;
+            long end;
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                file.close();
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+            }
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers)
+                    .body(file.region(start, end - start + 1));
+        }
+
+        // Several ranges are rare for PDFs; answering with the whole file is allowed
+        return ResponseEntity.ok().headers(headers).body(file);
+    }
+
+    /**
+     * Answers If-None-Match (or If-Modified-Since) from the checksum and
+     * modified time stored on the entity, before the file is opened or fetched
+     * from Drive. Returns null when the client's copy is missing or stale.
+     */
+    static ResponseEntity<?> notModified(StorageRef storage, HttpHeaders request) {
+        if (storage == null || storage.getMd5() == null) {
+            return null;
+        }
+        String etag = "\"" + storage.getMd5() + "\"";
+        long lastModified = storage.getModifiedAt() != null ? millis(storage.getModifiedAt()) : -1;
+        if (lastModified < 0 && request.getIfNoneMatch().isEmpty()) {
+            // Only If-Modified-Since, and no stored time to compare it with
+            return null;
+        }
+        if (!notModified(request, etag, lastModified)) {
+            return null;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        if (lastModified >= 0) {
+            headers.setLastModified(lastModified);
+        }
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+    }
+
+    // Drive bulkhead full: shed the download and let the client retry later (counted as drive.bulkhead.rejected)
+    static ResponseEntity<?> busy(DriveBulkhead.Rejected e) {
+        logger.debug("Download shed, Drive bulkhead full: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body("Downloads are busy right now. Please try again in a few seconds.");
+    }
+
+    private static boolean notModified(HttpHeaders request, String etag, long lastModifiedMillis) {
+        List<String> ifNoneMatch = request.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            return matches(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = request.getIfModifiedSince();
+        return ifModifiedSince >= 0 && lastModifiedMillis / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Range: only honour the range when the client's copy is still the current one
+    private static boolean rangeStillValid(HttpHeaders request, String etag, long lastModifiedMillis) {
+        String ifRange = request.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etag.equals(ifRange);
+        }
+        try {
+            return lastModifiedMillis / 1000 <= request.getFirstDate(HttpHeaders.IF_RANGE) / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // StorageRef times are kept in the server's zone
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static boolean matches(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || etag.equals(stripWeak(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -16,22 +16,20 @@ import java.util.List;
 public class InterviewDriveController {
 
     @Autowired
-    private com.abhi.authProject.repo.UserRepo userRepo;
+    private InterviewDriveRepo interviewDriveRepo;
 
     @Autowired
-    private InterviewDriveRepo interviewDriveRepo;
+    private com.abhi.authProject.service.NotificationService notificationService;
 
     @GetMapping
-    public List<InterviewDrive> getAllDrives(java.security.Principal principal) {
+    public List<InterviewDrive> getAllDrives(
+            @com.abhi.authProject.config.CurrentUser com.abhi.authProject.model.UserAuthView user) {
         // Get all upcoming drives
         List<InterviewDrive> allDrives = interviewDriveRepo.findByDateAfterOrderByDateAsc(LocalDate.now().minusDays(1));
 
         // If user is authenticated, filter based on their profile
-        if (principal != null) {
-            String username = principal.getName();
-            com.abhi.authProject.model.Users user = userRepo.findByUsername(username).orElse(null);
-
-            if (user != null && "USER".equals(user.getRole())) {
+        if (user != null) {
+            if ("USER".equals(user.getRole())) {
                 // Filter for students based on branch, semester, and batch
                 String userBranch = user.getBranch();
                 Integer userSemester = user.getSemester();
@@ -66,10 +64,10 @@ public class InterviewDriveController {
 
     @PostMapping("/admin")
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN', 'COMPANY_ADMIN', 'DEPT_ADMIN')")
-    public InterviewDrive createDrive(@RequestBody InterviewDrive drive, java.security.Principal principal) {
-        String username = principal.getName();
-        com.abhi.authProject.model.Users user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public InterviewDrive createDrive(@RequestBody InterviewDrive drive, @com.abhi.authProject.config.CurrentUser com.abhi.authProject.model.UserAuthView user) {
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
 
         if ("COMPANY_ADMIN".equals(user.getRole())) {
             // Check if company is enabled
@@ -103,16 +101,22 @@ public class InterviewDriveController {
             }
         }
 
-        return interviewDriveRepo.save(drive);
+        InterviewDrive saved = interviewDriveRepo.save(drive);
+        try {
+            notificationService.driveCreated(saved);
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not add drive " + saved.getId() + " to digests: " + e.getMessage());
+        }
+        return saved;
     }
 
     @PutMapping("/admin/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN', 'COMPANY_ADMIN', 'DEPT_ADMIN')")
     public ResponseEntity<?> updateDrive(@PathVariable Long id, @RequestBody InterviewDrive updatedDrive,
-            java.security.Principal principal) {
-        String username = principal.getName();
-        com.abhi.authProject.model.Users user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            @com.abhi.authProject.config.CurrentUser com.abhi.authProject.model.UserAuthView user) {
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
 
         return interviewDriveRepo.findById(id).map(drive -> {
             // Security Check
@@ -145,10 +149,10 @@ public class InterviewDriveController {
 
     @DeleteMapping("/admin/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN', 'COMPANY_ADMIN', 'DEPT_ADMIN')")
-    public ResponseEntity<?> deleteDrive(@PathVariable Long id, java.security.Principal principal) {
-        String username = principal.getName();
-        com.abhi.authProject.model.Users user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public ResponseEntity<?> deleteDrive(@PathVariable Long id, @com.abhi.authProject.config.CurrentUser com.abhi.authProject.model.UserAuthView user) {
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
 
         return interviewDriveRepo.findById(id).map(drive -> {
             // Security Check
@@ -1,8 +1,8 @@
 package com.abhi.authProject.controller;
 
+import com.abhi.authProject.config.CurrentUser;
 import com.abhi.authProject.model.JobDetails;
-import com.abhi.authProject.model.Users;
-import com.abhi.authProject.repo.UserRepo;
+import com.abhi.authProject.model.UserAuthView;
 import com.abhi.authProject.service.JobService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,7 +11,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Optional;
 import org.springframework.transaction.annotation.Transactional;
 
 @RestController
@@ -20,20 +19,15 @@ public class JobController {
     @Autowired
     private JobService jobService;
 
-    @Autowired
-    private UserRepo userRepo;
-
     @GetMapping("/jobs")
     @Transactional(readOnly = true)
-    public List<JobDetails> getJobs() {
+    public List<JobDetails> getJobs(@CurrentUser UserAuthView user) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
 
         System.out.println("DEBUG: /jobs called. User: " + (auth != null ? auth.getName() : "null"));
 
         if (auth != null && auth.isAuthenticated() && !auth.getName().equals("anonymousUser")) {
-            Optional<Users> userOpt = userRepo.findByUsername(auth.getName());
-            if (userOpt.isPresent()) {
-                Users user = userOpt.get();
+            if (user != null) {
                 // If user is a student (USER role), filter jobs
                 if ("USER".equals(user.getRole())) {
                     System.out.println("DEBUG: Student Profile - Branch: '" + user.getBranch() + "', Semester: "
@@ -2,11 +2,10 @@ package com.abhi.authProject.controller;
 
 import com.abhi.authProject.model.Note;
 import com.abhi.authProject.repo.NoteRepository;
-import com.abhi.authProject.repo.UserRepo;
-import com.abhi.authProject.model.Users;
-import com.abhi.authProject.service.FileStorageService;
+import com.abhi.authProject.model.UserAuthView;
+import com.abhi.authProject.service.CurrentUserService;
+import com.abhi.authProject.service.BlobStores;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -18,7 +17,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -27,15 +25,15 @@ import java.util.stream.Collectors;
 public class NoteController {
 
     private final NoteRepository noteRepository;
-    private final UserRepo userRepo;
-    private final FileStorageService fileStorageService;
+    private final CurrentUserService currentUserService;
+    private final BlobStores blobStores;
     private final com.abhi.authProject.service.GlobalSettingsService settingsService;
 
     @Autowired
-    public NoteController(NoteRepository noteRepository, UserRepo userRepo, FileStorageService fileStorageService, com.abhi.authProject.service.GlobalSettingsService settingsService) {
+    public NoteController(NoteRepository noteRepository, CurrentUserService currentUserService, BlobStores blobStores, com.abhi.authProject.service.GlobalSettingsService settingsService) {
         this.noteRepository = noteRepository;
-        this.userRepo = userRepo;
-        this.fileStorageService = fileStorageService;
+        this.currentUserService = currentUserService;
+        this.blobStores = blobStores;
         this.settingsService = settingsService;
     }
 
@@ -76,7 +74,7 @@ public class NoteController {
         }
 
         // Standard Registered Student:
-        Users student = userRepo.findByComputerCodeOrUsername(auth.getName()).orElse(null);
+        UserAuthView student = currentUserService.currentView();
         if (student == null) {
             // Fallback if user profile not resolved
             List<Note> guestNotes = allNotes.stream()
@@ -113,7 +111,7 @@ public class NoteController {
     }
 
     /**
-     * Uploads folder files, preserving directories exactly, to Google Drive (Admin only).
+     * Uploads folder files, preserving directories exactly, to the configured notes store (Admin only).
      */
     @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN') or hasRole('DEPT_ADMIN') or hasRole('COMPANY_ADMIN')")
     @PostMapping(value = "/notes/upload-folder", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -132,8 +130,11 @@ public class NoteController {
                 MultipartFile file = files[i];
                 String preservedPath = paths[i]; // e.g. "Soft Computing/Neural Networks/Notes-1.pdf"
 
-                // Upload to Google Drive using existing FileStorageService
-                String downloadUrl = fileStorageService.uploadFileToDrive(file);
+                // Upload to the configured notes store (Google Drive by default)
+                com.abhi.authProject.service.BlobStore.Stored stored;
+                try (java.io.InputStream in = file.getInputStream()) {
+                    stored = blobStores.put(BlobStores.Content.NOTES, file.getOriginalFilename(), file.getContentType(), in);
+                }
 
                 // Dynamically resolve rootFolder name from the top level folder segment
                 String rootFolder = title;
@@ -147,10 +148,11 @@ public class NoteController {
                         semester,
                         branch,
                         visibility,
-                        downloadUrl,
+                        stored.url(),
                         preservedPath,
                         rootFolder
                 );
+                note.setStorage(stored.ref());
                 savedNotes.add(noteRepository.save(note));
             }
             return ResponseEntity.ok(savedNotes);
@@ -195,7 +197,7 @@ public class NoteController {
      * Streams the note PDF content securely, verifying access.
      */
     @GetMapping("/notes/download/{id}")
-    public ResponseEntity<?> downloadNote(@PathVariable Long id) {
+    public ResponseEntity<?> downloadNote(@PathVariable Long id, @RequestHeader HttpHeaders requestHeaders) {
         Note note = noteRepository.findById(id).orElse(null);
         if (note == null) {
             return ResponseEntity.notFound().build();
@@ -224,7 +226,7 @@ public class NoteController {
                 hasAccess = true;
             } else {
                 // Registered Student
-                Users student = userRepo.findByComputerCodeOrUsername(auth.getName()).orElse(null);
+                UserAuthView student = currentUserService.currentView();
                 if (student != null) {
                     if ("BRANCH".equalsIgnoreCase(vis)) {
                         String studentBranch = student.getBranch();
@@ -245,36 +247,29 @@ public class NoteController {
         }
 
         String fileUrl = note.getPdfUrl();
-        if (fileUrl == null || !fileUrl.startsWith("http")) {
+        if (note.getStorage() == null && (fileUrl == null || !fileUrl.startsWith("http"))) {
             return ResponseEntity.notFound().build();
         }
 
-        // Extract Google Drive File ID
-        String fileId = null;
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("/d/([^/&?]+)");
-        java.util.regex.Matcher matcher = pattern.matcher(fileUrl);
-        if (matcher.find()) {
-            fileId = matcher.group(1);
-        } else {
-            java.util.regex.Pattern pattern2 = java.util.regex.Pattern.compile("[?&]id=([^/&?]+)");
-            java.util.regex.Matcher matcher2 = pattern2.matcher(fileUrl);
-            if (matcher2.find()) {
-                fileId = matcher2.group(1);
-            }
-        }
+        // Stored reference first; rows not yet backfilled fall back to the Drive link
+        BlobStores.Location location = blobStores.locate(note.getStorage(), fileUrl);
 
-        if (fileId == null) {
+        if (location == null) {
             return ResponseEntity.badRequest().body("Malformed Google Drive link resolved.");
         }
 
+        ResponseEntity<?> notModified = FileStreamResponses.notModified(note.getStorage(), requestHeaders);
+        if (notModified != null) {
+            return notModified;
+        }
+
         try {
-            InputStream inputStream = fileStorageService.getFileStream(fileId);
-            InputStreamResource resource = new InputStreamResource(inputStream);
+            com.abhi.authProject.service.BlobContent file = location.open();
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + note.getTitle() + "\"")
-                    .body(resource);
+            return FileStreamResponses.pdf(file, note.getStorage(), requestHeaders,
+                    "inline; filename=\"" + note.getTitle() + "\"");
+        } catch (com.abhi.authProject.service.DriveBulkhead.Rejected e) {
+            return FileStreamResponses.busy(e);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error retrieving file stream: " + e.getMessage());
         }
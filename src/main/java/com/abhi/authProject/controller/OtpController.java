@@ -22,7 +22,11 @@ public class OtpController {
         }
 
         // Generate and Log OTP
-        otpService.generateOtp(phone);
+        try {
+            otpService.generateOtp(phone);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(429).body(Map.of("message", e.getMessage()));
+        }
 
         // Return success always for security/mocking
         return ResponseEntity.ok(Map.of("message", "OTP sent successfully. Check Console."));
@@ -2,14 +2,16 @@ package com.abhi.authProject.controller;
 
 import com.abhi.authProject.model.Paper;
 import com.abhi.authProject.repo.PaperRepository;
+import com.abhi.authProject.service.BlobStore;
+import com.abhi.authProject.service.BlobStores;
+import com.abhi.authProject.service.CurrentUserService;
 import com.abhi.authProject.service.FileStorageService;
+import com.abhi.authProject.service.PaperArchiveService;
 import com.abhi.authProject.service.PaperBulkUploadService;
-import com.abhi.authProject.repo.UserRepo;
-import com.abhi.authProject.model.Users;
+import com.abhi.authProject.model.UserAuthView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
@@ -18,6 +20,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.beans.factory.annotation.Value;
 
 import java.io.IOException;
@@ -25,36 +28,39 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
-import java.io.ByteArrayOutputStream;
 
 @RestController
 @RequestMapping("/api")
 public class PaperController {
 
     private final PaperRepository paperRepository;
-    private final UserRepo userRepo;
+    private final CurrentUserService currentUserService;
     private final FileStorageService fileStorageService;
     private final PaperBulkUploadService bulkUploadService;
     private final com.abhi.authProject.repo.PaperViewLogRepository paperViewLogRepository;
     private final com.abhi.authProject.service.GlobalSettingsService settingsService;
+    private final PaperArchiveService paperArchiveService;
+    private final BlobStores blobStores;
 
     @Value("${pdf.storage.directory:/tmp/resumes}")
     private String uploadDir;
 
     @Autowired
-    public PaperController(PaperRepository paperRepository, UserRepo userRepo,
+    public PaperController(PaperRepository paperRepository, CurrentUserService currentUserService,
             FileStorageService fileStorageService,
             PaperBulkUploadService bulkUploadService,
             com.abhi.authProject.repo.PaperViewLogRepository paperViewLogRepository,
-            com.abhi.authProject.service.GlobalSettingsService settingsService) {
+            com.abhi.authProject.service.GlobalSettingsService settingsService,
+            PaperArchiveService paperArchiveService,
+            BlobStores blobStores) {
         this.paperRepository = paperRepository;
-        this.userRepo = userRepo;
+        this.currentUserService = currentUserService;
         this.fileStorageService = fileStorageService;
         this.bulkUploadService = bulkUploadService;
         this.paperViewLogRepository = paperViewLogRepository;
         this.settingsService = settingsService;
+        this.paperArchiveService = paperArchiveService;
+        this.blobStores = blobStores;
     }
 
     /**
@@ -81,8 +87,7 @@ public class PaperController {
 
         // STRICT SECURITY FOR STUDENTS
         if (isAuthenticated && !isAdmin) {
-            String username = auth.getName();
-            Users user = userRepo.findByUsername(username).orElse(null);
+            UserAuthView user = currentUserService.currentView();
             
             if (user != null) {
                 // Force semester and branch to match student profile
@@ -130,10 +135,11 @@ public class PaperController {
             @RequestParam(value = "university", required = false, defaultValue = "DAVV") String university,
             @RequestParam("file") MultipartFile file) {
         try {
-            // UPLOAD TO GOOGLE DRIVE
-            String downloadUrl = fileStorageService.uploadFileToDrive(file);
+            // UPLOAD TO THE CONFIGURED PAPER STORE (Google Drive by default)
+            BlobStore.Stored stored = store(file);
 
-            Paper paper = new Paper(title, subject, year, semester, branch, company, category, university, downloadUrl);
+            Paper paper = new Paper(title, subject, year, semester, branch, company, category, university, stored.url());
+            paper.setStorage(stored.ref());
             Paper savedPaper = paperRepository.save(paper);
             return ResponseEntity.ok(savedPaper);
         } catch (IOException e) {
@@ -163,8 +169,8 @@ public class PaperController {
             bulkUploadService.ensureBranchExists(branch);
 
             for (MultipartFile file : files) {
-                // UPLOAD TO CLOUDINARY
-                String downloadUrl = fileStorageService.savePaperToCloudinary(file);
+                // UPLOAD TO THE CONFIGURED PAPER STORE (Google Drive by default)
+                BlobStore.Stored stored = store(file);
 
                 // Priority: Extract year from filename if year is 0
                 int finalYear = (year > 0) ? year : bulkUploadService.extractYear(file.getOriginalFilename(), 2024);
@@ -181,7 +187,8 @@ public class PaperController {
                 }
 
                 Paper paper = new Paper(paperTitle, subject, finalYear, semester, branch, company, category, university,
-                        downloadUrl);
+                        stored.url());
+                paper.setStorage(stored.ref());
                 savedPapers.add(paperRepository.save(paper));
             }
             return ResponseEntity.ok(savedPapers);
@@ -193,6 +200,8 @@ public class PaperController {
     /**
      * Bulk upload via ZIP file.
      * Structure: Branch/Semester X/Subject/File.pdf
+     * The files are uploaded in the background: answers 202 with the import
+     * job, whose progress is at the Location URL.
      */
     @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN') or hasRole('DEPT_ADMIN')")
     @PostMapping(value = "/papers/bulk-upload-zip", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -204,13 +213,39 @@ public class PaperController {
             if (!file.getOriginalFilename().toLowerCase().endsWith(".zip")) {
                 return ResponseEntity.badRequest().body("Please upload a ZIP file.");
             }
-            java.util.List<Paper> papers = bulkUploadService.processZipFile(file, university, year);
-            return ResponseEntity.ok(papers);
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            com.abhi.authProject.model.PaperImportJob job = bulkUploadService.startImport(file, university, year,
+                    auth != null ? auth.getName() : null);
+            return ResponseEntity.accepted()
+                    .location(java.net.URI.create("/api/papers/bulk-upload-zip/" + job.getId()))
+                    .body(bulkUploadService.report(job.getId()).orElseThrow());
+        } catch (java.util.zip.ZipException e) {
+            return ResponseEntity.badRequest().body("Not a valid ZIP file: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Bulk upload failed: " + e.getMessage());
         }
     }
 
+    // Progress and per-file results of a ZIP bulk upload
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN') or hasRole('DEPT_ADMIN')")
+    @GetMapping("/papers/bulk-upload-zip/{jobId}")
+    public ResponseEntity<?> getBulkUploadProgress(@PathVariable Long jobId) {
+        return bulkUploadService.report(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Uploads a finished job's failed files again
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN') or hasRole('DEPT_ADMIN')")
+    @PostMapping("/papers/bulk-upload-zip/{jobId}/retry")
+    public ResponseEntity<?> retryBulkUpload(@PathVariable Long jobId) {
+        if (!bulkUploadService.retryFailed(jobId)) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.CONFLICT)
+                    .body("Import not found, still running, or its ZIP has expired.");
+        }
+        return ResponseEntity.accepted().body(bulkUploadService.report(jobId).orElseThrow());
+    }
+
     /**
      * Legacy endpoint for JSON only if needed, but we prefer the upload one.
      */
@@ -225,7 +260,7 @@ public class PaperController {
      * Endpoint to serve the PDF file.
      */
     @GetMapping("/papers/batch-download")
-    public ResponseEntity<byte[]> downloadBatch(
+    public ResponseEntity<StreamingResponseBody> downloadBatch(
             @RequestParam String branch,
             @RequestParam int semester,
             @RequestParam(required = false) String subject) {
@@ -237,7 +272,7 @@ public class PaperController {
                                a.getAuthority().equals("ROLE_DEPT_ADMIN"));
 
         if (!isAdmin) {
-            Users user = userRepo.findByUsername(auth.getName()).orElse(null);
+            UserAuthView user = currentUserService.currentView();
             String userBranch = (user != null) ? user.getBranch() : null;
             Integer userSem = (user != null) ? user.getSemester() : null;
 
@@ -260,34 +295,16 @@ public class PaperController {
             return ResponseEntity.noContent().build();
         }
 
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                ZipOutputStream zos = new ZipOutputStream(baos)) {
+        // Resolved here, while the request still has its session; the archive is written afterwards
+        List<PaperArchiveService.Entry> entries = paperArchiveService.entries(papers);
+        String zipName = branch + "_Sem" + semester + (subject != null ? "_" + subject : "") + "_Papers.zip";
 
-            for (Paper paper : papers) {
-                // Correctly resolve file path
-                String fileName = paper.getPdfUrl().replace("/api/papers/download/", "");
-                Path filePath = Paths.get(uploadDir, "papers").resolve(fileName).normalize();
+        StreamingResponseBody body = out -> paperArchiveService.writeZip(entries, out);
 
-                if (Files.exists(filePath)) {
-                    ZipEntry entry = new ZipEntry(
-                            paper.getSubject() + "/" + paper.getTitle() + "_" + paper.getYear() + ".pdf");
-                    zos.putNextEntry(entry);
-                    Files.copy(filePath, zos);
-                    zos.closeEntry();
-                }
-            }
-            zos.finish();
-
-            String zipName = branch + "_Sem" + semester + (subject != null ? "_" + subject : "") + "_Papers.zip";
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + zipName + "\"")
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .body(baos.toByteArray());
-
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
-        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + zipName + "\"")
+                .contentType(MediaType.valueOf("application/zip"))
+                .body(body);
     }
 
     @GetMapping("/papers/download/{fileName:.+}")
@@ -367,7 +384,7 @@ public class PaperController {
      */
     @GetMapping("/papers/proxy/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Resource> proxyDownload(@PathVariable Long id) {
+    public ResponseEntity<?> proxyDownload(@PathVariable Long id, @RequestHeader HttpHeaders requestHeaders) {
         try {
             Paper paper = paperRepository.findById(id).orElseThrow(() -> new RuntimeException("Paper not found"));
             
@@ -375,8 +392,7 @@ public class PaperController {
             try {
                 Authentication auth = SecurityContextHolder.getContext().getAuthentication();
                 if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getName())) {
-                    String username = auth.getName();
-                    Users user = userRepo.findByComputerCodeOrUsername(username).orElse(null);
+                    UserAuthView user = currentUserService.currentView();
                     if (user != null) {
                         com.abhi.authProject.model.PaperViewLog viewLog = new com.abhi.authProject.model.PaperViewLog(
                             user.getUsername(),
@@ -404,7 +420,8 @@ public class PaperController {
                                    a.getAuthority().equals("ROLE_DEPT_ADMIN"));
 
             if (!isAdmin) {
-                Users user = userRepo.findByComputerCodeOrUsername(auth.getName()).orElse(null);
+                // Same request-memoised view as the log above: no second lookup
+                UserAuthView user = currentUserService.currentView();
                 System.out.println("Security Check for " + auth.getName());
                 
                 String userBranch = (user != null) ? user.getBranch() : null;
@@ -428,44 +445,34 @@ public class PaperController {
 
             System.out.println("Streaming secure content for ID: " + id);
 
-            if (fileUrl == null || !fileUrl.startsWith("http")) {
+            if (paper.getStorage() == null && (fileUrl == null || !fileUrl.startsWith("http"))) {
                 return ResponseEntity.notFound().build();
             }
 
-            // Extract Google Drive File ID robustly
-            String fileId = null;
-            
-            // Format 1: /d/FILE_ID
-            java.util.regex.Pattern pattern1 = java.util.regex.Pattern.compile("/d/([^/&?]+)");
-            java.util.regex.Matcher matcher1 = pattern1.matcher(fileUrl);
-            if (matcher1.find()) {
-                fileId = matcher1.group(1);
-            } else {
-                // Format 2: ?id=FILE_ID or &id=FILE_ID
-                java.util.regex.Pattern pattern2 = java.util.regex.Pattern.compile("[?&]id=([^/&?]+)");
-                java.util.regex.Matcher matcher2 = pattern2.matcher(fileUrl);
-                if (matcher2.find()) {
-                    fileId = matcher2.group(1);
-                }
-            }
+            // Stored reference first; only rows not yet backfilled need the URL parsed
+            BlobStores.Location location = blobStores.locate(paper.getStorage(), fileUrl);
 
-            if (fileId == null) {
+            if (location == null) {
                 System.out.println("Could not extract File ID from URL: " + fileUrl);
                 return ResponseEntity.badRequest().body(null);
             }
 
-            // Stream from Google Drive
+            // Client already has this version: no need to open the file at all
+            ResponseEntity<?> notModified = FileStreamResponses.notModified(paper.getStorage(), requestHeaders);
+            if (notModified != null) {
+                return notModified;
+            }
+
+            // Stream from the store holding the file (Drive via the local cache)
             try {
-                java.io.InputStream inputStream = fileStorageService.getFileStream(fileId);
-                InputStreamResource resource = new InputStreamResource(inputStream);
+                com.abhi.authProject.service.BlobContent file = location.open();
 
-                return ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_PDF)
-                        // "inline" means "show in browser". We remove "filename" to make "Save As" harder.
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline")
-                        .body(resource);
+                // "inline" means "show in browser". We remove "filename" to make "Save As" harder.
+                return FileStreamResponses.pdf(file, paper.getStorage(), requestHeaders, "inline");
+            } catch (com.abhi.authProject.service.DriveBulkhead.Rejected e) {
+                return FileStreamResponses.busy(e);
             } catch (Exception e) {
-                System.err.println("Secure Streaming Failed for File ID " + fileId + ": " + e.getMessage());
+                System.err.println("Secure Streaming Failed for File ID " + location.fileId() + ": " + e.getMessage());
                 return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN).build();
             }
 
@@ -493,16 +500,7 @@ public class PaperController {
 
         for (Paper paper : papers) {
             try {
-                String url = paper.getPdfUrl();
-                // Extract clean File ID
-                String fileId = null;
-                if (url != null && url.contains("/d/")) {
-                    java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("/d/([^/]+)");
-                    java.util.regex.Matcher matcher = pattern.matcher(url);
-                    if (matcher.find()) {
-                        fileId = matcher.group(1);
-                    }
-                }
+                String fileId = FileStorageService.driveFileId(paper.getStorage(), paper.getPdfUrl());
 
                 if (fileId != null) {
                     fileStorageService.secureFile(fileId);
@@ -525,6 +523,12 @@ public class PaperController {
         return ResponseEntity.ok(report);
     }
 
+    private BlobStore.Stored store(MultipartFile file) throws IOException {
+        try (java.io.InputStream in = file.getInputStream()) {
+            return blobStores.put(BlobStores.Content.PAPERS, file.getOriginalFilename(), file.getContentType(), in);
+        }
+    }
+
     @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN') or hasRole('DEPT_ADMIN')")
     @GetMapping("/admin/papers/view-logs")
     public ResponseEntity<List<com.abhi.authProject.model.PaperViewLog>> getPaperViewLogs() {
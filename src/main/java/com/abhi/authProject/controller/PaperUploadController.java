@@ -1,12 +1,13 @@
 package com.abhi.authProject.controller;
 
 import com.abhi.authProject.model.Paper;
+import com.abhi.authProject.model.StorageRef;
 import com.abhi.authProject.model.StudentPaper;
 import com.abhi.authProject.model.Users;
 import com.abhi.authProject.repo.PaperRepository;
 import com.abhi.authProject.repo.StudentPaperRepository;
 import com.abhi.authProject.repo.UserRepo;
-import com.abhi.authProject.service.FileStorageService;
+import com.abhi.authProject.service.BlobStores;
 import com.abhi.authProject.service.PdfCompilationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -29,7 +30,7 @@ public class PaperUploadController {
     private PdfCompilationService pdfCompilationService;
 
     @Autowired
-    private FileStorageService fileStorageService;
+    private BlobStores blobStores;
 
     @Autowired
     private StudentPaperRepository studentPaperRepository;
@@ -65,10 +66,11 @@ public class PaperUploadController {
             // Compile PDF
             byte[] compiledPdf = pdfCompilationService.compileImagesToPdf(files, uploader.getName() != null ? uploader.getName() : uploader.getUsername());
 
-            // Upload compiledPdf to Google Drive
+            // Upload compiledPdf to the configured paper store
             String fileName = String.format("%s_%s_Sem%s_%s.pdf", subject, branch, semester, year).replaceAll(" ", "_");
             java.io.InputStream is = new java.io.ByteArrayInputStream(compiledPdf);
-            String driveFileId = fileStorageService.saveFileFromStream(is, fileName, "");
+            com.abhi.authProject.service.BlobStore.Stored stored = blobStores.put(BlobStores.Content.PAPERS,
+                    fileName, "application/pdf", is);
 
             // Save to Database as PENDING
             StudentPaper paper = new StudentPaper();
@@ -78,7 +80,8 @@ public class PaperUploadController {
             paper.setYear(year);
             paper.setStatus("PENDING");
             paper.setUploadedBy(uploader);
-            paper.setDriveFileId(driveFileId);
+            paper.setDriveFileId(stored.url());
+            paper.setStorage(stored.ref());
             
             studentPaperRepository.save(paper);
 
@@ -106,7 +109,8 @@ public class PaperUploadController {
      */
     @GetMapping("/pending/{id}/view")
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN', 'COMPANY_ADMIN', 'DEPT_ADMIN')")
-    public ResponseEntity<?> viewPendingPaper(@PathVariable Long id) {
+    public ResponseEntity<?> viewPendingPaper(@PathVariable Long id,
+            @RequestHeader org.springframework.http.HttpHeaders requestHeaders) {
         try {
             Optional<StudentPaper> optionalPaper = studentPaperRepository.findById(id);
             if (!optionalPaper.isPresent()) {
@@ -115,39 +119,30 @@ public class PaperUploadController {
             StudentPaper paper = optionalPaper.get();
             String fileUrl = paper.getDriveFileId();
             
-            if (fileUrl == null) {
+            if (fileUrl == null && paper.getStorage() == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            String fileId = null;
-            if (fileUrl.contains("/d/")) {
-                java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("/d/([^/&?]+)");
-                java.util.regex.Matcher matcher = pattern.matcher(fileUrl);
-                if (matcher.find()) {
-                    fileId = matcher.group(1);
-                }
-            } else if (fileUrl.contains("id=")) {
-                java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("id=([^/&?]+)");
-                java.util.regex.Matcher matcher = pattern.matcher(fileUrl);
-                if (matcher.find()) {
-                    fileId = matcher.group(1);
-                }
-            } else if (!fileUrl.contains("/") && !fileUrl.contains("http")) {
-                fileId = fileUrl;
+            BlobStores.Location location = blobStores.locate(paper.getStorage(), fileUrl);
+            if (location == null && fileUrl != null && !fileUrl.contains("/")) {
+                location = new BlobStores.Location(blobStores.forProvider(StorageRef.DRIVE), fileUrl); // Bare Drive file ID
             }
 
 
-            if (fileId != null) {
-                java.io.InputStream inputStream = fileStorageService.getFileStream(fileId);
-                org.springframework.core.io.InputStreamResource resource = new org.springframework.core.io.InputStreamResource(inputStream);
+            if (location != null) {
+                ResponseEntity<?> notModified = FileStreamResponses.notModified(paper.getStorage(), requestHeaders);
+                if (notModified != null) {
+                    return notModified;
+                }
+                com.abhi.authProject.service.BlobContent file = location.open();
 
-                return ResponseEntity.ok()
-                        .contentType(org.springframework.http.MediaType.APPLICATION_PDF)
-                        .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"pending_paper_" + id + ".pdf\"")
-                        .body(resource);
+                return FileStreamResponses.pdf(file, paper.getStorage(), requestHeaders,
+                        "inline; filename=\"pending_paper_" + id + ".pdf\"");
             } else {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid Google Drive URL structure.");
             }
+        } catch (com.abhi.authProject.service.DriveBulkhead.Rejected e) {
+            return FileStreamResponses.busy(e);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error streaming paper.");
@@ -208,6 +203,7 @@ public class PaperUploadController {
                         "DAVV", // Default
                         paper.getDriveFileId()
                 );
+                publicPaper.setStorage(paper.getStorage());
                 paperRepository.save(publicPaper);
             } catch (Exception ex) {
                 System.err.println("Failed to create public paper: " + ex.getMessage());
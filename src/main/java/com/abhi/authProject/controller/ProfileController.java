@@ -72,4 +72,29 @@ public class ProfileController {
             return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
     }
+
+    // Daily digest instead of one email per job alert, new drive or status change
+    @GetMapping("/notifications")
+    public ResponseEntity<?> getNotificationPreferences(Authentication authentication) {
+        Users user = userRepo.findByUsername(authentication.getName()).orElse(null);
+        if (user == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "User not found"));
+        }
+        return ResponseEntity.ok(Map.of("dailyDigest", user.isDigestOptIn()));
+    }
+
+    @PutMapping("/notifications")
+    public ResponseEntity<?> updateNotificationPreferences(@RequestBody Map<String, Boolean> payload,
+            Authentication authentication) {
+        Boolean dailyDigest = payload.get("dailyDigest");
+        if (dailyDigest == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "dailyDigest is required"));
+        }
+        if (userRepo.setDigestOptIn(authentication.getName(), dailyDigest) == 0) {
+            return ResponseEntity.badRequest().body(Map.of("message", "User not found"));
+        }
+        return ResponseEntity.ok(Map.of(
+                "message", dailyDigest ? "You will receive a daily digest" : "You will receive individual emails",
+                "dailyDigest", dailyDigest));
+    }
 }
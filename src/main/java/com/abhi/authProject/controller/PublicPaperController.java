@@ -1,13 +1,13 @@
 package com.abhi.authProject.controller;
 
+import com.abhi.authProject.Jwt.TokenGenerationService;
 import com.abhi.authProject.model.Paper;
 import com.abhi.authProject.repo.PaperRepository;
-import com.abhi.authProject.service.FileStorageService;
+import com.abhi.authProject.service.BlobStores;
 import com.abhi.authProject.service.GlobalSettingsService;
+import com.abhi.authProject.service.UserActivityWriteBehind;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -22,7 +22,7 @@ public class PublicPaperController {
     private PaperRepository paperRepository;
 
     @Autowired
-    private FileStorageService fileStorageService;
+    private BlobStores blobStores;
 
     @Autowired
     private com.abhi.authProject.repo.UserRepo userRepo;
@@ -33,6 +33,12 @@ public class PublicPaperController {
     @Autowired
     private GlobalSettingsService settingsService;
 
+    @Autowired
+    private UserActivityWriteBehind userActivityWriteBehind;
+
+    @Autowired
+    private TokenGenerationService tokenGenerationService;
+
     @GetMapping("/papers/settings")
     public ResponseEntity<?> getPaperSettings() {
         boolean downloadEnabled = settingsService.getSettings().isPaperDownloadEnabled();
@@ -52,7 +58,8 @@ public class PublicPaperController {
     @GetMapping("/papers/download/{id}")
     public ResponseEntity<?> downloadPaper(
             @PathVariable Long id,
-            @org.springframework.web.bind.annotation.RequestParam(required = false, defaultValue = "VIEW") String action) {
+            @org.springframework.web.bind.annotation.RequestParam(required = false, defaultValue = "VIEW") String action,
+            @org.springframework.web.bind.annotation.RequestHeader HttpHeaders requestHeaders) {
         
         // STRICT SECURITY: Only authenticated users can download or view PDFs, unless paperWithoutLoginEnabled is enabled
         boolean paperWithoutLogin = settingsService.getSettings().isPaperWithoutLoginEnabled();
@@ -70,17 +77,15 @@ public class PublicPaperController {
                 org.springframework.security.core.Authentication auth = currentAuth;
                 if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getName())) {
                     String username = auth.getName();
-                    com.abhi.authProject.model.Users user = userRepo.findByComputerCodeOrUsername(username).orElse(null);
+                    com.abhi.authProject.model.UserAuthView user = userRepo.findAuthViewByComputerCodeOrUsername(username).orElse(null);
                     if (user != null && user.getLockedUntil() != null) {
                         if (user.getLockedUntil().isAfter(java.time.LocalDateTime.now())) {
                             long secondsLeft = java.time.Duration.between(java.time.LocalDateTime.now(), user.getLockedUntil()).getSeconds();
                             return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN)
                                     .body("Your account is temporarily suspended due to security violations. Please try again in " + secondsLeft + " seconds.");
                         } else {
-                            // Automatically clear strikes once locked period expires
-                            user.setSecurityStrikes(0);
-                            user.setLockedUntil(null);
-                            userRepo.save(user);
+                            // Automatically clear strikes once locked period expires (written behind)
+                            userActivityWriteBehind.clearExpiredLock(user.getId());
                         }
                     }
                 }
@@ -133,40 +138,30 @@ public class PublicPaperController {
 
             String fileUrl = paper.getPdfUrl();
 
-            if (fileUrl == null || !fileUrl.startsWith("http")) {
+            if (paper.getStorage() == null && (fileUrl == null || !fileUrl.startsWith("http"))) {
                 return ResponseEntity.notFound().build();
             }
 
-            boolean isGoogleDrive = fileUrl.contains("drive.google.com") || fileUrl.contains("docs.google.com");
+            boolean isGoogleDrive = fileUrl != null
+                    && (fileUrl.contains("drive.google.com") || fileUrl.contains("docs.google.com"));
 
-            if (isGoogleDrive) {
-                String fileId = null;
-                
-                // Format 1: /d/FILE_ID
-                java.util.regex.Pattern pattern1 = java.util.regex.Pattern.compile("/d/([^/&?]+)");
-                java.util.regex.Matcher matcher1 = pattern1.matcher(fileUrl);
-                if (matcher1.find()) {
-                    fileId = matcher1.group(1);
-                } else {
-                    // Format 2: ?id=FILE_ID or &id=FILE_ID
-                    java.util.regex.Pattern pattern2 = java.util.regex.Pattern.compile("[?&]id=([^/&?]+)");
-                    java.util.regex.Matcher matcher2 = pattern2.matcher(fileUrl);
-                    if (matcher2.find()) {
-                        fileId = matcher2.group(1);
-                    }
-                }
+            if (isGoogleDrive || paper.getStorage() != null) {
+                BlobStores.Location location = blobStores.locate(paper.getStorage(), fileUrl);
 
-                if (fileId != null) {
+                if (location != null) {
+                    ResponseEntity<?> notModified = FileStreamResponses.notModified(paper.getStorage(), requestHeaders);
+                    if (notModified != null) {
+                        return notModified;
+                    }
                     try {
-                        java.io.InputStream inputStream = fileStorageService.getFileStream(fileId);
-                        InputStreamResource resource = new InputStreamResource(inputStream);
+                        com.abhi.authProject.service.BlobContent file = location.open();
 
-                        return ResponseEntity.ok()
-                                .contentType(MediaType.APPLICATION_PDF)
-                                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + paper.getTitle().replaceAll("[^a-zA-Z0-9]", "_") + ".pdf\"")
-                                .body(resource);
+                        return FileStreamResponses.pdf(file, paper.getStorage(), requestHeaders,
+                                "inline; filename=\"" + paper.getTitle().replaceAll("[^a-zA-Z0-9]", "_") + ".pdf\"");
+                    } catch (com.abhi.authProject.service.DriveBulkhead.Rejected e) {
+                        return FileStreamResponses.busy(e);
                     } catch (Exception e) {
-                        System.err.println("Secure Streaming Failed for File ID " + fileId + ": " + e.getMessage());
+                        System.err.println("Secure Streaming Failed for File ID " + location.fileId() + ": " + e.getMessage());
                         return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN)
                                 .body("Unable to stream secure document. Access Denied.");
                     }
@@ -244,6 +239,10 @@ public class PublicPaperController {
             }
 
             userRepo.save(user);
+            if (isLocked) {
+                // Outstanding access tokens were issued unlocked; refresh is refused until the lock ends
+                tokenGenerationService.invalidateAccessTokens(user.getUsername());
+            }
 
             int finalLockoutCount = user.getLockoutCount();
             long finalSecondsLeft = secondsLeft;
@@ -1,12 +1,14 @@
 package com.abhi.authProject.controller;
 
+import com.abhi.authProject.config.CurrentUser;
 import com.abhi.authProject.model.StudentProfile;
+import com.abhi.authProject.model.UserAuthView;
 import com.abhi.authProject.model.Users;
 import com.abhi.authProject.repo.StudentProfileRepo;
 import com.abhi.authProject.repo.UserRepo;
+import com.abhi.authProject.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -20,10 +22,11 @@ public class StudentProfileController {
     @Autowired
     private UserRepo userRepo;
 
+    @Autowired
+    private CurrentUserService currentUserService;
+
     @GetMapping
-    public ResponseEntity<?> getMyProfile(Authentication auth) {
-        String username = auth.getName();
-        Users user = userRepo.findByUsername(username).orElse(null);
+    public ResponseEntity<?> getMyProfile(@CurrentUser UserAuthView user) {
 
         if (user == null) {
             return ResponseEntity.notFound().build();
@@ -35,9 +38,7 @@ public class StudentProfileController {
     }
 
     @PostMapping
-    public ResponseEntity<?> createOrUpdateProfile(@RequestBody StudentProfile profile, Authentication auth) {
-        String username = auth.getName();
-        Users user = userRepo.findByUsername(username).orElse(null);
+    public ResponseEntity<?> createOrUpdateProfile(@RequestBody StudentProfile profile, @CurrentUser Users user) {
 
         if (user == null) {
             return ResponseEntity.badRequest().body("User not found");
@@ -61,6 +62,7 @@ public class StudentProfileController {
             user.setBatch(profile.getBatch());
         user.setLastProfileUpdate(java.time.LocalDate.now());
         userRepo.save(user);
+        currentUserService.evict(user.getUsername()); // branch / semester may have changed
 
         // Check if profile exists
         StudentProfile existing = profileRepo.findByUserId(user.getId()).orElse(null);
@@ -90,9 +92,7 @@ public class StudentProfileController {
 
     @GetMapping("/admin/all")
     @org.springframework.security.access.prepost.PreAuthorize("hasAnyRole('SUPER_ADMIN', 'DEPT_ADMIN')")
-    public ResponseEntity<?> getAllProfiles(Authentication auth) {
-        String username = auth.getName();
-        Users user = userRepo.findByUsername(username).orElse(null);
+    public ResponseEntity<?> getAllProfiles(@CurrentUser UserAuthView user) {
 
         if (user == null) {
             return ResponseEntity.status(401).body("User not found");
@@ -122,15 +122,13 @@ public class StudentProfileController {
 
     @PostMapping("/upload-id-card")
     public ResponseEntity<?> uploadIdCard(@RequestParam("file") org.springframework.web.multipart.MultipartFile file,
-            Authentication auth) throws java.io.IOException {
-        String username = auth.getName();
-        Users user = userRepo.findByUsername(username).orElse(null);
+            @CurrentUser UserAuthView user) throws java.io.IOException {
         if (user == null)
             return ResponseEntity.badRequest().body("User not found");
 
         StudentProfile profile = profileRepo.findByUserId(user.getId()).orElse(new StudentProfile());
         if (profile.getUser() == null)
-            profile.setUser(user);
+            profile.setUser(userRepo.getReferenceById(user.getId())); // only the foreign key is written
 
         com.abhi.authProject.model.IdCardImage img = new com.abhi.authProject.model.IdCardImage();
         img.setName(file.getOriginalFilename());
@@ -162,15 +160,13 @@ public class StudentProfileController {
 
     @PostMapping("/upload-admit-card")
     public ResponseEntity<?> uploadAdmitCard(@RequestParam("file") org.springframework.web.multipart.MultipartFile file,
-            Authentication auth) throws java.io.IOException {
-        String username = auth.getName();
-        Users user = userRepo.findByUsername(username).orElse(null);
+            @CurrentUser UserAuthView user) throws java.io.IOException {
         if (user == null)
             return ResponseEntity.badRequest().body("User not found");
 
         StudentProfile profile = profileRepo.findByUserId(user.getId()).orElse(new StudentProfile());
         if (profile.getUser() == null)
-            profile.setUser(user);
+            profile.setUser(userRepo.getReferenceById(user.getId())); // only the foreign key is written
 
         com.abhi.authProject.model.IdCardImage img = new com.abhi.authProject.model.IdCardImage();
         img.setName(file.getOriginalFilename());
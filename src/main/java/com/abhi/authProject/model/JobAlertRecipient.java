@@ -0,0 +1,17 @@
+package com.abhi.authProject.model;
+
+/**
+ * Columns needed to address a new-job alert; see {@code UserRepo.findJobAlertRecipients}.
+ */
+public interface JobAlertRecipient {
+
+    int getId();
+
+    String getEmail();
+
+    String getUsername();
+
+    String getName();
+
+    boolean isDigestOptIn();
+}
@@ -0,0 +1,56 @@
+package com.abhi.authProject.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the new-job email fan-out for one job. {@code lastUserId} is the
+ * keyset cursor: recipients are walked in id order, so an interrupted run
+ * continues after the last user that was already queued.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "job_alert_runs", indexes = {
+        @Index(name = "idx_job_alert_runs_job", columnList = "job_id", unique = true)
+})
+public class JobAlertRun {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private int jobId;
+
+    @Column(nullable = false, length = 16)
+    private String status = RUNNING;
+
+    @Column(name = "total_recipients", nullable = false)
+    private long totalRecipients;
+
+    @Column(nullable = false)
+    private long queued;
+
+    @Column(name = "last_user_id", nullable = false)
+    private int lastUserId;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt = LocalDateTime.now();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -25,6 +25,10 @@ public class Note {
     private String rootFolder;   // the parent uploaded folder, e.g. "Soft Computing"
     private Date uploadedAt;
 
+    @jakarta.persistence.Embedded
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private StorageRef storage; // Provider, file ID, size and checksum of the stored PDF
+
     public Note() {
         this.uploadedAt = new Date();
     }
@@ -121,6 +125,14 @@ public class Note {
         this.uploadedAt = uploadedAt;
     }
 
+    public StorageRef getStorage() {
+        return storage;
+    }
+
+    public void setStorage(StorageRef storage) {
+        this.storage = storage;
+    }
+
     @Override
     public String toString() {
         return "Note{" +
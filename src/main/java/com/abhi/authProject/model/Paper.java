@@ -27,6 +27,10 @@ public class Paper {
     private String pdfUrl; // Path to the uploaded file on the server
     private Date uploadedAt; // Auto-generated timestamp
 
+    @jakarta.persistence.Embedded
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private StorageRef storage; // Provider, file ID, size and checksum of the stored PDF
+
     // --- Constructors ---
     // Default constructor (required by JPA)
     public Paper() {
@@ -140,6 +144,14 @@ public class Paper {
         this.uploadedAt = uploadedAt;
     }
 
+    public StorageRef getStorage() {
+        return storage;
+    }
+
+    public void setStorage(StorageRef storage) {
+        this.storage = storage;
+    }
+
     @Override
     public String toString() {
         return "Paper{" +
@@ -0,0 +1,58 @@
+package com.abhi.authProject.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One PDF in a {@link PaperImportJob}'s ZIP and what became of it. An entry is
+ * marked UPLOADED in the same transaction that saves its paper, so a job
+ * resumed after a restart only uploads the entries still PENDING.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "paper_import_entries", indexes = {
+        @Index(name = "idx_paper_import_entries_job", columnList = "job_id, status")
+})
+public class PaperImportEntry {
+
+    public static final String PENDING = "PENDING";
+    public static final String UPLOADED = "UPLOADED";
+    public static final String FAILED = "FAILED";
+    // Not in the Branch/Semester X/Subject/File.pdf layout
+    public static final String SKIPPED = "SKIPPED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    // Path inside the ZIP
+    @Column(name = "entry_name", nullable = false, length = 1000)
+    private String entryName;
+
+    @Column(nullable = false, length = 16)
+    private String status = PENDING;
+
+    @Column(name = "paper_id")
+    private Long paperId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public PaperImportEntry(Long jobId, String entryName) {
+        this.jobId = jobId;
+        this.entryName = entryName;
+    }
+}
@@ -0,0 +1,64 @@
+package com.abhi.authProject.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A ZIP bulk import of papers running in the background. The uploaded ZIP is
+ * kept at {@code zipPath} until the job has finished and its failed entries
+ * can no longer be retried; per-file results are {@link PaperImportEntry} rows.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "paper_import_jobs", indexes = {
+        @Index(name = "idx_paper_import_jobs_status", columnList = "status")
+})
+public class PaperImportJob {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String status = RUNNING;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @JsonIgnore
+    @Column(name = "zip_path", length = 500)
+    private String zipPath;
+
+    @Column(length = 100)
+    private String university;
+
+    @Column(name = "default_year", nullable = false)
+    private int defaultYear;
+
+    @Column(name = "total_entries", nullable = false)
+    private int totalEntries;
+
+    @Column(name = "started_by", length = 100)
+    private String startedBy;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt = LocalDateTime.now();
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
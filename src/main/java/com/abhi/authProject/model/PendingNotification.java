@@ -0,0 +1,66 @@
+package com.abhi.authProject.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification waiting to be merged with others for the same recipient. Rows
+ * with the same {@code mergeKey} replace each other (e.g. several status
+ * changes of one application keep only the latest). Non-digest rows are sent
+ * once the recipient's oldest row reaches {@code deliverAfter}; digest rows
+ * wait for the daily digest. Sent rows are deleted.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "pending_notifications", indexes = {
+        @Index(name = "idx_pending_notifications_key", columnList = "merge_key", unique = true),
+        @Index(name = "idx_pending_notifications_recipient", columnList = "recipient_email, digest")
+})
+public class PendingNotification {
+
+    public static final String NEW_JOB = "NEW_JOB";
+    public static final String NEW_DRIVE = "NEW_DRIVE";
+    public static final String STATUS_CHANGE = "STATUS_CHANGE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "merge_key", nullable = false, length = 255)
+    private String mergeKey;
+
+    @Column(name = "recipient_email", nullable = false)
+    private String recipientEmail;
+
+    @Column(nullable = false, length = 32)
+    private String kind;
+
+    // Template, subject and body of the stand-alone email, used when nothing else is pending
+    @Column(length = 64)
+    private String template;
+
+    private String subject;
+
+    @Column(name = "html_content", columnDefinition = "TEXT")
+    private String htmlContent;
+
+    // One line for the merged email or digest
+    @Column(nullable = false, length = 500)
+    private String summary;
+
+    @Column(length = 1000)
+    private String link;
+
+    @Column(nullable = false)
+    private boolean digest;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "deliver_after", nullable = false)
+    private LocalDateTime deliverAfter;
+}
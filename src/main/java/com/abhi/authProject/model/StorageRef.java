@@ -0,0 +1,50 @@
+package com.abhi.authProject.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Where an uploaded file's bytes live, and what they were when stored: enough
+ * to stream it and answer ETag / Content-Length without parsing the share URL
+ * or asking the provider for metadata. The provider names the
+ * {@link com.abhi.authProject.service.BlobStore} holding it. Null on rows not
+ * yet backfilled.
+ */
+@Data
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageRef {
+
+    public static final String DRIVE = "DRIVE";
+    public static final String LOCAL = "LOCAL";
+    public static final String CLOUDINARY = "CLOUDINARY";
+
+    @Column(name = "storage_provider", length = 20)
+    private String provider;
+
+    // Drive file ID, Cloudinary public ID, or the path under the local storage directory
+    @Column(name = "storage_file_id", length = 255)
+    private String fileId;
+
+    @Column(name = "storage_size")
+    private Long sizeBytes;
+
+    @Column(name = "storage_md5", length = 32)
+    private String md5;
+
+    @Column(name = "storage_mime", length = 100)
+    private String mimeType;
+
+    @Column(name = "storage_modified_at")
+    private LocalDateTime modifiedAt;
+
+    public boolean isDrive() {
+        return DRIVE.equals(provider) && fileId != null;
+    }
+}
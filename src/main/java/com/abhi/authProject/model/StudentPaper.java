@@ -49,6 +49,10 @@ public class StudentPaper {
     // We store the Google Drive file ID once it's compiled and uploaded
     @Column(name = "drive_file_id", length = 255)
     private String driveFileId;
+
+    @Embedded
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private StorageRef storage;
     
     @Column(name = "rejection_reason", length = 500)
     private String rejectionReason;
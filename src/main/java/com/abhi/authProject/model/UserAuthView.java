@@ -0,0 +1,42 @@
+package com.abhi.authProject.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Slim read-only projection of {@link Users} for authentication and "who is
+ * calling" checks. Selecting only these columns keeps large fields (profile
+ * data, addresses, images) out of the hottest query.
+ */
+public interface UserAuthView {
+
+    int getId();
+
+    String getUsername();
+
+    String getPassword();
+
+    String getRole();
+
+    boolean isVerified();
+
+    boolean isEnabled();
+
+    LocalDateTime getLockedUntil();
+
+    String getBranch();
+
+    Integer getSemester();
+
+    String getBatch();
+
+    String getName();
+
+    String getComputerCode();
+
+    // Company and department admin scope
+    String getCompanyName();
+
+    String getAdminBranch();
+
+    String getAllowedDepartments();
+}
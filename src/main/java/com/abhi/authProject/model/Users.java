@@ -137,6 +137,15 @@ public class Users {
     @Column(name = "lockout_count", nullable = false)
     private int lockoutCount = 0;
 
+    // Embedded in every JWT as the "gen" claim; incrementing it revokes all of the user's tokens.
+    // Only ever changed by UserRepo.incrementTokenGeneration, so entity saves never overwrite it.
+    @Column(name = "token_generation", nullable = false, insertable = false, updatable = false, columnDefinition = "integer default 0")
+    private int tokenGeneration = 0;
+
+    // Daily digest instead of individual notification emails; only changed by UserRepo.setDigestOptIn
+    @Column(name = "digest_opt_in", nullable = false, insertable = false, updatable = false, columnDefinition = "boolean default false")
+    private boolean digestOptIn = false;
+
     // Verified Identity Data (from ID card scan)
     @Column(name = "full_name")
     private String fullName;
@@ -323,6 +332,14 @@ public class Users {
         this.lockoutCount = lockoutCount;
     }
 
+    public boolean isDigestOptIn() {
+        return digestOptIn;
+    }
+
+    public void setDigestOptIn(boolean digestOptIn) {
+        this.digestOptIn = digestOptIn;
+    }
+
     public Integer getContributionPoints() {
         return contributionPoints;
     }
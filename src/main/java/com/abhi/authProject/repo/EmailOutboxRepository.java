@@ -0,0 +1,54 @@
+package com.abhi.authProject.repo;
+
+import com.abhi.authProject.model.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    @Query("SELECT e.id FROM EmailOutbox e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(String status);
+
+    // Claims a row for delivery; returns 0 if another worker (or instance) got it first
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = 'SENDING', e.attempts = e.attempts + 1, e.updatedAt = :now "
+            + "WHERE e.id = :id AND e.status = 'PENDING'")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = 'SENT', e.lastError = null, e.updatedAt = :now WHERE e.id = :id")
+    int markSent(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.nextAttemptAt = :nextAttemptAt, e.lastError = :error, "
+            + "e.updatedAt = :now WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") String status,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error,
+            @Param("now") LocalDateTime now);
+
+    // Rows left in SENDING by a crashed or restarted instance go back to the queue
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = 'PENDING', e.nextAttemptAt = :now "
+            + "WHERE e.status = 'SENDING' AND e.updatedAt < :stuckBefore")
+    int releaseStuck(@Param("stuckBefore") LocalDateTime stuckBefore, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = 'SENT' AND e.updatedAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,16 @@
+package com.abhi.authProject.repo;
+
+import com.abhi.authProject.model.JobAlertRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JobAlertRunRepository extends JpaRepository<JobAlertRun, Long> {
+
+    Optional<JobAlertRun> findByJobId(int jobId);
+
+    List<JobAlertRun> findByStatus(String status);
+}
@@ -1,7 +1,10 @@
 package com.abhi.authProject.repo;
 
 import com.abhi.authProject.model.Note;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -13,4 +16,8 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
     
     // Find notes by specific visibility level
     List<Note> findByVisibilityOrderByUploadedAtDesc(String visibility);
+
+    // Notes without a storage reference, in id order after the given one (backfill)
+    @Query("SELECT n FROM Note n WHERE n.storage.provider IS NULL AND n.id > :afterId ORDER BY n.id")
+    List<Note> findWithoutStorageAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,28 @@
+package com.abhi.authProject.repo;
+
+import com.abhi.authProject.model.PaperImportEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface PaperImportEntryRepository extends JpaRepository<PaperImportEntry, Long> {
+
+    List<PaperImportEntry> findByJobIdOrderById(Long jobId);
+
+    List<PaperImportEntry> findByJobIdAndStatusOrderById(Long jobId, String status);
+
+    long countByJobIdAndStatus(Long jobId, String status);
+
+    // Puts failed entries back in the queue for another attempt
+    @Modifying
+    @Transactional
+    @Query("UPDATE PaperImportEntry e SET e.status = 'PENDING', e.attempts = 0, e.error = null "
+            + "WHERE e.jobId = :jobId AND e.status = 'FAILED'")
+    int requeueFailed(@Param("jobId") Long jobId);
+}
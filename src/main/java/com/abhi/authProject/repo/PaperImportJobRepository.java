@@ -0,0 +1,17 @@
+package com.abhi.authProject.repo;
+
+import com.abhi.authProject.model.PaperImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PaperImportJobRepository extends JpaRepository<PaperImportJob, Long> {
+
+    List<PaperImportJob> findByStatus(String status);
+
+    // Finished jobs whose ZIP is still kept for retries
+    List<PaperImportJob> findByStatusNotAndZipPathIsNotNullAndCompletedAtBefore(String status, LocalDateTime cutoff);
+}
@@ -1,7 +1,10 @@
 package com.abhi.authProject.repo; // Consistent with your UserRepo package
 
 import com.abhi.authProject.model.Paper;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -25,4 +28,8 @@ public interface PaperRepository extends JpaRepository<Paper, Long> { // Paper i
 
     // Find by Branch only
     List<Paper> findByBranchOrderByYearDesc(String branch);
+
+    // Papers without a storage reference, in id order after the given one (backfill)
+    @Query("SELECT p FROM Paper p WHERE p.storage.provider IS NULL AND p.id > :afterId ORDER BY p.id")
+    List<Paper> findWithoutStorageAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.abhi.authProject.repo;
+
+import com.abhi.authProject.model.PendingNotification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PendingNotificationRepository extends JpaRepository<PendingNotification, Long> {
+
+    // A recipient is due once their oldest pending notification has waited out the window.
+    // Keyset paged by email (recipients after :after) so a flush pass never revisits a recipient.
+    @Query("SELECT n.recipientEmail FROM PendingNotification n WHERE n.digest = false AND n.recipientEmail > :after "
+            + "GROUP BY n.recipientEmail HAVING MIN(n.deliverAfter) <= :now ORDER BY n.recipientEmail")
+    List<String> findDueRecipients(@Param("now") LocalDateTime now, @Param("after") String after, Pageable pageable);
+
+    @Query("SELECT DISTINCT n.recipientEmail FROM PendingNotification n WHERE n.digest = true "
+            + "AND n.recipientEmail > :after ORDER BY n.recipientEmail")
+    List<String> findDigestRecipients(@Param("after") String after, Pageable pageable);
+
+    List<PendingNotification> findByRecipientEmailAndDigestOrderByCreatedAtAsc(String recipientEmail, boolean digest);
+
+    @Modifying
+    @Query("DELETE FROM PendingNotification n WHERE n.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
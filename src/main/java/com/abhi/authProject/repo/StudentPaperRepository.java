@@ -1,7 +1,10 @@
 package com.abhi.authProject.repo;
 
 import com.abhi.authProject.model.StudentPaper;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,4 +19,8 @@ public interface StudentPaperRepository extends JpaRepository<StudentPaper, Long
     List<StudentPaper> findByApprovedById(int userId);
     
     List<StudentPaper> findByBranchAndSemesterAndStatus(String branch, Integer semester, String status);
+
+    // Papers without a storage reference, in id order after the given one (backfill)
+    @Query("SELECT p FROM StudentPaper p WHERE p.storage.provider IS NULL AND p.id > :afterId ORDER BY p.id")
+    List<StudentPaper> findWithoutStorageAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
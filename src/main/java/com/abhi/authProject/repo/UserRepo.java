@@ -1,9 +1,17 @@
 package com.abhi.authProject.repo;
 
+import com.abhi.authProject.model.JobAlertRecipient;
+import com.abhi.authProject.model.UserAuthView;
 import com.abhi.authProject.model.Users;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional; // Import for Optional
 
@@ -37,6 +45,67 @@ public interface UserRepo extends JpaRepository<Users, Integer> {
                 .or(() -> findByUsername(identifier));
     }
 
+    // Slim projections for authentication and caller lookups (no profile columns)
+    String AUTH_VIEW_SELECT = "SELECT u.id AS id, u.username AS username, u.password AS password, u.role AS role, "
+            + "u.isVerified AS verified, u.enabled AS enabled, u.lockedUntil AS lockedUntil, "
+            + "u.branch AS branch, u.semester AS semester, u.batch AS batch, u.name AS name, "
+            + "u.computerCode AS computerCode, u.companyName AS companyName, u.adminBranch AS adminBranch, "
+            + "u.allowedDepartments AS allowedDepartments FROM Users u ";
+
+    @Query(AUTH_VIEW_SELECT + "WHERE u.username = :username")
+    Optional<UserAuthView> findAuthViewByUsername(@Param("username") String username);
+
+    // A computer code match wins over a username match, as in findByComputerCodeOrUsername
+    @Query(AUTH_VIEW_SELECT + "WHERE u.computerCode = :identifier OR u.username = :identifier "
+            + "ORDER BY CASE WHEN u.computerCode = :identifier THEN 0 ELSE 1 END")
+    List<UserAuthView> findAuthViewsByComputerCodeOrUsername(@Param("identifier") String identifier);
+
+    // Single query instead of the two issued by findByComputerCodeOrUsername
+    default Optional<UserAuthView> findAuthViewByComputerCodeOrUsername(String identifier) {
+        return findAuthViewsByComputerCodeOrUsername(identifier).stream().findFirst();
+    }
+
+    // New-job alert audience, one keyset page at a time (ids after :afterId). An empty
+    // branch/semester list on the job means "everyone", signalled by the any* flags
+    String JOB_ALERT_AUDIENCE = "FROM Users u WHERE u.role = 'USER' AND u.enabled = true AND u.email IS NOT NULL "
+            + "AND (:anyBranch = true OR u.branch IN :branches) "
+            + "AND (:anySemester = true OR u.semester IN :semesters) ";
+
+    @Query("SELECT u.id AS id, u.email AS email, u.username AS username, u.name AS name, "
+            + "u.digestOptIn AS digestOptIn "
+            + JOB_ALERT_AUDIENCE + "AND u.id > :afterId ORDER BY u.id")
+    List<JobAlertRecipient> findJobAlertRecipients(@Param("anyBranch") boolean anyBranch,
+            @Param("branches") Collection<String> branches, @Param("anySemester") boolean anySemester,
+            @Param("semesters") Collection<Integer> semesters, @Param("afterId") int afterId, Pageable page);
+
+    @Query("SELECT COUNT(u) " + JOB_ALERT_AUDIENCE)
+    long countJobAlertRecipients(@Param("anyBranch") boolean anyBranch,
+            @Param("branches") Collection<String> branches, @Param("anySemester") boolean anySemester,
+            @Param("semesters") Collection<Integer> semesters);
+
+    // Notification preference: digest subscribers get one email a day
+    boolean existsByEmailAndDigestOptInTrue(String email);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE users SET digest_opt_in = :optIn WHERE username = :username", nativeQuery = true)
+    int setDigestOptIn(@Param("username") String username, @Param("optIn") boolean optIn);
+
     // NEW: Get top 10 users for leaderboard
     List<Users> findTop10ByOrderByContributionPointsDesc();
+
+    // Token generation (JWT revocation): read and bump without loading the whole row
+    @Query("SELECT u.tokenGeneration FROM Users u WHERE u.username = :username")
+    Optional<Integer> findTokenGenerationByUsername(@Param("username") String username);
+
+    // Silent hash upgrade on login: writes only the password column
+    @Modifying
+    @Transactional
+    @Query("UPDATE Users u SET u.password = :password WHERE u.username = :username")
+    int updatePasswordHash(@Param("username") String username, @Param("password") String password);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE users SET token_generation = token_generation + 1 WHERE username = :username", nativeQuery = true)
+    int incrementTokenGeneration(@Param("username") String username);
 }
@@ -0,0 +1,121 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An open stored file, or a byte range of one (see {@link #region}), from any
+ * {@link BlobStore}: the bytes behind a {@link FileChannel}
+ * plus the size, MD5 and modified time used for ETag / Last-Modified and
+ * ranges. Write it with {@link #writeTo}, which closes it. Several can read one
+ * open channel (see {@link #retain}); it is closed when the last is.
+ */
+public final class BlobContent implements Closeable {
+
+    private final SharedChannel shared;
+    private final long size;
+    private final String md5;
+    private final long lastModifiedMillis;
+    private final long position;
+    private final long length;
+    private final Counter servedBytes;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    BlobContent(FileChannel channel, long size, String md5, long lastModifiedMillis, Counter servedBytes) {
+        this(new SharedChannel(channel), size, md5, lastModifiedMillis, 0, size, servedBytes);
+    }
+
+    private BlobContent(SharedChannel shared, long size, String md5, long lastModifiedMillis, long position,
+            long length, Counter servedBytes) {
+        this.shared = shared;
+        this.size = size;
+        this.md5 = md5;
+        this.lastModifiedMillis = lastModifiedMillis;
+        this.position = position;
+        this.length = length;
+        this.servedBytes = servedBytes;
+    }
+
+    // Size of the whole file
+    public long size() {
+        return size;
+    }
+
+    // Number of bytes {@link #writeTo} writes
+    public long length() {
+        return length;
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public String md5() {
+        return md5;
+    }
+
+    public long lastModifiedMillis() {
+        return lastModifiedMillis;
+    }
+
+    // Bytes [start, start + length) of the same channel; takes over this file, which must not be used again
+    public BlobContent region(long start, long length) {
+        closed.set(true);
+        return new BlobContent(shared, size, md5, lastModifiedMillis, start, length, servedBytes);
+    }
+
+    /**
+     * Keeps the channel open for {@code count} more readers, each of which
+     * takes its reference with {@link #shared}. Only valid while this file
+     * is still open.
+     */
+    void retain(int count) {
+        shared.refs.addAndGet(count);
+    }
+
+    // Another reader of the whole file, using a reference taken with retain
+    BlobContent shared() {
+        return new BlobContent(shared, size, md5, lastModifiedMillis, 0, size, servedBytes);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        try (this) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long written = 0;
+            while (written < length) {
+                // Positional transfers leave the channel position alone, so readers can share it
+                long sent = shared.channel.transferTo(position + written, length - written, target);
+                if (sent <= 0) {
+                    break;
+                }
+                written += sent;
+            }
+            servedBytes.increment(written);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed.compareAndSet(false, true) && shared.refs.decrementAndGet() == 0) {
+            shared.channel.close();
+        }
+    }
+
+    private static final class SharedChannel {
+
+        private final FileChannel channel;
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        private SharedChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
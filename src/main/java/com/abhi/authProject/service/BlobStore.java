@@ -0,0 +1,62 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.StorageRef;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * A place uploaded files are kept: Google Drive, Cloudinary or the local disk.
+ * Files are addressed by the ID the store hands out from {@link #put}, which is
+ * kept on the entity as {@link StorageRef#getFileId()} next to the store's
+ * {@link #provider()} name. {@link BlobStores} picks the store per content type.
+ */
+public interface BlobStore {
+
+    /**
+     * A stored file: the URL to keep as the entity's pdfUrl (null when the
+     * store has none) and the reference to keep with it.
+     */
+    record Stored(String url, StorageRef ref) {
+    }
+
+    // Provider name kept on StorageRef, one of the StorageRef constants
+    String provider();
+
+    /**
+     * Stores a new file and returns its reference. {@code folder} groups files
+     * where the store supports it; the store chooses the file ID. The returned
+     * URL is a link to keep as the entity's pdfUrl, or null when the store has
+     * none. The stream is consumed but not closed.
+     */
+    BlobStore.Stored put(String folder, String name, String contentType, InputStream content)
+            throws IOException;
+
+    /**
+     * Opens a file for streaming. Throws {@link java.io.FileNotFoundException}
+     * if the store does not have it.
+     */
+    BlobContent get(String fileId) throws IOException;
+
+    /**
+     * Opens bytes [start, start + length) of a file.
+     */
+    default BlobContent get(String fileId, long start, long length) throws IOException {
+        BlobContent file = get(fileId);
+        if (start < 0 || length < 0 || start + length > file.size()) {
+            file.close();
+            throw new IllegalArgumentException("Range " + start + "+" + length + " outside file of " + file.size()
+                    + " bytes");
+        }
+        return file.region(start, length);
+    }
+
+    // Current metadata, or null if the store does not have the file
+    StorageRef stat(String fileId) throws IOException;
+
+    // Returns false if the store did not have the file
+    boolean delete(String fileId) throws IOException;
+
+    List<StorageRef> list(String folder) throws IOException;
+}
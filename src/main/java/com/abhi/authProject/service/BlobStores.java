@@ -0,0 +1,123 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.StorageRef;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Chooses the {@link BlobStore} for new uploads of each content type
+ * ({@code storage.backend.papers}, {@code storage.backend.notes}: drive,
+ * cloudinary or local) and finds the store holding an existing file from its
+ * {@link StorageRef}, so files stay readable after the backend is switched.
+ */
+@Component
+public class BlobStores {
+
+    private static final String LOCAL_PAPER_PREFIX = "/api/papers/download/";
+
+    public enum Content {
+        PAPERS("papers"),
+        NOTES("notes");
+
+        private final String folder;
+
+        Content(String folder) {
+            this.folder = folder;
+        }
+
+        // Folder new files of this type are stored under
+        public String folder() {
+            return folder;
+        }
+    }
+
+    /**
+     * A stored file: the store holding it and its ID there.
+     */
+    public record Location(BlobStore store, String fileId) {
+
+        public BlobContent open() throws IOException {
+            return store.get(fileId);
+        }
+    }
+
+    @Autowired
+    private List<BlobStore> stores;
+
+    @Value("${storage.backend.papers:drive}")
+    private String papersBackend = "drive";
+
+    @Value("${storage.backend.notes:drive}")
+    private String notesBackend = "drive";
+
+    private final Map<String, BlobStore> byProvider = new HashMap<>();
+    private final Map<Content, BlobStore> byContent = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (BlobStore store : stores) {
+            byProvider.put(store.provider(), store);
+        }
+        byContent.put(Content.PAPERS, configured("papers", papersBackend));
+        byContent.put(Content.NOTES, configured("notes", notesBackend));
+    }
+
+    private BlobStore configured(String content, String backend) {
+        BlobStore store = byProvider.get(backend.trim().toUpperCase(Locale.ROOT));
+        if (store == null) {
+            throw new IllegalStateException("Unknown storage.backend." + content + ": " + backend
+                    + " (expected one of " + byProvider.keySet() + ")");
+        }
+        return store;
+    }
+
+    // Store with the given provider name (a StorageRef constant), or null
+    public BlobStore forProvider(String provider) {
+        return byProvider.get(provider);
+    }
+
+    // Store new uploads of this type go to
+    public BlobStore forContent(Content content) {
+        return byContent.get(content);
+    }
+
+    /**
+     * Stores a new upload of the given type in its configured store. The
+     * stream is consumed but not closed.
+     */
+    public BlobStore.Stored put(Content content, String name, String contentType, InputStream in)
+            throws IOException {
+        BlobStore.Stored stored = forContent(content).put(content.folder(), name, contentType, in);
+        // Papers on local disk keep the link the paper download endpoint has always served
+        if (stored.url() == null && content == Content.PAPERS && StorageRef.LOCAL.equals(stored.ref().getProvider())) {
+            String fileName = stored.ref().getFileId().substring(content.folder().length() + 1);
+            return new BlobStore.Stored(LOCAL_PAPER_PREFIX + fileName, stored.ref());
+        }
+        return stored;
+    }
+
+    /**
+     * Finds an existing file: from its storage reference, or for rows not yet
+     * backfilled from a Drive share link. Null when neither says where it is.
+     */
+    public Location locate(StorageRef storage, String url) {
+        if (storage != null && storage.getProvider() != null && storage.getFileId() != null) {
+            BlobStore store = byProvider.get(storage.getProvider());
+            if (store != null) {
+                return new Location(store, storage.getFileId());
+            }
+        }
+        String fileId = FileStorageService.driveFileId(url);
+        BlobStore drive = byProvider.get(StorageRef.DRIVE);
+        return fileId != null && drive != null ? new Location(drive, fileId) : null;
+    }
+}
@@ -0,0 +1,168 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reads files of remote stores (Drive, Cloudinary) through the local disk
+ * cache. Concurrent misses for one file share a single download: the first
+ * request fetches it while holding a {@link DriveBulkhead} slot, the others
+ * wait up to {@code drive.fetch.wait-timeout-ms} and read the same open file,
+ * so files too large to keep in the cache are not fetched once per request
+ * either.
+ */
+@Component
+public class CachedDownloads {
+
+    @Autowired
+    private DriveContentCache contentCache;
+
+    @Autowired
+    private DriveBulkhead bulkhead;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // How long a request waits for another request's download of the same file
+    @Value("${drive.fetch.wait-timeout-ms:30000}")
+    private long fetchWaitTimeoutMs = 30000;
+
+    // Single-flight: at most one download per cache key at a time
+    private final ConcurrentHashMap<String, Fetch> inflightFetches = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a download. It should return once the store starts sending, as
+     * that is the latency the bulkhead adapts to.
+     */
+    @FunctionalInterface
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Opens the cached copy under {@code key}, downloading it from
+     * {@code source} on a miss. Throws {@link DriveBulkhead.Rejected} when the
+     * store is too busy to wait for.
+     */
+    public BlobContent open(String key, Source source) throws IOException {
+        BlobContent cached = contentCache.open(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Fetch fetch = new Fetch();
+        Fetch inflight = inflightFetches.putIfAbsent(key, fetch);
+        if (inflight == null) {
+            meterRegistry.counter("drive.fetch", "role", "leader").increment();
+            BlobContent file = null;
+            try {
+                file = fetchIntoCache(key, source);
+                return file;
+            } catch (Throwable e) {
+                fetch.finish(key, null, e);
+                throw e;
+            } finally {
+                if (file != null) {
+                    fetch.finish(key, file, null);
+                }
+            }
+        }
+
+        synchronized (inflight) {
+            if (inflight.done) {
+                // The download finished between our cache check and now
+                return open(key, source);
+            }
+            inflight.waiters++;
+        }
+        meterRegistry.counter("drive.fetch", "role", "coalesced").increment();
+        return inflight.await(key);
+    }
+
+    // Holds a bulkhead slot for the whole download; may throw DriveBulkhead.Rejected
+    private BlobContent fetchIntoCache(String key, Source source) throws IOException {
+        bulkhead.acquire();
+        long start = System.nanoTime();
+        long firstByteNanos = -1;
+        boolean failed = true;
+        try (InputStream inputStream = source.open()) {
+            firstByteNanos = System.nanoTime() - start;
+            BlobContent file = contentCache.fill(key, inputStream);
+            failed = false;
+            return file;
+        } finally {
+            bulkhead.release(firstByteNanos, failed);
+        }
+    }
+
+    /**
+     * One download and the requests waiting for it. When it succeeds the
+     * leader's open file is retained once per waiter before the result is
+     * published, so each waiter reads it even after the leader has finished.
+     */
+    private final class Fetch {
+
+        private final CompletableFuture<BlobContent> result = new CompletableFuture<>();
+
+        // Guarded by this
+        private int waiters;
+        private boolean done;
+
+        private synchronized void finish(String key, BlobContent file, Throwable error) {
+            inflightFetches.remove(key, this);
+            done = true;
+            if (file != null) {
+                file.retain(waiters);
+                result.complete(file);
+            } else {
+                result.completeExceptionally(error);
+            }
+        }
+
+        private BlobContent await(String key) throws IOException {
+            try {
+                result.get(fetchWaitTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | InterruptedException e) {
+                synchronized (this) {
+                    if (!done) {
+                        waiters--;
+                        if (e instanceof InterruptedException) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException("Interrupted waiting for download of " + key, e);
+                        }
+                        throw bulkhead.reject("Timed out waiting for another download of " + key);
+                    }
+                }
+                // Finished as we gave up, with a reference already held for us
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            } catch (ExecutionException e) {
+                // Reported below
+            }
+            try {
+                return result.join().shared();
+            } catch (CompletionException e) {
+                // The leader's own exception, so a shed download is still a 503 and a missing file a 404
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IOException("Download of " + key + " failed", e.getCause());
+            }
+        }
+    }
+}
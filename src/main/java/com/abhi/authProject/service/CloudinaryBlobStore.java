@@ -0,0 +1,148 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.StorageRef;
+import com.cloudinary.Cloudinary;
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.api.exceptions.NotFound;
+import com.cloudinary.utils.ObjectUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cloudinary. Files are uploaded as {@code storage.cloudinary.resource-type}
+ * ("raw" keeps PDFs byte for byte) under the given folder. Reads go through
+ * the same disk cache, single-flight and bulkhead as Drive downloads.
+ */
+@Component
+public class CloudinaryBlobStore implements BlobStore {
+
+    private static final int LIST_PAGE = 500;
+
+    @Autowired
+    private Cloudinary cloudinary;
+
+    @Autowired
+    private DriveContentCache contentCache;
+
+    @Autowired
+    private CachedDownloads cachedDownloads;
+
+    @Value("${storage.cloudinary.resource-type:raw}")
+    private String resourceType = "raw";
+
+    @Value("${storage.cloudinary.timeout-ms:30000}")
+    private int timeoutMs = 30000;
+
+    @Override
+    public String provider() {
+        return StorageRef.CLOUDINARY;
+    }
+
+    @Override
+    public BlobStore.Stored put(String folder, String name, String contentType, InputStream content)
+            throws IOException {
+        // The SDK uploads files and byte arrays, not streams
+        Path temp = Files.createTempFile("cloudinary-upload-", ".tmp");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            Map<?, ?> result = cloudinary.uploader().upload(temp.toFile(), ObjectUtils.asMap(
+                    "folder", folder,
+                    "resource_type", resourceType,
+                    "use_filename", true,
+                    "unique_filename", true,
+                    "filename_override", name));
+            StorageRef ref = storageRef(result);
+            ref.setMimeType(contentType);
+            return new BlobStore.Stored((String) result.get("secure_url"), ref);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public BlobContent get(String fileId) throws IOException {
+        String url = cloudinary.url().resourceType(resourceType).secure(true).generate(fileId);
+        return cachedDownloads.open(cacheKey(fileId), () -> {
+            HttpURLConnection connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+            connection.setConnectTimeout(timeoutMs);
+            connection.setReadTimeout(timeoutMs);
+            // A 404 surfaces as FileNotFoundException from getInputStream
+            return connection.getInputStream();
+        });
+    }
+
+    @Override
+    public StorageRef stat(String fileId) throws IOException {
+        try {
+            return storageRef(cloudinary.api().resource(fileId, ObjectUtils.asMap("resource_type", resourceType)));
+        } catch (NotFound e) {
+            return null;
+        } catch (Exception e) {
+            throw new IOException("Cloudinary lookup of " + fileId + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean delete(String fileId) throws IOException {
+        contentCache.invalidate(cacheKey(fileId));
+        Map<?, ?> result = cloudinary.uploader().destroy(fileId, ObjectUtils.asMap("resource_type", resourceType));
+        return "ok".equals(result.get("result"));
+    }
+
+    @Override
+    public List<StorageRef> list(String folder) throws IOException {
+        List<StorageRef> files = new ArrayList<>();
+        String cursor = null;
+        try {
+            do {
+                Map<String, Object> options = new HashMap<>();
+                options.put("type", "upload");
+                options.put("resource_type", resourceType);
+                options.put("prefix", folder + "/");
+                options.put("max_results", LIST_PAGE);
+                if (cursor != null) {
+                    options.put("next_cursor", cursor);
+                }
+                ApiResponse page = cloudinary.api().resources(options);
+                for (Object resource : (List<?>) page.get("resources")) {
+                    files.add(storageRef((Map<?, ?>) resource));
+                }
+                cursor = (String) page.get("next_cursor");
+            } while (cursor != null);
+        } catch (Exception e) {
+            throw new IOException("Cloudinary listing of " + folder + " failed: " + e.getMessage(), e);
+        }
+        return files;
+    }
+
+    // Cloudinary's etag is the MD5 of the stored file
+    private static StorageRef storageRef(Map<?, ?> resource) {
+        Object bytes = resource.get("bytes");
+        Object createdAt = resource.get("created_at");
+        LocalDateTime modifiedAt = createdAt != null
+                ? LocalDateTime.ofInstant(Instant.parse(createdAt.toString()), ZoneId.systemDefault())
+                : null;
+        return new StorageRef(StorageRef.CLOUDINARY, (String) resource.get("public_id"),
+                bytes instanceof Number n ? n.longValue() : null, (String) resource.get("etag"), null, modifiedAt);
+    }
+
+    private static String cacheKey(String fileId) {
+        return "cloudinary:" + fileId;
+    }
+}
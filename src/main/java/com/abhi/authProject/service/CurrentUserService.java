@@ -0,0 +1,147 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.UserAuthView;
+import com.abhi.authProject.model.Users;
+import com.abhi.authProject.repo.UserRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves the calling user for controllers (see {@code @CurrentUser}).
+ *
+ * The slim {@link UserAuthView} is memoised for the request and shared across
+ * requests for a few seconds; the full {@link Users} entity is only memoised
+ * for the request, since callers may modify it. Every database lookup made
+ * here is counted per request so the per-request query count can be checked.
+ */
+@Service
+public class CurrentUserService {
+
+    public static final String LOOKUP_COUNT_ATTRIBUTE = CurrentUserService.class.getName() + ".lookups";
+    private static final String VIEW_ATTRIBUTE = CurrentUserService.class.getName() + ".view";
+    private static final String ENTITY_ATTRIBUTE = CurrentUserService.class.getName() + ".entity";
+
+    @Value("${users.current-user-cache.ttl-seconds:30}")
+    private long ttlSeconds = 30;
+
+    @Value("${users.current-user-cache.max-size:10000}")
+    private int maxSize = 10000;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CachedView> sharedViews = new ConcurrentHashMap<>();
+
+    private record CachedView(UserAuthView view, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("users.current.cache.size", sharedViews, Map::size);
+    }
+
+    // The principal name is always the username (JWT subject), never the computer code
+    public String currentUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getName())) {
+            return null;
+        }
+        return auth.getName();
+    }
+
+    public UserAuthView currentView() {
+        String username = currentUsername();
+        if (username == null) {
+            return null;
+        }
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(VIEW_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof UserAuthView memo) {
+            return memo;
+        }
+
+        long now = System.currentTimeMillis();
+        CachedView cached = sharedViews.get(username);
+        UserAuthView view;
+        if (cached != null && now < cached.expiresAtMillis()) {
+            view = cached.view();
+        } else {
+            countLookup();
+            view = userRepo.findAuthViewByUsername(username).orElse(null);
+            if (view != null && (sharedViews.size() < maxSize || sharedViews.containsKey(username))) {
+                sharedViews.put(username, new CachedView(view, now + ttlSeconds * 1000));
+            }
+        }
+
+        if (request != null && view != null) {
+            request.setAttribute(VIEW_ATTRIBUTE, view, RequestAttributes.SCOPE_REQUEST);
+        }
+        return view;
+    }
+
+    public Users currentEntity() {
+        String username = currentUsername();
+        if (username == null) {
+            return null;
+        }
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(ENTITY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Users memo) {
+            return memo;
+        }
+
+        countLookup();
+        Optional<Users> user = userRepo.findByUsername(username);
+        if (request != null && user.isPresent()) {
+            request.setAttribute(ENTITY_ATTRIBUTE, user.get(), RequestAttributes.SCOPE_REQUEST);
+        }
+        return user.orElse(null);
+    }
+
+    // Call after changing a user's role, branch, semester, lock or status
+    public void evict(String username) {
+        if (username != null) {
+            sharedViews.remove(username);
+        }
+    }
+
+    public static int lookupCount(RequestAttributes request) {
+        Object counter = request.getAttribute(LOOKUP_COUNT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return counter instanceof AtomicInteger count ? count.get() : 0;
+    }
+
+    private void countLookup() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return;
+        }
+        Object counter = request.getAttribute(LOOKUP_COUNT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (counter instanceof AtomicInteger count) {
+            count.incrementAndGet();
+        } else {
+            request.setAttribute(LOOKUP_COUNT_ATTRIBUTE, new AtomicInteger(1), RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        sharedViews.values().removeIf(c -> now >= c.expiresAtMillis());
+    }
+}
@@ -0,0 +1,61 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.StorageRef;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Google Drive, through {@link FileStorageService}: reads go through the local
+ * disk cache, single-flight and the Drive bulkhead. Drive keeps every file in
+ * the configured upload folder, so {@code folder} is ignored.
+ */
+@Component
+public class DriveBlobStore implements BlobStore {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Override
+    public String provider() {
+        return StorageRef.DRIVE;
+    }
+
+    @Override
+    public BlobStore.Stored put(String folder, String name, String contentType, InputStream content)
+            throws IOException {
+        return fileStorageService.uploadStreamToDrive(content, name, contentType);
+    }
+
+    @Override
+    public BlobContent get(String fileId) throws IOException {
+        try {
+            return fileStorageService.openFile(fileId);
+        } catch (GoogleJsonResponseException e) {
+            if (e.getStatusCode() == 404) {
+                throw new FileNotFoundException("Drive file " + fileId + " not found");
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public StorageRef stat(String fileId) throws IOException {
+        return fileStorageService.describeDriveFile(fileId);
+    }
+
+    @Override
+    public boolean delete(String fileId) throws IOException {
+        return fileStorageService.deleteDriveFile(fileId);
+    }
+
+    @Override
+    public List<StorageRef> list(String folder) throws IOException {
+        return fileStorageService.listDriveFiles();
+    }
+}
@@ -0,0 +1,225 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bulkhead for Google Drive downloads with an adaptive concurrency limit, so a
+ * slow Drive ties up a bounded number of request threads instead of all of
+ * them. The limit follows Drive's time to first byte (gradient algorithm):
+ * while recent latency stays within {@code drive.bulkhead.latency-tolerance}
+ * times the baseline the limit grows by about its square root per sample; as
+ * latency rises it shrinks in proportion, and every failure cuts it by 10%.
+ * Callers over the limit wait up to {@code drive.bulkhead.queue-wait-ms} in a
+ * queue of at most {@code drive.bulkhead.queue-size}; the rest are rejected
+ * with {@link Rejected}, which endpoints turn into 503 + Retry-After.
+ */
+@Component
+public class DriveBulkhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriveBulkhead.class);
+
+    // Samples the baseline needs to rise to a new latency level, and weight of a new sample in the recent average
+    private static final double BASELINE_WINDOW = 1000;
+    private static final double SHORT_WEIGHT = 0.2;
+    // Weight of a newly computed limit against the current one
+    private static final double SMOOTHING = 0.2;
+
+    @Value("${drive.bulkhead.initial-limit:8}")
+    private int initialLimit = 8;
+
+    @Value("${drive.bulkhead.min-limit:2}")
+    private int minLimit = 2;
+
+    @Value("${drive.bulkhead.max-limit:32}")
+    private int maxLimit = 32;
+
+    @Value("${drive.bulkhead.queue-size:20}")
+    private int queueSize = 20;
+
+    @Value("${drive.bulkhead.queue-wait-ms:2000}")
+    private long queueWaitMs = 2000;
+
+    @Value("${drive.bulkhead.latency-tolerance:2.0}")
+    private double latencyTolerance = 2.0;
+
+    @Value("${drive.bulkhead.retry-after-seconds:5}")
+    private long retryAfterSeconds = 5;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition permitFreed = lock.newCondition();
+
+    // Guarded by lock
+    private double limit;
+    private int inflight;
+    private int queued;
+    private double longRttNanos;
+    private double shortRttNanos;
+
+    private Counter rejected;
+    private Timer firstByte;
+
+    /**
+     * Thrown when the bulkhead is full and the queue wait ran out.
+     */
+    public static class Rejected extends RejectedExecutionException {
+
+        private final long retryAfterSeconds;
+
+        Rejected(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        rejected = meterRegistry.counter("drive.bulkhead.rejected");
+        firstByte = Timer.builder("drive.fetch.first-byte")
+                .description("Time until Google Drive starts sending a file")
+                .register(meterRegistry);
+        meterRegistry.gauge("drive.bulkhead.limit", this, b -> b.getLimit());
+        meterRegistry.gauge("drive.bulkhead.inflight", this, b -> b.getInflight());
+        meterRegistry.gauge("drive.bulkhead.queued", this, b -> b.getQueued());
+    }
+
+    /**
+     * Takes a slot, waiting in the queue if the bulkhead is full. Every
+     * successful acquire must be paired with one {@link #release}.
+     */
+    public void acquire() {
+        lock.lock();
+        try {
+            if (inflight < (int) limit) {
+                inflight++;
+                return;
+            }
+            if (queued >= queueSize) {
+                throw reject("Drive download queue is full");
+            }
+            queued++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(queueWaitMs);
+                while (inflight >= (int) limit) {
+                    if (remaining <= 0) {
+                        throw reject("Timed out waiting for a Drive download slot");
+                    }
+                    remaining = permitFreed.awaitNanos(remaining);
+                }
+                inflight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject("Interrupted waiting for a Drive download slot");
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the slot and feeds the call's outcome into the limit.
+     *
+     * @param firstByteNanos time until Drive started sending, or a negative
+     *                       value if it never did
+     * @param failed         whether the download failed (timeouts, 5xx, resets)
+     */
+    public void release(long firstByteNanos, boolean failed) {
+        if (firstByteNanos >= 0) {
+            firstByte.record(firstByteNanos, TimeUnit.NANOSECONDS);
+        }
+        lock.lock();
+        try {
+            int inflightBefore = inflight;
+            inflight--;
+            if (failed || firstByteNanos < 0) {
+                limit = Math.max(minLimit, limit * 0.9);
+            } else {
+                adjust(firstByteNanos, inflightBefore);
+            }
+            permitFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(long rttNanos, int inflightBefore) {
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+            shortRttNanos = rttNanos;
+        } else {
+            shortRttNanos += (rttNanos - shortRttNanos) * SHORT_WEIGHT;
+            // The baseline follows faster responses at once but only creeps up, so a slowdown
+            // keeps the limit down for a while before it is accepted as Drive's new normal
+            longRttNanos += (rttNanos - longRttNanos) * (rttNanos < longRttNanos ? SHORT_WEIGHT : 1 / BASELINE_WINDOW);
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, latencyTolerance * longRttNanos / shortRttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        // Under light load latency says nothing about capacity: do not grow the limit
+        if (inflightBefore < limit / 2) {
+            target = Math.min(target, limit);
+        }
+        double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        next = Math.max(minLimit, Math.min(maxLimit, next));
+        if ((int) next != (int) limit) {
+            logger.debug("Drive concurrency limit {} -> {} (latency {} ms, baseline {} ms)", (int) limit, (int) next,
+                    Math.round(shortRttNanos / 1e6), Math.round(longRttNanos / 1e6));
+        }
+        limit = next;
+    }
+
+    // Also used for requests that gave up waiting on another request's download
+    Rejected reject(String message) {
+        rejected.increment();
+        return new Rejected(message, retryAfterSeconds);
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInflight() {
+        lock.lock();
+        try {
+            return inflight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
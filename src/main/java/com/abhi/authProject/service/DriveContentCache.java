@@ -0,0 +1,270 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded on-disk cache of Google Drive file contents, keyed by Drive file
+ * ID and evicted least-recently-used once {@code drive.cache.max-bytes} is
+ * exceeded. A download is written to a temp file and renamed into place, so a
+ * reader never sees a partial file. Entries are served from an open
+ * {@link FileChannel}; the servlet output stream is not a channel, so
+ * {@link FileChannel#transferTo} copies through a buffer rather than handing
+ * the file to the socket. A file evicted while it is being served stays
+ * readable until its channel is closed. Each entry keeps its size, MD5 (the
+ * same value as Drive's md5Checksum, stored next to it in a {@code .md5} file
+ * so a restart need not rehash the cache) and the time it was fetched, for
+ * ETag / Last-Modified validation and byte ranges.
+ */
+@Component
+public class DriveContentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriveContentCache.class);
+
+    private static final String TEMP_SUFFIX = ".part";
+    private static final String MD5_SUFFIX = ".md5";
+
+    @Value("${drive.cache.directory:${java.io.tmpdir}/drive-cache}")
+    private String directory;
+
+    @Value("${drive.cache.max-bytes:536870912}")
+    private long maxBytes = 512L * 1024 * 1024;
+
+    // Larger files are still served from a temp file but not kept
+    @Value("${drive.cache.max-file-bytes:52428800}")
+    private long maxFileBytes = 50L * 1024 * 1024;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Path root;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+    private Counter servedFromCache;
+    private Counter servedFromDrive;
+
+    private record Entry(long size, String md5, long fetchedAtMillis) {
+    }
+
+    @PostConstruct
+    public void init() {
+        hits = meterRegistry.counter("drive.cache.requests", "result", "hit");
+        misses = meterRegistry.counter("drive.cache.requests", "result", "miss");
+        evictions = meterRegistry.counter("drive.cache.evictions");
+        servedFromCache = meterRegistry.counter("drive.cache.served.bytes", "source", "cache");
+        servedFromDrive = meterRegistry.counter("drive.cache.served.bytes", "source", "drive");
+        meterRegistry.gauge("drive.cache.size.bytes", this, c -> c.sizeBytes());
+        meterRegistry.gauge("drive.cache.entries", this, c -> c.entryCount());
+
+        try {
+            root = Paths.get(directory);
+            Files.createDirectories(root);
+            reload();
+        } catch (IOException e) {
+            logger.error("❌ Drive cache directory {} unusable, caching disabled: {}", directory, e.getMessage());
+            root = null;
+            maxBytes = 0;
+        }
+    }
+
+    // Re-indexes files left from a previous run, oldest first so they are evicted first. Files without a
+    // readable MD5 next to them (partial writes, or cached before it was kept) are dropped rather than rehashed.
+    private void reload() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(root)) {
+            listing.forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(this::lastModified));
+        Map<String, Entry> found = new LinkedHashMap<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                Files.deleteIfExists(file);
+            } else if (name.endsWith(MD5_SUFFIX)) {
+                if (!Files.exists(root.resolve(name.substring(0, name.length() - MD5_SUFFIX.length())))) {
+                    Files.deleteIfExists(file);
+                }
+            } else if (Files.isRegularFile(file)) {
+                String md5 = readMd5(name);
+                if (md5 == null) {
+                    delete(file);
+                } else {
+                    found.put(name, new Entry(Files.size(file), md5, lastModified(file)));
+                }
+            }
+        }
+        synchronized (this) {
+            for (Map.Entry<String, Entry> entry : found.entrySet()) {
+                entries.put(entry.getKey(), entry.getValue());
+                totalBytes += entry.getValue().size();
+            }
+            evictOverflow();
+        }
+        logger.info("Drive cache at {}: {} files, {} bytes", root, entries.size(), totalBytes);
+    }
+
+    private String readMd5(String key) {
+        try {
+            String md5 = Files.readString(root.resolve(key + MD5_SUFFIX), StandardCharsets.US_ASCII).trim();
+            return md5.matches("[0-9a-f]{32}") ? md5 : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Opens the cached copy of a file, or returns null on a miss.
+     */
+    public BlobContent open(String fileId) throws IOException {
+        String key = key(fileId);
+        synchronized (this) {
+            Entry entry = root != null ? entries.get(key) : null;
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            // Opened under the lock so a concurrent eviction cannot delete it first
+            try {
+                FileChannel channel = FileChannel.open(root.resolve(key), StandardOpenOption.READ);
+                hits.increment();
+                return new BlobContent(channel, entry.size(), entry.md5(), entry.fetchedAtMillis(), servedFromCache);
+            } catch (NoSuchFileException e) {
+                totalBytes -= entries.remove(key).size();
+                misses.increment();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Copies a freshly downloaded file into the cache and opens it. The stream
+     * is consumed but not closed.
+     */
+    public BlobContent fill(String fileId, InputStream content) throws IOException {
+        String key = key(fileId);
+        Path temp = root != null ? Files.createTempFile(root, key + ".", TEMP_SUFFIX)
+                : Files.createTempFile(key + ".", TEMP_SUFFIX);
+        long size;
+        String md5;
+        try {
+            MessageDigest digest = md5Digest();
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                size = new DigestInputStream(content, digest).transferTo(out);
+            }
+            md5 = HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        if (maxBytes <= 0 || size > maxFileBytes || size > maxBytes) {
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+            return new BlobContent(channel, size, md5, System.currentTimeMillis(), servedFromDrive);
+        }
+
+        Path target = root.resolve(key);
+        synchronized (this) {
+            // The MD5 goes first, so a file is never in place without it
+            Files.writeString(root.resolve(key + MD5_SUFFIX), md5, StandardCharsets.US_ASCII);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Entry entry = new Entry(size, md5, System.currentTimeMillis());
+            Entry previous = entries.put(key, entry);
+            totalBytes += size - (previous != null ? previous.size() : 0);
+            FileChannel channel = FileChannel.open(target, StandardOpenOption.READ);
+            evictOverflow();
+            return new BlobContent(channel, size, md5, entry.fetchedAtMillis(), servedFromDrive);
+        }
+    }
+
+    // Drops a file whose source changed or was deleted
+    public synchronized void invalidate(String fileId) {
+        String key = key(fileId);
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.size();
+            delete(root.resolve(key));
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue().size();
+            delete(root.resolve(entry.getKey()));
+            evictions.increment();
+        }
+    }
+
+    // Deletes a cached file and its MD5
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + MD5_SUFFIX));
+        } catch (IOException e) {
+            logger.warn("Could not delete cached file {}: {}", file, e.getMessage());
+        }
+    }
+
+    public synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int entryCount() {
+        return entries.size();
+    }
+
+    // Drive IDs are URL-safe already; anything else is hashed so it cannot escape the directory
+    static String key(String fileId) {
+        if (fileId.matches("[A-Za-z0-9_-]{1,200}")) {
+            return fileId;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(fileId.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static MessageDigest md5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP client for the Google Apps Script email bridge. Only the outbox workers
+ * call this; application code goes through {@link EmailService}.
+ *
+ * Connections are pooled and kept alive by the JDK HttpClient, every call has
+ * connect and read timeouts, at most {@code email.bridge.max-concurrent} calls
+ * run at once (bulkhead), and after {@code email.bridge.breaker.failure-threshold}
+ * consecutive failures the circuit opens and calls fail fast for
+ * {@code email.bridge.breaker.open-seconds} before a single trial call is let
+ * through. Failures surface as {@link IOException}, which the outbox retries.
+ */
+@Component
+public class EmailBridgeClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailBridgeClient.class);
+
+    @Value("${google.script.url}")
+    private String googleScriptUrl;
+
+    @Value("${email.bridge.connect-timeout-ms:3000}")
+    private long connectTimeoutMs = 3000;
+
+    @Value("${email.bridge.read-timeout-ms:10000}")
+    private long readTimeoutMs = 10000;
+
+    @Value("${email.bridge.max-concurrent:8}")
+    private int maxConcurrent = 8;
+
+    @Value("${email.bridge.bulkhead-wait-ms:2000}")
+    private long bulkheadWaitMs = 2000;
+
+    @Value("${email.bridge.breaker.failure-threshold:5}")
+    private int failureThreshold = 5;
+
+    @Value("${email.bridge.breaker.open-seconds:30}")
+    private long openSeconds = 30;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private RestTemplate restTemplate;
+    private Semaphore bulkhead;
+
+    // Circuit breaker state: consecutive failures, and when the circuit may try again (0 = closed)
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openUntilMillis = new AtomicLong();
+    private final AtomicLong trialStartedMillis = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                // The bridge answers 302 once the script ran; that is our success signal
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        this.restTemplate = new RestTemplate(factory);
+        this.bulkhead = new Semaphore(maxConcurrent);
+
+        meterRegistry.gauge("email.bridge.circuit.open", openUntilMillis, v -> v.get() > 0 ? 1 : 0);
+        meterRegistry.gauge("email.bridge.inflight", bulkhead, b -> maxConcurrent - b.availablePermits());
+    }
+
+    public void send(String idempotencyKey, String template, String toEmail, String subject, String htmlContent)
+            throws IOException {
+        if (!allowRequest()) {
+            record(template, "circuit_open", 0);
+            throw new IOException("Email bridge circuit is open; not calling the bridge");
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for the email bridge", e);
+        }
+        if (!acquired) {
+            record(template, "bulkhead_full", 0);
+            throw new IOException("Too many concurrent email bridge calls");
+        }
+
+        long start = System.nanoTime();
+        try {
+            post(idempotencyKey, toEmail, subject, htmlContent);
+            onSuccess();
+            record(template, "success", System.nanoTime() - start);
+        } catch (IOException e) {
+            onFailure();
+            record(template, "error", System.nanoTime() - start);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void post(String idempotencyKey, String toEmail, String subject, String htmlContent) throws IOException {
+        try {
+            JSONObject emailRequest = new JSONObject();
+            emailRequest.put("to", toEmail);
+            emailRequest.put("subject", subject);
+            emailRequest.put("html", htmlContent);
+            emailRequest.put("idempotencyKey", idempotencyKey);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            HttpEntity<String> entity = new HttpEntity<>(emailRequest.toString(), headers);
+
+            // Google Apps Script returns 302 Found, which is technically a success for us
+            ResponseEntity<String> response = restTemplate.postForEntity(googleScriptUrl, entity, String.class);
+
+            // If we get 200 (Success) or 302 (Found/Redirect), it means the script
+            // executed!
+            if (response.getStatusCode() == HttpStatus.OK || response.getStatusCode() == HttpStatus.FOUND) {
+                logger.info("✅ Email sent successfully via Google Bridge to: {}", toEmail);
+            } else {
+                logger.error("❌ Google Bridge Error Status: {}", response.getStatusCode());
+                throw new IOException("Google Script error: " + response.getStatusCode());
+            }
+
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("❌ Error sending email via Google Bridge: {}", e.getMessage());
+            throw new IOException("Email sending failed", e);
+        }
+    }
+
+    // Closed: always. Open: fail fast until the cool-down ends, then admit one trial call at a time
+    boolean allowRequest() {
+        long openUntil = openUntilMillis.get();
+        if (openUntil == 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now < openUntil) {
+            return false;
+        }
+        long trial = trialStartedMillis.get();
+        // A trial that never reported back (e.g. thread died) is abandoned after another cool-down
+        return (trial == 0 || now - trial > openSeconds * 1000) && trialStartedMillis.compareAndSet(trial, now);
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (openUntilMillis.getAndSet(0) != 0) {
+            logger.info("Email bridge circuit closed");
+        }
+        trialStartedMillis.set(0);
+    }
+
+    private void onFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (failures >= failureThreshold) {
+            openUntilMillis.set(System.currentTimeMillis() + openSeconds * 1000);
+            trialStartedMillis.set(0);
+            logger.warn("⚠️ Email bridge circuit opened after {} consecutive failures", failures);
+        }
+    }
+
+    public boolean isCircuitOpen() {
+        return openUntilMillis.get() > 0;
+    }
+
+    private void record(String template, String outcome, long nanos) {
+        Timer.builder("email.bridge.send")
+                .description("Email bridge calls by template and outcome")
+                .tag("template", template != null ? template : "generic")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,296 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.EmailOutbox;
+import com.abhi.authProject.repo.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transactional outbox for outgoing email. {@link #enqueue} only inserts a row,
+ * joining the caller's transaction when there is one, so the email is sent if
+ * and only if the business change commits and the caller never waits on the
+ * email bridge. After commit (or on the fallback poll) a bounded worker pool
+ * claims due rows and delivers them, retrying with exponential backoff and
+ * marking rows DEAD after {@code email.outbox.max-attempts}. Claims are paced
+ * by a token bucket to {@code email.outbox.rate-per-second} sends, so a large
+ * fan-out drains at a steady rate however fast its rows were inserted.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    // Same key twice (e.g. a double-submitted form) only inserts one row
+    private static final String INSERT_SQL = "INSERT INTO email_outbox "
+            + "(idempotency_key, template, to_email, subject, html_content, status, attempts, next_attempt_at, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, 'PENDING', 0, ?, ?) ON CONFLICT (idempotency_key) DO NOTHING";
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private EmailBridgeClient emailBridgeClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${email.outbox.workers:4}")
+    private int workers;
+
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${email.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    // Automatic keys only de-duplicate identical emails within this window
+    @Value("${email.outbox.dedupe-window-minutes:10}")
+    private long dedupeWindowMinutes;
+
+    // 0 disables pacing; the bucket holds at most one second of sends
+    @Value("${email.outbox.rate-per-second:20}")
+    private double ratePerSecond;
+
+    private ThreadPoolExecutor executor;
+    private ExecutorService dispatcher;
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    // Send token bucket; only the dispatcher thread touches it
+    private double sendTokens;
+    private long tokensRefilledAt = System.nanoTime();
+
+    private Counter sentCounter;
+    private Counter retriedCounter;
+    private Counter deadCounter;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 4),
+                r -> {
+                    Thread t = new Thread(r, "email-outbox-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "email-outbox-dispatch");
+            t.setDaemon(true);
+            return t;
+        });
+
+        sendTokens = Math.max(1, ratePerSecond);
+
+        sentCounter = Counter.builder("email.outbox.sent").register(meterRegistry);
+        retriedCounter = Counter.builder("email.outbox.retried").register(meterRegistry);
+        deadCounter = Counter.builder("email.outbox.dead").register(meterRegistry);
+        Gauge.builder("email.outbox.inflight", executor, e -> e.getActiveCount() + e.getQueue().size())
+                .description("Emails claimed and waiting for or being delivered")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        executor.shutdown();
+    }
+
+    public void enqueue(String template, String toEmail, String subject, String htmlContent) {
+        long bucket = System.currentTimeMillis() / TimeUnit.MINUTES.toMillis(Math.max(1, dedupeWindowMinutes));
+        enqueueWithKey(sha256(toEmail + "\n" + subject + "\n" + htmlContent) + ":" + bucket, template, toEmail,
+                subject, htmlContent);
+    }
+
+    /**
+     * Queues an email under an explicit idempotency key; a second enqueue with
+     * the same key is ignored.
+     */
+    public void enqueueWithKey(String idempotencyKey, String template, String toEmail, String subject,
+            String htmlContent) {
+        LocalDateTime now = LocalDateTime.now();
+        int inserted = jdbcTemplate.update(INSERT_SQL, idempotencyKey, template, toEmail, subject, htmlContent,
+                Timestamp.valueOf(now), Timestamp.valueOf(now));
+        if (inserted == 0) {
+            logger.info("Email to {} already queued (key {}), skipping duplicate", toEmail, idempotencyKey);
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    requestDrain();
+                }
+            });
+        } else {
+            requestDrain();
+        }
+    }
+
+    // Coalesces wake-ups: at most one drain is queued on the dispatcher at a time
+    private void requestDrain() {
+        if (drainRequested.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(() -> {
+                    drainRequested.set(false);
+                    drain();
+                });
+            } catch (RejectedExecutionException e) {
+                drainRequested.set(false);
+            }
+        }
+    }
+
+    // Fallback for wake-ups lost to restarts and for retries whose backoff has elapsed
+    @Scheduled(fixedDelayString = "${email.outbox.poll-ms:15000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    void drain() {
+        try {
+            while (true) {
+                int capacity = executor.getQueue().remainingCapacity();
+                if (capacity == 0) {
+                    return;
+                }
+                List<Long> due = outboxRepository.findDueIds(LocalDateTime.now(), PageRequest.of(0, capacity));
+                if (due.isEmpty()) {
+                    return;
+                }
+                int permits = takeSendTokens(due.size());
+                int claimed = 0;
+                for (Long id : due.subList(0, permits)) {
+                    if (outboxRepository.claim(id, LocalDateTime.now()) == 1) {
+                        executor.execute(() -> deliver(id));
+                        claimed++;
+                    }
+                }
+                // Rows another instance claimed first were not sent by us
+                sendTokens += permits - claimed;
+                if (permits == due.size() && due.size() < capacity) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException e) {
+            // Claimed row stays SENDING and is released by releaseStuck()
+            logger.warn("Email outbox workers saturated: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Email outbox drain failed: {}", e.getMessage());
+        }
+    }
+
+    // Blocks until at least one send is allowed, then takes up to max tokens
+    int takeSendTokens(int max) throws InterruptedException {
+        if (ratePerSecond <= 0) {
+            return max;
+        }
+        double burst = Math.max(1, ratePerSecond);
+        while (true) {
+            long now = System.nanoTime();
+            sendTokens = Math.min(burst, sendTokens + (now - tokensRefilledAt) * ratePerSecond / 1e9);
+            tokensRefilledAt = now;
+            if (sendTokens >= 1) {
+                int taken = (int) Math.min(max, Math.floor(sendTokens));
+                sendTokens -= taken;
+                return taken;
+            }
+            TimeUnit.NANOSECONDS.sleep((long) ((1 - sendTokens) / ratePerSecond * 1e9));
+        }
+    }
+
+    private void deliver(Long id) {
+        EmailOutbox email = outboxRepository.findById(id).orElse(null);
+        if (email == null) {
+            return;
+        }
+        try {
+            emailBridgeClient.send(email.getIdempotencyKey(), email.getTemplate(), email.getToEmail(),
+                    email.getSubject(), email.getHtmlContent());
+            outboxRepository.markSent(id, LocalDateTime.now());
+            sentCounter.increment();
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (error.length() > 1000) {
+                error = error.substring(0, 1000);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            if (email.getAttempts() >= maxAttempts) {
+                outboxRepository.markFailed(id, EmailOutbox.DEAD, now, error, now);
+                deadCounter.increment();
+                logger.error("❌ Email {} to {} dead-lettered after {} attempts: {}", id, email.getToEmail(),
+                        email.getAttempts(), error);
+            } else {
+                long delay = backoffSeconds(email.getAttempts());
+                outboxRepository.markFailed(id, EmailOutbox.PENDING, now.plusSeconds(delay), error, now);
+                retriedCounter.increment();
+                logger.warn("⚠️ Email {} to {} failed (attempt {}), retrying in {}s: {}", id, email.getToEmail(),
+                        email.getAttempts(), delay, error);
+            }
+        }
+    }
+
+    // Exponential backoff with +/-20% jitter so failed batches do not retry in lockstep
+    long backoffSeconds(int attempts) {
+        long exp = backoffBaseSeconds << Math.min(Math.max(attempts - 1, 0), 20);
+        long capped = Math.min(exp, backoffMaxSeconds);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Math.max(1, Math.round(capped * jitter));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void releaseStuck() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = outboxRepository.releaseStuck(now.minusMinutes(5), now);
+        if (released > 0) {
+            logger.warn("Released {} stuck outbox emails back to PENDING", released);
+        }
+    }
+
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void purgeSent() {
+        int deleted = outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(7));
+        logger.info("Purged {} delivered outbox emails", deleted);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,66 +1,46 @@
 package com.abhi.authProject.service;
 
-import org.json.JSONObject;
+import com.abhi.authProject.model.PendingNotification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
-
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Email templates. Sending only queues the message in the transactional outbox
+ * ({@link EmailOutboxService}); delivery to the Google Script bridge happens
+ * after commit on the outbox workers, so callers never wait on it. Bodies are
+ * rendered from the Thymeleaf templates in {@code templates/email}.
+ */
 @Service
 public class EmailService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
-    @Value("${google.script.url}")
-    private String googleScriptUrl;
+    @Autowired
+    private EmailOutboxService emailOutboxService;
 
-    // Use a factory that follows redirects
-    private final RestTemplate restTemplate;
+    @Autowired
+    private EmailTemplateRenderer emailTemplateRenderer;
 
-    public EmailService() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setOutputStreaming(false); // Helps with redirects
-        this.restTemplate = new RestTemplate(factory);
-    }
+    @Autowired
+    private NotificationService notificationService;
 
     public void sendEmail(String toEmail, String subject, String htmlContent) throws IOException {
-        try {
-            JSONObject emailRequest = new JSONObject();
-            emailRequest.put("to", toEmail);
-            emailRequest.put("subject", subject);
-            emailRequest.put("html", htmlContent);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            HttpEntity<String> entity = new HttpEntity<>(emailRequest.toString(), headers);
-
-            // Google Apps Script returns 302 Found, which is technically a success for us
-            ResponseEntity<String> response = restTemplate.postForEntity(googleScriptUrl, entity, String.class);
-
-            // If we get 200 (Success) or 302 (Found/Redirect), it means the script
-            // executed!
-            if (response.getStatusCode() == HttpStatus.OK || response.getStatusCode() == HttpStatus.FOUND) {
-                logger.info("✅ Email sent successfully via Google Bridge to: {}", toEmail);
-            } else {
-                logger.error("❌ Google Bridge Error Status: {}", response.getStatusCode());
-                throw new IOException("Google Script error: " + response.getStatusCode());
-            }
+        queue("generic", toEmail, subject, htmlContent);
+    }
 
+    // The template name only labels delivery metrics
+    private void queue(String template, String toEmail, String subject, String htmlContent) throws IOException {
+        try {
+            emailOutboxService.enqueue(template, toEmail, subject, htmlContent);
+            logger.info("📨 Email to {} queued for delivery", toEmail);
         } catch (Exception e) {
-            // Check if the message contains "302" or "Moved Temporarily" - in Google Script
-            // this means SUCCESS
-            if (e.getMessage() != null
-                    && (e.getMessage().contains("302") || e.getMessage().contains("Moved Temporarily"))) {
-                logger.info("✅ Email sent successfully (processed via Google Redirect) to: {}", toEmail);
-                return;
-            }
-            logger.error("❌ Error sending email via Google Bridge: {}", e.getMessage());
+            logger.error("❌ Error queueing email: {}", e.getMessage());
             throw new IOException("Email sending failed", e);
         }
     }
@@ -83,36 +63,34 @@ public class EmailService {
 
     // --- TEMPLATE METHODS ---
 
+    /**
+     * Renders {@code templates/email/<template>.html} with the model and queues
+     * the result. The template name also labels the delivery metrics.
+     */
+    public void sendTemplate(String template, String toEmail, String subject, Map<String, Object> model)
+            throws IOException {
+        queue(template, toEmail, subject, emailTemplateRenderer.render(template, model));
+    }
+
     public void sendVerificationEmail(String toEmail, String otp) throws IOException {
-        String subject = "Placement Portal - Verify your email";
-        String html = "<h3>Verify your email</h3><p>Your OTP is: <strong>" + otp + "</strong></p>";
-        sendEmail(toEmail, subject, html);
+        sendTemplate("verification", toEmail, "Placement Portal - Verify your email", Map.of("otp", otp));
     }
 
     public void sendPasswordResetEmail(String toEmail, String otp) throws IOException {
-        String subject = "Password Reset Request";
-        String html = "<h3>Reset your password</h3><p>Your OTP is: <strong>" + otp + "</strong></p>";
-        sendEmail(toEmail, subject, html);
+        sendTemplate("password-reset", toEmail, "Password Reset Request", Map.of("otp", otp));
     }
 
     public void sendAccountCreatedEmail(String toEmail, String name, String role, String tempPassword)
             throws IOException {
-        String subject = "Welcome to the Placement Portal";
-        String html = "<h3>Welcome, " + name + "!</h3>" +
-                "<p>Your account has been created with the role: <strong>" + role + "</strong>.</p>" +
-                "<p>Temporary password: <strong>" + tempPassword + "</strong></p>" +
-                "<p>Please log in and change your password immediately.</p>";
-        sendEmail(toEmail, subject, html);
+        sendTemplate("account-created", toEmail, "Welcome to the Placement Portal",
+                model("name", name, "role", role, "tempPassword", tempPassword));
     }
 
     public void sendShortlistedEmail(String to, String name, String job, String company, String date, String time)
             throws IOException {
-        String subject = "Shortlisted for " + company;
-        String html = "<h3>Congratulations " + name + "!</h3>" +
-                "<p>You have been shortlisted for the position of <strong>" + job + "</strong> at <strong>" + company
-                + "</strong>.</p>" +
-                "<p>Interview Details: " + date + " at " + time + "</p>";
-        sendEmail(to, subject, html);
+        notifyStatus("shortlisted", to, "Shortlisted for " + company,
+                model("name", name, "job", job, "company", company, "date", date, "time", time),
+                job, company, "Shortlisted (interview " + date + " at " + time + ")");
     }
 
     public void sendShortlistedEmail(String to, String name, String job, String company) throws IOException {
@@ -121,29 +99,19 @@ public class EmailService {
 
     public void sendAcceptanceEmail(String to, String name, String job, String company, String details)
             throws IOException {
-        String subject = "Application Accepted - " + company;
-        String html = "<h3>Congratulations " + name + "!</h3>" +
-                "<p>Your application for <strong>" + job + "</strong> at <strong>" + company
-                + "</strong> has been accepted.</p>" +
-                "<p><strong>Details:</strong> " + details + "</p>";
-        sendEmail(to, subject, html);
+        notifyStatus("acceptance", to, "Application Accepted - " + company,
+                model("name", name, "job", job, "company", company, "details", details),
+                job, company, "Accepted");
     }
 
     public void sendSelectedEmail(String to, String name, String job, String company) throws IOException {
-        String subject = "Selected: Congratulations!";
-        String html = "<h3>Great News " + name + "!</h3>" +
-                "<p>You have been <strong>SELECTED</strong> by <strong>" + company + "</strong> for the <strong>" + job
-                + "</strong> role.</p>";
-        sendEmail(to, subject, html);
+        notifyStatus("selected", to, "Selected: Congratulations!",
+                model("name", name, "job", job, "company", company), job, company, "Selected");
     }
 
     public void sendRejectionEmail(String to, String name, String job, String company) throws IOException {
-        String subject = "Application Status Update - " + company;
-        String html = "<p>Dear " + name + ",</p>" +
-                "<p>Thank you for your interest in the position of <strong>" + job + "</strong> at <strong>" + company
-                + "</strong>.</p>" +
-                "<p>We regret to inform you that we will not be moving forward with your application at this time.</p>";
-        sendEmail(to, subject, html);
+        notifyStatus("rejection", to, "Application Status Update - " + company,
+                model("name", name, "job", job, "company", company), job, company, "Not selected");
     }
 
     public void sendRejectedEmail(String to, String name, String job, String company) throws IOException {
@@ -152,27 +120,68 @@ public class EmailService {
 
     public void sendNewJobAlert(String to, String studentName, String jobTitle, String company, String salary,
             String applyLink) throws IOException {
-        String subject = "New Job Opportunity at " + company;
-        String html = "<h3>Hi " + studentName + ", New Job Posted!</h3>" +
-                "<p><strong>Company:</strong> " + company + "</p>" +
-                "<p><strong>Position:</strong> " + jobTitle + "</p>" +
-                "<p><strong>Salary:</strong> " + salary + "</p>" +
-                "<p><a href='" + applyLink
-                + "' style='background-color: #007bff; color: white; padding: 10px 20px; text-decoration: none; border-radius: 5px;'>Apply Now</a></p>";
-        sendEmail(to, subject, html);
+        sendTemplate("new-job-alert", to, newJobAlertSubject(company),
+                model("studentName", studentName, "jobTitle", jobTitle, "company", company, "salary", salary,
+                        "applyLink", applyLink));
+    }
+
+    /**
+     * Status emails go through {@link NotificationService}: several changes to
+     * the same application within the coalescing window collapse into the
+     * latest one, and digest subscribers get them in their daily digest.
+     */
+    private void notifyStatus(String template, String to, String subject, Map<String, Object> model, String job,
+            String company, String status) throws IOException {
+        try {
+            notificationService.submit("status:" + to + ":" + company + ":" + job,
+                    PendingNotification.STATUS_CHANGE, template, to, subject,
+                    emailTemplateRenderer.render(template, model), job + " at " + company + ": " + status, null);
+        } catch (Exception e) {
+            logger.error("❌ Error queueing status notification: {}", e.getMessage());
+            throw new IOException("Email sending failed", e);
+        }
+    }
+
+    /**
+     * Batch for a new-job fan-out: the job fields are bound once and only the
+     * student name changes per recipient. See {@link #queueNewJobAlert}.
+     */
+    public EmailTemplateRenderer.Batch newJobAlertBatch(String jobTitle, String company, String salary,
+            String applyLink) {
+        return emailTemplateRenderer.batch("new-job-alert",
+                model("jobTitle", jobTitle, "company", company, "salary", salary, "applyLink", applyLink));
+    }
+
+    // Fan-out variant: merges with the student's other pending notifications, or waits for their digest
+    public void queueNewJobAlert(String mergeKey, EmailTemplateRenderer.Batch batch, String to, String studentName,
+            String jobTitle, String company, String applyLink, boolean digest) {
+        notificationService.submit(mergeKey, PendingNotification.NEW_JOB, "new-job-alert", to,
+                newJobAlertSubject(company), digest ? null : batch.with("studentName", studentName).render(),
+                jobTitle + " at " + company, applyLink, digest);
+    }
+
+    private String newJobAlertSubject(String company) {
+        return "New Job Opportunity at " + company;
     }
 
     public void sendPasswordResetConfirmation(String toEmail) throws IOException {
-        sendEmail(toEmail, "Password Changed Successfully", "<p>Your password has been changed as requested.</p>");
+        sendTemplate("password-reset-confirmation", toEmail, "Password Changed Successfully", Map.of());
     }
 
     public void sendStatusUpdateEmail(String to, String name, String title, String company, String status)
             throws IOException {
-        String subject = "Status Update: " + title;
-        String html = "<h3>Application Status Update</h3>" +
-                "<p>Hi " + name + ",</p>" +
-                "<p>The status of your application for <strong>" + company + "</strong> (" + title
-                + ") has been updated to: <strong>" + status + "</strong></p>";
-        sendEmail(to, subject, html);
+        notifyStatus("status-update", to, "Status Update: " + title,
+                model("name", name, "title", title, "company", company, "status", status), title, company, status);
+    }
+
+    // Map.of rejects null values, which templates render as empty. Blank strings are
+    // stored as null too, so optional template sections (shown when non-null) stay hidden
+    static Map<String, Object> model(Object... keysAndValues) {
+        Map<String, Object> model = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            Object value = keysAndValues[i + 1];
+            model.put((String) keysAndValues[i], value instanceof String text && text.isBlank() ? null : value);
+        }
+        return model;
     }
 }
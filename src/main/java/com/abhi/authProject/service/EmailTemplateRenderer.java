@@ -0,0 +1,106 @@
+package com.abhi.authProject.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Renders the email bodies in {@code templates/email/*.html}. Templates are
+ * parsed once, at startup, and kept in the engine's cache, so a send only
+ * evaluates the expressions against its model. Values written with
+ * {@code th:text} are HTML-escaped.
+ *
+ * For fan-outs use {@link #batch}: the returned {@link Batch} reuses one
+ * context and one output buffer for every recipient.
+ */
+@Component
+public class EmailTemplateRenderer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateRenderer.class);
+
+    private static final String PREFIX = "templates/email/";
+    private static final String SUFFIX = ".html";
+
+    private final TemplateEngine templateEngine;
+
+    public EmailTemplateRenderer() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix(PREFIX);
+        resolver.setSuffix(SUFFIX);
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(true);
+        // No TTL: parsed templates live until shutdown
+        resolver.setCacheTTLMs(null);
+
+        templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+    }
+
+    // Parses every template up front so the first send of each does not pay for it
+    @PostConstruct
+    public void precompile() {
+        try {
+            Resource[] templates = new PathMatchingResourcePatternResolver(getClass().getClassLoader())
+                    .getResources("classpath*:" + PREFIX + "*" + SUFFIX);
+            for (Resource template : templates) {
+                String name = template.getFilename().substring(0, template.getFilename().length() - SUFFIX.length());
+                templateEngine.process(name, new Context());
+            }
+            logger.info("Precompiled {} email templates", templates.length);
+        } catch (IOException | RuntimeException e) {
+            // Templates are still parsed lazily on first use
+            logger.warn("Could not precompile email templates: {}", e.getMessage());
+        }
+    }
+
+    public String render(String template, Map<String, Object> model) {
+        Context context = new Context();
+        context.setVariables(model);
+        return templateEngine.process(template, context);
+    }
+
+    /**
+     * Starts a batch for one template. Variables shared by every recipient are
+     * set once; per-recipient variables are set with {@link Batch#with} before
+     * each {@link Batch#render}. A batch is not thread-safe.
+     */
+    public Batch batch(String template, Map<String, Object> shared) {
+        return new Batch(template, shared);
+    }
+
+    public final class Batch {
+
+        private final String template;
+        private final Context context = new Context();
+        private final StringWriter buffer = new StringWriter(2048);
+
+        private Batch(String template, Map<String, Object> shared) {
+            this.template = template;
+            context.setVariables(shared);
+        }
+
+        public Batch with(String name, Object value) {
+            context.setVariable(name, value);
+            return this;
+        }
+
+        public String render() {
+            buffer.getBuffer().setLength(0);
+            templateEngine.process(template, context, buffer);
+            return buffer.toString();
+        }
+    }
+}
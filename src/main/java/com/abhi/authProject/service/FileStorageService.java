@@ -1,8 +1,10 @@
 package com.abhi.authProject.service;
 
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.googleapis.media.MediaHttpUploader;
+import com.google.api.client.http.AbstractInputStreamContent;
+import com.google.api.client.http.ByteArrayContent;
 import com.google.api.client.http.InputStreamContent;
-import com.google.api.client.http.FileContent;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.gson.GsonFactory;
@@ -12,18 +14,25 @@ import com.google.api.services.drive.model.File;
 import com.google.api.services.drive.model.Permission;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.auth.http.HttpCredentialsAdapter;
+import com.abhi.authProject.model.StorageRef;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.UUID;
 
@@ -38,6 +47,26 @@ public class FileStorageService {
 
     private Drive driveService;
 
+    @Autowired
+    private DriveContentCache driveContentCache;
+
+    @Autowired
+    private CachedDownloads cachedDownloads;
+
+    // Larger uploads use a resumable session instead of one request
+    @Value("${drive.upload.resumable-threshold-bytes:5242880}")
+    private int resumableThresholdBytes = 5 * 1024 * 1024;
+
+    // Resumable uploads are sent in chunks of this size (a multiple of 256 KB)
+    @Value("${drive.upload.chunk-bytes:8388608}")
+    private int uploadChunkBytes = 8 * 1024 * 1024;
+
+    private static final String METADATA_FIELDS = "id, size, md5Checksum, mimeType, modifiedTime";
+    private static final String UPLOAD_FIELDS = "id, webViewLink, webContentLink, size, md5Checksum, mimeType, modifiedTime";
+
+    private static final java.util.regex.Pattern DRIVE_PATH_ID = java.util.regex.Pattern.compile("/d/([^/&?]+)");
+    private static final java.util.regex.Pattern DRIVE_QUERY_ID = java.util.regex.Pattern.compile("[?&]id=([^/&?]+)");
+
     @PostConstruct
     public void init() {
         try {
@@ -83,66 +112,17 @@ public class FileStorageService {
      * @return The public preview URL
      */
     public String uploadFileToDrive(MultipartFile multipartFile) throws IOException {
-        if (driveService == null) {
-            throw new IOException("Google Drive Service not initialized. Check credentials and folder ID.");
-        }
-
-        File fileMetadata = new File();
-        fileMetadata.setName(multipartFile.getOriginalFilename());
-        // Upload to specific folder
-        if (driveFolderId != null && !driveFolderId.isEmpty() && !driveFolderId.contains("YOUR_FOLDER_ID")) {
-            fileMetadata.setParents(Collections.singletonList(driveFolderId));
-        }
-
-        File uploadedFile;
-        try {
-            InputStreamContent mediaContent = new InputStreamContent(
-                    multipartFile.getContentType(),
-                    multipartFile.getInputStream());
-
-            uploadedFile = driveService.files().create(fileMetadata, mediaContent)
-                    .setFields("id, webViewLink, webContentLink")
-                    .setSupportsAllDrives(true) // comprehensive support
-                    .execute();
-
-            // Disable downloading/copying/printing for viewers
-            File patchMetadata = new File();
-            patchMetadata.setViewersCanCopyContent(false);
-            driveService.files().update(uploadedFile.getId(), patchMetadata).execute();
-        } catch (com.google.api.client.googleapis.json.GoogleJsonResponseException e) {
-            if (e.getStatusCode() == 404) {
-                System.err.println("❌ Folder not found or permission denied: " + driveFolderId);
-                System.out.println("⚠️ Falling back to upload to Root Directory.");
-
-                // Clear parent (fallback to root)
-                fileMetadata.setParents(null);
-
-                // Re-open stream for retry (prevent Stream Closed)
-                InputStreamContent mediaContentRetry = new InputStreamContent(
-                        multipartFile.getContentType(),
-                        multipartFile.getInputStream());
-
-                uploadedFile = driveService.files().create(fileMetadata, mediaContentRetry)
-                        .setFields("id, webViewLink, webContentLink")
-                        .setSupportsAllDrives(true)
-                        .execute();
+        return uploadToDrive(multipartFile).url();
+    }
 
-                // Disable downloading/copying/printing for viewers (Retry)
-                File patchMetadata = new File();
-                patchMetadata.setViewersCanCopyContent(false);
-                driveService.files().update(uploadedFile.getId(), patchMetadata).execute();
-            } else {
-                throw e;
-            }
+    /**
+     * Uploads a file to Google Drive and returns its preview URL together with
+     * the storage reference (file ID, size, md5) to keep on the entity.
+     */
+    public BlobStore.Stored uploadToDrive(MultipartFile multipartFile) throws IOException {
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            return uploadStreamToDrive(inputStream, multipartFile.getOriginalFilename(), multipartFile.getContentType());
         }
-
-        // Do NOT make public. Keep restricted for secure streaming only.
-        // Permission permission = new Permission().setType("anyone").setRole("reader");
-        // driveService.permissions().create(uploadedFile.getId(),
-        // permission).execute();
-
-        // Return the WebViewLink (for viewing in browser/iframe)
-        return uploadedFile.getWebViewLink();
     }
 
     /**
@@ -179,72 +159,150 @@ public class FileStorageService {
 
     public String saveFileFromStream(InputStream inputStream, String originalFilename, String subDir)
             throws IOException {
-        // For Bulk Upload: Upload directly to Drive
+        return uploadStreamToDrive(inputStream, originalFilename).url();
+    }
+
+    // For Bulk Upload: Upload directly to Drive
+    public BlobStore.Stored uploadStreamToDrive(InputStream inputStream, String originalFilename) throws IOException {
+        return uploadStreamToDrive(inputStream, originalFilename, "application/pdf");
+    }
+
+    /**
+     * Uploads a stream to Drive with one request for files up to
+     * {@code drive.upload.resumable-threshold-bytes}, which are buffered in
+     * memory. Larger files go through a resumable upload session, sent in
+     * chunks of {@code drive.upload.chunk-bytes}, so a dropped connection
+     * resends one chunk instead of the whole file. The stream is consumed but
+     * not closed.
+     */
+    public BlobStore.Stored uploadStreamToDrive(InputStream inputStream, String originalFilename, String contentType)
+            throws IOException {
         if (driveService == null) {
             throw new IOException("Google Drive Service not initialized.");
         }
 
-        // Create File Metadata
         File fileMetadata = new File();
         fileMetadata.setName(originalFilename);
+        // Disable downloading/copying/printing for viewers, set at creation so no second call is needed
+        fileMetadata.setCopyRequiresWriterPermission(true);
         if (driveFolderId != null && !driveFolderId.isEmpty() && !driveFolderId.contains("YOUR_FOLDER_ID")) {
             fileMetadata.setParents(Collections.singletonList(driveFolderId));
         }
 
-        // Buffer InputStream to a Temp File to allow retry
-        java.io.File tempFile = java.nio.file.Files.createTempFile("upload-retry-", ".tmp").toFile();
-        try (java.io.OutputStream os = new java.io.FileOutputStream(tempFile)) {
-            inputStream.transferTo(os);
-        }
+        byte[] head = inputStream.readNBytes(resumableThresholdBytes + 1);
+        InputStream rest = head.length > resumableThresholdBytes ? inputStream : null;
+        File uploadedFile = createDriveFile(fileMetadata, contentType, head, rest);
 
-        FileContent mediaContent = new FileContent("application/pdf", tempFile);
-        File uploadedFile;
+        // Do NOT make public. Keep restricted for secure streaming only.
+        return new BlobStore.Stored(uploadedFile.getWebViewLink(), storageRef(uploadedFile));
+    }
 
+    // rest is null when head holds the whole file
+    private File createDriveFile(File fileMetadata, String contentType, byte[] head, InputStream rest)
+            throws IOException {
+        AbstractInputStreamContent mediaContent = rest == null
+                ? new ByteArrayContent(contentType, head)
+                : new InputStreamContent(contentType, new SequenceInputStream(new ByteArrayInputStream(head), rest));
+        Drive.Files.Create create = driveService.files().create(fileMetadata, mediaContent)
+                .setFields(UPLOAD_FIELDS)
+                .setSupportsAllDrives(true); // comprehensive support
+        MediaHttpUploader uploader = create.getMediaHttpUploader();
+        uploader.setDirectUploadEnabled(rest == null);
+        uploader.setChunkSize(uploadChunkBytes);
         try {
-            // Attempt upload to specified folder
-            uploadedFile = driveService.files().create(fileMetadata, mediaContent)
-                    .setFields("id, webViewLink, webContentLink")
-                    .setSupportsAllDrives(true) // comprehensive support
-                    .execute();
-
-            // Disable downloading/copying/printing for viewers
-            File patchMetadata = new File();
-            patchMetadata.setViewersCanCopyContent(false);
-            driveService.files().update(uploadedFile.getId(), patchMetadata).execute();
+            return create.execute();
         } catch (com.google.api.client.googleapis.json.GoogleJsonResponseException e) {
-            if (e.getStatusCode() == 404) {
+            // Retrying is only safe before any content was read: a resumable session reports a missing
+            // folder when it is opened, a single-request upload has its content in memory
+            boolean contentUnread = rest == null
+                    || uploader.getUploadState() == MediaHttpUploader.UploadState.INITIATION_STARTED;
+            if (e.getStatusCode() == 404 && fileMetadata.getParents() != null && contentUnread) {
                 System.err.println("❌ Folder not found or permission denied: " + driveFolderId);
                 System.out.println("⚠️ Falling back to upload to Root Directory.");
 
                 // Clear parent (fallback to root)
                 fileMetadata.setParents(null);
+                return createDriveFile(fileMetadata, contentType, head, rest);
+            }
+            throw e;
+        }
+    }
 
-                // Reuse FileContent (it points to the same temp file)
-                uploadedFile = driveService.files().create(fileMetadata, mediaContent)
-                        .setFields("id, webViewLink, webContentLink")
-                        .setSupportsAllDrives(true) // comprehensive support
-                        .execute();
-
-                // Disable downloading/copying/printing for viewers (Bulk Retry)
-                File patchMetadata = new File();
-                patchMetadata.setViewersCanCopyContent(false);
-                driveService.files().update(uploadedFile.getId(), patchMetadata).execute();
-            } else {
-                throw e;
+    /**
+     * Reads a Drive file's metadata (size, md5, mime type, modified time),
+     * for rows uploaded before storage references were kept. Returns null if
+     * Drive does not have the file.
+     */
+    public StorageRef describeDriveFile(String fileId) throws IOException {
+        if (driveService == null) {
+            throw new IOException("Google Drive Service not initialized.");
+        }
+        try {
+            return storageRef(driveService.files().get(fileId).setFields(METADATA_FIELDS)
+                    .setSupportsAllDrives(true).execute());
+        } catch (com.google.api.client.googleapis.json.GoogleJsonResponseException e) {
+            if (e.getStatusCode() == 404) {
+                return null;
             }
-        } finally {
-            // Cleanup Temp File
-            if (tempFile.exists()) {
-                tempFile.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes a Drive file and drops its cached copy. Returns false if Drive
+     * did not have it.
+     */
+    public boolean deleteDriveFile(String fileId) throws IOException {
+        if (driveService == null) {
+            throw new IOException("Google Drive Service not initialized.");
+        }
+        driveContentCache.invalidate(fileId);
+        try {
+            driveService.files().delete(fileId).setSupportsAllDrives(true).execute();
+            return true;
+        } catch (com.google.api.client.googleapis.json.GoogleJsonResponseException e) {
+            if (e.getStatusCode() == 404) {
+                return false;
             }
+            throw e;
         }
+    }
 
-        // Do NOT make public. Keep restricted for secure streaming only.
-        // Permission permission = new Permission().setType("anyone").setRole("reader");
-        // driveService.permissions().create(uploadedFile.getId(),
-        // permission).execute();
+    /**
+     * Lists the files in the configured upload folder (or the root, if none is
+     * set), with the same metadata as {@link #describeDriveFile}.
+     */
+    public java.util.List<StorageRef> listDriveFiles() throws IOException {
+        if (driveService == null) {
+            throw new IOException("Google Drive Service not initialized.");
+        }
+        String parent = driveFolderId != null && !driveFolderId.isEmpty() && !driveFolderId.contains("YOUR_FOLDER_ID")
+                ? driveFolderId
+                : "root";
+        java.util.List<StorageRef> files = new java.util.ArrayList<>();
+        String pageToken = null;
+        do {
+            com.google.api.services.drive.model.FileList page = driveService.files().list()
+                    .setQ("'" + parent + "' in parents and trashed = false")
+                    .setFields("nextPageToken, files(" + METADATA_FIELDS + ")")
+                    .setSupportsAllDrives(true)
+                    .setIncludeItemsFromAllDrives(true)
+                    .setPageToken(pageToken)
+                    .execute();
+            for (File file : page.getFiles()) {
+                files.add(storageRef(file));
+            }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+        return files;
+    }
 
-        return uploadedFile.getWebViewLink();
+    private static StorageRef storageRef(File file) {
+        LocalDateTime modifiedAt = file.getModifiedTime() != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(file.getModifiedTime().getValue()), ZoneId.systemDefault())
+                : null;
+        return new StorageRef(StorageRef.DRIVE, file.getId(), file.getSize(), file.getMd5Checksum(),
+                file.getMimeType(), modifiedAt);
     }
 
     /**
@@ -259,6 +317,35 @@ public class FileStorageService {
         return driveService.files().get(fileId).executeMediaAsInputStream();
     }
 
+    /**
+     * Opens a Drive file for streaming, from the local disk cache when it is
+     * there and downloading it into the cache otherwise (see
+     * {@link CachedDownloads}). Return it as a response body; it is copied to
+     * the response and closed. Throws {@link DriveBulkhead.Rejected} when Drive
+     * is too busy to wait for.
+     */
+    public BlobContent openFile(String fileId) throws java.io.IOException {
+        return cachedDownloads.open(fileId, () -> getFileStream(fileId));
+    }
+
+    // Drive file ID from the stored reference, falling back to parsing the share link for rows not yet backfilled
+    public static String driveFileId(StorageRef storage, String url) {
+        return storage != null && storage.isDrive() ? storage.getFileId() : driveFileId(url);
+    }
+
+    // Drive file ID from a stored share link (".../d/FILE_ID/..." or "...?id=FILE_ID"), or null
+    public static String driveFileId(String url) {
+        if (url == null || !url.startsWith("http")) {
+            return null;
+        }
+        java.util.regex.Matcher matcher = DRIVE_PATH_ID.matcher(url);
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        matcher = DRIVE_QUERY_ID.matcher(url);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
     /**
      * Secures an existing file by:
      * 1. Disabling "Viewers can copy/download".
@@ -18,6 +18,7 @@ import java.util.Optional;
 public class InterviewService {
 
     private static final Logger logger = LoggerFactory.getLogger(InterviewService.class);
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
 
     private final InterviewRepository interviewRepository;
     private final JobApplicationRepository jobApplicationRepository;
@@ -104,81 +105,46 @@ public class InterviewService {
     }
 
     private void sendInterviewScheduledEmailToApplicant(Interview interview) throws IOException {
-        String subject = "Interview Scheduled for " + interview.getJobApplication().getJobTitle();
-        String interviewDetails = "Company: " + interview.getJobApplication().getCompanyName() + "<br>" +
-                "Position: " + interview.getJobApplication().getJobTitle() + "<br>" +
-                "Scheduled Date/Time: "
-                + interview.getScheduledDateTime().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss")) + "<br>";
-        if (interview.getInterviewLink() != null && !interview.getInterviewLink().isEmpty()) {
-            interviewDetails += "Meeting Link: <a href='" + interview.getInterviewLink() + "'>"
-                    + interview.getInterviewLink() + "</a><br>";
-        }
-        if (interview.getInterviewLocation() != null && !interview.getInterviewLocation().isEmpty()) {
-            interviewDetails += "Location: " + interview.getInterviewLocation() + "<br>";
-        }
-        interviewDetails += "HR Contact: " + interview.getHrName() + " (" + interview.getHrEmail() + ")";
-
-        String emailBody = "Dear " + interview.getJobApplication().getApplicantName() + ",<br><br>" +
-                "Your interview for the <strong>" + interview.getJobApplication().getJobTitle()
-                + "</strong> position at <strong>" + interview.getJobApplication().getCompanyName()
-                + "</strong> has been scheduled.<br><br>" +
-                "Here are the details:<br>" + interviewDetails + "<br><br>" +
-                "Please log in to your placement portal to view and book your interview slot.<br><br>" +
-                "Best regards,<br>The Placement Team";
-
-        emailService.sendEmailWithAttachment(interview.getJobApplication().getApplicantEmail(), subject, emailBody,
-                null); // No attachment
-        logger.info("Interview scheduled email sent to: {}", interview.getJobApplication().getApplicantEmail());
+        JobApplication application = interview.getJobApplication();
+        String subject = "Interview Scheduled for " + application.getJobTitle();
+        emailService.sendTemplate("interview-scheduled", application.getApplicantEmail(), subject, EmailService.model(
+                "applicantName", application.getApplicantName(),
+                "jobTitle", application.getJobTitle(),
+                "companyName", application.getCompanyName(),
+                "dateTime", interview.getScheduledDateTime().format(DATE_TIME),
+                "link", interview.getInterviewLink(),
+                "location", interview.getInterviewLocation(),
+                "hrName", interview.getHrName(),
+                "hrEmail", interview.getHrEmail()));
+        logger.info("Interview scheduled email sent to: {}", application.getApplicantEmail());
     }
 
     private void sendInterviewBookedConfirmationToApplicant(Interview interview) throws IOException {
-        String subject = "Interview Slot Confirmed: " + interview.getJobApplication().getJobTitle();
-        String emailBody = "Dear " + interview.getJobApplication().getApplicantName() + ",<br><br>" +
-                "Your interview slot for the <strong>" + interview.getJobApplication().getJobTitle()
-                + "</strong> position at <strong>" + interview.getJobApplication().getCompanyName()
-                + "</strong> has been successfully booked.<br><br>" +
-                "<strong>Your Confirmed Interview Details:</strong><br>" +
-                "Date/Time: "
-                + interview.getStudentBookedDateTime().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss"))
-                + "<br>";
-        if (interview.getInterviewLink() != null && !interview.getInterviewLink().isEmpty()) {
-            emailBody += "Meeting Link: <a href='" + interview.getInterviewLink() + "'>" + interview.getInterviewLink()
-                    + "</a><br>";
-        }
-        if (interview.getInterviewLocation() != null && !interview.getInterviewLocation().isEmpty()) {
-            emailBody += "Location: " + interview.getInterviewLocation() + "<br>";
-        }
-        emailBody += "<br>Please ensure you are prepared for the interview.<br><br>" +
-                "Best regards,<br>The Placement Team";
-
-        emailService.sendEmailWithAttachment(interview.getJobApplication().getApplicantEmail(), subject, emailBody,
-                null); // No attachment
-        logger.info("Interview booked confirmation email sent to: {}",
-                interview.getJobApplication().getApplicantEmail());
+        JobApplication application = interview.getJobApplication();
+        String subject = "Interview Slot Confirmed: " + application.getJobTitle();
+        emailService.sendTemplate("interview-booked", application.getApplicantEmail(), subject, EmailService.model(
+                "applicantName", application.getApplicantName(),
+                "jobTitle", application.getJobTitle(),
+                "companyName", application.getCompanyName(),
+                "dateTime", interview.getStudentBookedDateTime().format(DATE_TIME),
+                "link", interview.getInterviewLink(),
+                "location", interview.getInterviewLocation()));
+        logger.info("Interview booked confirmation email sent to: {}", application.getApplicantEmail());
     }
 
     private void sendInterviewBookedNotificationToHR(Interview interview) throws IOException {
-        String subject = "Interview Booked by Student: " + interview.getJobApplication().getApplicantName();
-        String emailBody = "Hello " + interview.getHrName() + ",<br><br>" +
-                "The student, <strong>" + interview.getJobApplication().getApplicantName() + "</strong> (Roll No: "
-                + interview.getJobApplication().getApplicantRollNo() + "), has booked their interview slot.<br><br>" +
-                "<strong>Interview Details:</strong><br>" +
-                "Job Title: " + interview.getJobApplication().getJobTitle() + "<br>" +
-                "Company: " + interview.getJobApplication().getCompanyName() + "<br>" +
-                "Applicant Email: " + interview.getJobApplication().getApplicantEmail() + "<br>" +
-                "Confirmed Date/Time: "
-                + interview.getStudentBookedDateTime().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss"))
-                + "<br>";
-        if (interview.getInterviewLink() != null && !interview.getInterviewLink().isEmpty()) {
-            emailBody += "Meeting Link: " + interview.getInterviewLink() + "<br>";
-        }
-        if (interview.getInterviewLocation() != null && !interview.getInterviewLocation().isEmpty()) {
-            emailBody += "Location: " + interview.getInterviewLocation() + "<br>";
-        }
-        emailBody += "<br>Please prepare accordingly.<br><br>" +
-                "Regards,<br>Placement Portal System";
-
-        emailService.sendEmailWithAttachment(interview.getHrEmail(), subject, emailBody, null); // No attachment
+        JobApplication application = interview.getJobApplication();
+        String subject = "Interview Booked by Student: " + application.getApplicantName();
+        emailService.sendTemplate("interview-booked-hr", interview.getHrEmail(), subject, EmailService.model(
+                "hrName", interview.getHrName(),
+                "applicantName", application.getApplicantName(),
+                "rollNo", application.getApplicantRollNo(),
+                "jobTitle", application.getJobTitle(),
+                "companyName", application.getCompanyName(),
+                "applicantEmail", application.getApplicantEmail(),
+                "dateTime", interview.getStudentBookedDateTime().format(DATE_TIME),
+                "link", interview.getInterviewLink(),
+                "location", interview.getInterviewLocation()));
         logger.info("HR notification email sent for booked interview to: {}", interview.getHrEmail());
     }
 
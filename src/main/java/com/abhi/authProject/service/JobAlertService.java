@@ -0,0 +1,234 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.JobAlertRecipient;
+import com.abhi.authProject.model.JobAlertRun;
+import com.abhi.authProject.model.JobDetails;
+import com.abhi.authProject.repo.JobAlertRunRepository;
+import com.abhi.authProject.repo.JobDetailsRepo;
+import com.abhi.authProject.repo.UserRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * New-job alert fan-out. Eligible students (role USER, matching the job's
+ * branches and semesters) are read from the database a page at a time in id
+ * order. Each page is handed to {@link NotificationService}, which merges the
+ * alert with the student's other pending notifications or holds it for their
+ * daily digest, and the cursor is advanced in the same transaction, so
+ * progress is durable and an interrupted run resumes where it stopped (the
+ * per-student merge key guards against double sends). Pages are queued as
+ * fast as the database allows; the send rate is limited by the outbox
+ * ({@code email.outbox.rate-per-second}).
+ */
+@Service
+public class JobAlertService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobAlertService.class);
+
+    @Autowired
+    private JobAlertRunRepository runRepository;
+
+    @Autowired
+    private JobDetailsRepo jobRepository;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${job-alerts.page-size:200}")
+    private int pageSize;
+
+    @Value("${job-alerts.concurrent-runs:2}")
+    private int concurrentRuns;
+
+    private record JobSnapshot(int id, String title, String company, int salary, String applyLink,
+            List<String> branches, List<Integer> semesters) {
+    }
+
+    private ExecutorService executor;
+    private TransactionTemplate transactionTemplate;
+    private Counter queuedCounter;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, concurrentRuns), r -> {
+            Thread t = new Thread(r, "job-alerts-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        queuedCounter = meterRegistry.counter("jobs.alerts.queued");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // In-flight runs stay RUNNING in the database and are resumed on the next start
+        executor.shutdownNow();
+    }
+
+    /**
+     * Records a run for the job and starts it once the surrounding transaction
+     * (the job insert) has committed. Returns the existing run if one was
+     * already started for this job.
+     */
+    public JobAlertRun start(JobDetails job) {
+        Optional<JobAlertRun> existing = runRepository.findByJobId(job.getId());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        JobAlertRun run = new JobAlertRun();
+        run.setJobId(job.getId());
+        run.setTotalRecipients(countRecipients(job.getEligibleBranches(), job.getEligibleSemesters()));
+        run.setUpdatedAt(LocalDateTime.now());
+        JobAlertRun saved = runRepository.save(run);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(saved.getId());
+                }
+            });
+        } else {
+            submit(saved.getId());
+        }
+        return saved;
+    }
+
+    public Optional<JobAlertRun> progress(int jobId) {
+        return runRepository.findByJobId(jobId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedRuns() {
+        List<JobAlertRun> running = runRepository.findByStatus(JobAlertRun.RUNNING);
+        for (JobAlertRun run : running) {
+            logger.info("Resuming job alert fan-out for job {} after user {} ({}/{} queued)", run.getJobId(),
+                    run.getLastUserId(), run.getQueued(), run.getTotalRecipients());
+            submit(run.getId());
+        }
+    }
+
+    private void submit(Long runId) {
+        executor.execute(() -> process(runId));
+    }
+
+    void process(Long runId) {
+        JobAlertRun run = runRepository.findById(runId).orElse(null);
+        if (run == null || !JobAlertRun.RUNNING.equals(run.getStatus())) {
+            return;
+        }
+
+        // Copies the lazy eligibility collections while the session is open
+        JobSnapshot job = transactionTemplate.execute(status -> jobRepository.findById(run.getJobId())
+                .map(j -> new JobSnapshot(j.getId(), j.getTitle(), j.getCompany_name(), j.getSalary(),
+                        j.getApply_link(), new ArrayList<>(j.getEligibleBranches()),
+                        new ArrayList<>(j.getEligibleSemesters())))
+                .orElse(null));
+        if (job == null) {
+            finish(runId, JobAlertRun.FAILED, "Job no longer exists");
+            return;
+        }
+
+        List<String> branches = job.branches();
+        List<Integer> semesters = job.semesters();
+        boolean anyBranch = branches.isEmpty();
+        boolean anySemester = semesters.isEmpty();
+        // Hibernate rejects empty IN lists; the value is ignored when the any* flag is set
+        List<String> branchParam = anyBranch ? List.of("") : branches;
+        List<Integer> semesterParam = anySemester ? List.of(-1) : semesters;
+
+        // Job fields are bound once; each recipient only sets their name
+        EmailTemplateRenderer.Batch alertBody = emailService.newJobAlertBatch(job.title(), job.company(),
+                String.valueOf(job.salary()), job.applyLink());
+
+        int cursor = run.getLastUserId();
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<JobAlertRecipient> page = userRepo.findJobAlertRecipients(anyBranch, branchParam, anySemester,
+                        semesterParam, cursor, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    finish(runId, JobAlertRun.COMPLETED, null);
+                    logger.info("✅ Job alert fan-out for job {} completed", job.id());
+                    return;
+                }
+
+                int nextCursor = page.get(page.size() - 1).getId();
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (JobAlertRecipient student : page) {
+                        emailService.queueNewJobAlert(
+                                "job-alert:" + job.id() + ":" + student.getId(),
+                                alertBody,
+                                student.getEmail(),
+                                student.getName() != null && !student.getName().isEmpty()
+                                        ? student.getName() : student.getUsername(),
+                                job.title(),
+                                job.company(),
+                                job.applyLink(),
+                                student.isDigestOptIn());
+                    }
+                    JobAlertRun current = runRepository.findById(runId).orElseThrow();
+                    current.setLastUserId(nextCursor);
+                    current.setQueued(current.getQueued() + page.size());
+                    current.setUpdatedAt(LocalDateTime.now());
+                    runRepository.save(current);
+                });
+                queuedCounter.increment(page.size());
+                cursor = nextCursor;
+            }
+        } catch (Exception e) {
+            logger.error("❌ Job alert fan-out for job {} failed: {}", job.id(), e.getMessage());
+            finish(runId, JobAlertRun.FAILED, e.getMessage());
+        }
+    }
+
+    private long countRecipients(List<String> branches, List<Integer> semesters) {
+        boolean anyBranch = branches == null || branches.isEmpty();
+        boolean anySemester = semesters == null || semesters.isEmpty();
+        return userRepo.countJobAlertRecipients(anyBranch, anyBranch ? List.of("") : branches,
+                anySemester, anySemester ? List.of(-1) : semesters);
+    }
+
+    private void finish(Long runId, String status, String error) {
+        runRepository.findById(runId).ifPresent(run -> {
+            run.setStatus(status);
+            run.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            run.setUpdatedAt(LocalDateTime.now());
+            run.setCompletedAt(LocalDateTime.now());
+            runRepository.save(run);
+        });
+    }
+}
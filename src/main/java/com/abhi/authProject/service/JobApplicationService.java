@@ -31,6 +31,7 @@ public class JobApplicationService {
     private final JobApplicationRepository jobApplicationRepository;
     private final com.abhi.authProject.repo.UserRepo userRepo;
     private final com.abhi.authProject.repo.JobDetailsRepo jobDetailsRepo;
+    private final EmailTemplateRenderer emailTemplateRenderer;
 
     @Value("${placement.portal.application.recipient-email:hack2hired.official@gmail.com}")
     private String recipientEmail;
@@ -42,8 +43,10 @@ public class JobApplicationService {
     public JobApplicationService(EmailService emailService,
             JobApplicationRepository jobApplicationRepository,
             com.abhi.authProject.repo.UserRepo userRepo,
-            com.abhi.authProject.repo.JobDetailsRepo jobDetailsRepo) {
+            com.abhi.authProject.repo.JobDetailsRepo jobDetailsRepo,
+            EmailTemplateRenderer emailTemplateRenderer) {
         this.emailService = emailService;
+        this.emailTemplateRenderer = emailTemplateRenderer;
         this.jobApplicationRepository = jobApplicationRepository;
         this.userRepo = userRepo;
         this.jobDetailsRepo = jobDetailsRepo;
@@ -154,15 +157,12 @@ public class JobApplicationService {
 
     private void sendApplicantConfirmationEmail(JobApplication application) throws IOException {
         String subject = "Application Received: " + application.getJobTitle() + " at " + application.getCompanyName();
-        String emailBody = "Dear " + application.getApplicantName() + ",<br><br>" +
-                "Thank you for applying for the <strong>" + application.getJobTitle() + "</strong> position at <strong>"
-                + application.getCompanyName() + "</strong>.<br><br>" +
-                "Your application has been received and is currently under review. We will notify you of the next steps.<br><br>"
-                +
-                "Application ID: " + application.getId() + "<br>" +
-                "Applied On: " + application.getAppliedAt().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss"))
-                + "<br><br>" +
-                "Best regards,<br>The Placement Team";
+        String emailBody = emailTemplateRenderer.render("application-received", EmailService.model(
+                "applicantName", application.getApplicantName(),
+                "jobTitle", application.getJobTitle(),
+                "companyName", application.getCompanyName(),
+                "applicationId", application.getId(),
+                "appliedOn", application.getAppliedAt().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss"))));
 
         // Use the EmailService for application confirmation
         emailService.sendEmailWithLocalFile(application.getApplicantEmail(), subject, emailBody,
@@ -173,29 +173,19 @@ public class JobApplicationService {
     private void sendHROrAdminNotificationEmail(JobApplication application) throws IOException {
         String subject = "New Job Application: " + application.getJobTitle() + " from "
                 + application.getApplicantName();
-        StringBuilder emailBody = new StringBuilder()
-                .append("<h3>New Job Application Received</h3>")
-                .append("<p><strong>Application ID:</strong> ").append(application.getId()).append("</p>")
-                .append("<p><strong>Job Title:</strong> ").append(application.getJobTitle()).append("</p>")
-                .append("<p><strong>Company:</strong> ").append(application.getCompanyName()).append("</p>")
-                .append("<p><strong>Applicant Name:</strong> ").append(application.getApplicantName()).append("</p>")
-                .append("<p><strong>Applicant Email:</strong> ").append(application.getApplicantEmail()).append("</p>")
-                .append("<p><strong>Applicant Phone:</strong> ").append(application.getApplicantPhone()).append("</p>");
-        if (application.getApplicantRollNo() != null && !application.getApplicantRollNo().trim().isEmpty()) {
-            emailBody.append("<p><strong>Applicant Roll No:</strong> ").append(application.getApplicantRollNo())
-                    .append("</p>");
-        }
-        if (application.getCoverLetter() != null && !application.getCoverLetter().trim().isEmpty()) {
-            emailBody.append(
-                    "<p><strong>Cover Letter:</strong></p><p style='white-space: pre-wrap; border: 1px solid #eee; padding: 10px; background-color: #f9f9f9;'>")
-                    .append(application.getCoverLetter()).append("</p>");
-        }
-        emailBody.append("<p>Application submitted on: ")
-                .append(application.getAppliedAt().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss")))
-                .append("</p>");
+        String emailBody = emailTemplateRenderer.render("application-notification", EmailService.model(
+                "applicationId", application.getId(),
+                "jobTitle", application.getJobTitle(),
+                "companyName", application.getCompanyName(),
+                "applicantName", application.getApplicantName(),
+                "applicantEmail", application.getApplicantEmail(),
+                "applicantPhone", application.getApplicantPhone(),
+                "rollNo", application.getApplicantRollNo(),
+                "coverLetter", application.getCoverLetter(),
+                "appliedOn", application.getAppliedAt().format(DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss"))));
 
         // Use the EmailService for HR notification
-        emailService.sendEmailWithLocalFile(recipientEmail, subject, emailBody.toString(),
+        emailService.sendEmailWithLocalFile(recipientEmail, subject, emailBody,
                 application.getResumePath());
         logger.info("HR/Admin notification email sent to: {}", recipientEmail);
     }
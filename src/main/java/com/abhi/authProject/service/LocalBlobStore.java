@@ -0,0 +1,202 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.StorageRef;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Files on the local disk under {@code storage.local.directory} (by default the
+ * directory resumes and legacy local papers already use). The file ID is the
+ * path relative to that directory, e.g. {@code papers/<uuid>_Midsem.pdf}.
+ * Reads are served from a {@link FileChannel} without going through the disk
+ * cache; like cache hits they are copied to the response through a buffer.
+ * MD5s are computed while writing and remembered per file size and
+ * modification time.
+ */
+@Component
+public class LocalBlobStore implements BlobStore {
+
+    private static final String TEMP_SUFFIX = ".part";
+
+    @Value("${storage.local.directory:${pdf.storage.directory:/tmp/resumes}}")
+    private String directory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Path root;
+    private Counter servedBytes;
+
+    private record Digest(long size, long modifiedMillis, String md5) {
+    }
+
+    private final ConcurrentHashMap<String, Digest> digests = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(directory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        servedBytes = meterRegistry.counter("storage.local.served.bytes");
+    }
+
+    @Override
+    public String provider() {
+        return StorageRef.LOCAL;
+    }
+
+    @Override
+    public BlobStore.Stored put(String folder, String name, String contentType, InputStream content)
+            throws IOException {
+        Path dir = resolve(folder);
+        Files.createDirectories(dir);
+        Path target = dir.resolve(UUID.randomUUID() + "_" + safeName(name));
+        Path temp = Files.createTempFile(dir, ".upload-", TEMP_SUFFIX);
+        MessageDigest digest = md5Digest();
+        long size;
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                size = new DigestInputStream(content, digest).transferTo(out);
+            }
+            // Readers never see a partly written file
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        String fileId = fileId(target);
+        String md5 = HexFormat.of().formatHex(digest.digest());
+        long modifiedMillis = Files.getLastModifiedTime(target).toMillis();
+        digests.put(fileId, new Digest(size, modifiedMillis, md5));
+        return new BlobStore.Stored(null, new StorageRef(StorageRef.LOCAL, fileId, size, md5,
+                contentType, toLocalDateTime(modifiedMillis)));
+    }
+
+    @Override
+    public BlobContent get(String fileId) throws IOException {
+        Path file = resolve(fileId);
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException("Local file " + fileId + " not found");
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new BlobContent(channel, channel.size(), md5(fileId, file, attributes),
+                    attributes.lastModifiedTime().toMillis(), servedBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public StorageRef stat(String fileId) throws IOException {
+        Path file = resolve(fileId);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long modifiedMillis = attributes.lastModifiedTime().toMillis();
+        return new StorageRef(StorageRef.LOCAL, fileId, attributes.size(), md5(fileId, file, attributes),
+                Files.probeContentType(file), toLocalDateTime(modifiedMillis));
+    }
+
+    @Override
+    public boolean delete(String fileId) throws IOException {
+        digests.remove(fileId);
+        return Files.deleteIfExists(resolve(fileId));
+    }
+
+    @Override
+    public List<StorageRef> list(String folder) throws IOException {
+        Path dir = resolve(folder);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<StorageRef> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) listing::iterator) {
+                String name = file.getFileName().toString();
+                if (Files.isRegularFile(file) && !name.endsWith(TEMP_SUFFIX)) {
+                    StorageRef ref = stat(fileId(file));
+                    if (ref != null) {
+                        files.add(ref);
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
+    // Rejects IDs that would leave the storage directory
+    private Path resolve(String fileId) throws IOException {
+        Path path = root.resolve(fileId).normalize();
+        if (!path.startsWith(root)) {
+            throw new FileNotFoundException("Invalid local file ID: " + fileId);
+        }
+        return path;
+    }
+
+    private String fileId(Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    // Recomputed only when the file changed since it was last hashed
+    private String md5(String fileId, Path file, BasicFileAttributes attributes) throws IOException {
+        long modifiedMillis = attributes.lastModifiedTime().toMillis();
+        Digest known = digests.get(fileId);
+        if (known != null && known.size() == attributes.size() && known.modifiedMillis() == modifiedMillis) {
+            return known.md5();
+        }
+        MessageDigest digest = md5Digest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        String md5 = HexFormat.of().formatHex(digest.digest());
+        digests.put(fileId, new Digest(attributes.size(), modifiedMillis, md5));
+        return md5;
+    }
+
+    // Only the last path segment of a client-supplied name, without characters that are awkward on disk
+    private static String safeName(String name) {
+        String base = name == null ? "" : name.replace('\\', '/');
+        base = base.substring(base.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._-]", "_").trim();
+        return base.isEmpty() || base.startsWith(".") ? "file" + base : base;
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static MessageDigest md5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
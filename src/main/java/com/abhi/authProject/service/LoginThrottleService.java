@@ -0,0 +1,173 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sliding-window login throttle held in memory, checked before the user lookup
+ * and the password hash. Two limits apply:
+ * <ul>
+ * <li>per client IP: every login attempt counts;</li>
+ * <li>per identifier (username / computer code): only failed attempts count,
+ * and a successful login clears them.</li>
+ * </ul>
+ * Each window is an approximate sliding window (previous and current fixed
+ * window, weighted by overlap) updated with compare-and-set, so no request
+ * ever takes a lock.
+ */
+@Service
+public class LoginThrottleService {
+
+    @Value("${auth.throttle.ip.max-attempts:30}")
+    private int ipMaxAttempts = 30;
+
+    @Value("${auth.throttle.ip.window-seconds:60}")
+    private int ipWindowSeconds = 60;
+
+    @Value("${auth.throttle.identifier.max-failures:10}")
+    private int identifierMaxFailures = 10;
+
+    @Value("${auth.throttle.identifier.window-seconds:300}")
+    private int identifierWindowSeconds = 300;
+
+    // Upper bound on tracked keys per map; beyond it new keys are not tracked until the next sweep
+    @Value("${auth.throttle.max-keys:100000}")
+    private int maxKeys = 100000;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, SlidingWindow> ipWindows = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindow> identifierWindows = new ConcurrentHashMap<>();
+
+    private Counter ipRejected;
+    private Counter identifierRejected;
+
+    @PostConstruct
+    public void init() {
+        ipRejected = meterRegistry.counter("auth.login.throttled", "key", "ip");
+        identifierRejected = meterRegistry.counter("auth.login.throttled", "key", "identifier");
+        meterRegistry.gauge("auth.login.throttle.keys", ipWindows, m -> m.size() + identifierWindows.size());
+    }
+
+    /**
+     * Records a login attempt from this IP and checks both limits.
+     *
+     * @return 0 when the attempt may proceed, otherwise the number of seconds the
+     *         client should wait before retrying
+     */
+    public long checkAndRecordAttempt(String identifier, String clientIp) {
+        long now = System.currentTimeMillis();
+
+        if (clientIp != null) {
+            SlidingWindow ipWindow = window(ipWindows, clientIp, ipWindowSeconds);
+            if (ipWindow != null && ipWindow.incrementAndEstimate(now) > ipMaxAttempts) {
+                ipRejected.increment();
+                return ipWindow.retryAfterSeconds(now);
+            }
+        }
+
+        if (identifier != null) {
+            SlidingWindow idWindow = identifierWindows.get(normalize(identifier));
+            if (idWindow != null && idWindow.estimate(now) >= identifierMaxFailures) {
+                identifierRejected.increment();
+                return idWindow.retryAfterSeconds(now);
+            }
+        }
+        return 0;
+    }
+
+    public void recordFailure(String identifier) {
+        if (identifier == null) {
+            return;
+        }
+        SlidingWindow window = window(identifierWindows, normalize(identifier), identifierWindowSeconds);
+        if (window != null) {
+            window.incrementAndEstimate(System.currentTimeMillis());
+        }
+    }
+
+    public void recordSuccess(String identifier) {
+        if (identifier != null) {
+            identifierWindows.remove(normalize(identifier));
+        }
+    }
+
+    // Drops windows that have been idle for two full periods
+    @Scheduled(fixedDelay = 60000)
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        ipWindows.values().removeIf(w -> w.isIdle(now));
+        identifierWindows.values().removeIf(w -> w.isIdle(now));
+    }
+
+    private SlidingWindow window(Map<String, SlidingWindow> windows, String key, int windowSeconds) {
+        SlidingWindow existing = windows.get(key);
+        if (existing != null || windows.size() >= maxKeys) {
+            return existing;
+        }
+        return windows.computeIfAbsent(key, k -> new SlidingWindow(windowSeconds * 1000L));
+    }
+
+    private static String normalize(String identifier) {
+        return identifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static final class SlidingWindow {
+
+        private record State(long windowStart, long previous, long current) {
+        }
+
+        private final long windowMillis;
+        private final AtomicReference<State> state = new AtomicReference<>(new State(0, 0, 0));
+
+        SlidingWindow(long windowMillis) {
+            this.windowMillis = windowMillis;
+        }
+
+        long incrementAndEstimate(long now) {
+            State s = state.updateAndGet(old -> {
+                State rolled = roll(old, now);
+                return new State(rolled.windowStart, rolled.previous, rolled.current + 1);
+            });
+            return weighted(s, now);
+        }
+
+        long estimate(long now) {
+            return weighted(roll(state.get(), now), now);
+        }
+
+        long retryAfterSeconds(long now) {
+            State s = roll(state.get(), now);
+            return Math.max(1, (s.windowStart + windowMillis - now + 999) / 1000);
+        }
+
+        boolean isIdle(long now) {
+            return now - state.get().windowStart >= 2 * windowMillis;
+        }
+
+        private State roll(State s, long now) {
+            long start = now - Math.floorMod(now, windowMillis);
+            if (start == s.windowStart) {
+                return s;
+            }
+            long previous = start - s.windowStart == windowMillis ? s.current : 0;
+            return new State(start, previous, 0);
+        }
+
+        private long weighted(State s, long now) {
+            double overlap = 1.0 - (double) (now - s.windowStart) / windowMillis;
+            return (long) Math.floor(s.previous * overlap) + s.current;
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.abhi.authProject.service;
 
-import com.abhi.authProject.model.Users;
+import com.abhi.authProject.model.UserAuthView;
 import com.abhi.authProject.repo.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -16,14 +17,15 @@ import java.util.Collections;
 import org.springframework.security.core.userdetails.User; // This import is crucial for Spring Security's User class
 
 @Service
-public class MyUserDetailsService implements UserDetailsService {
+public class MyUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepo repo;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Users user = repo.findByUsername(username)
+        // Only the columns needed for authentication, not the whole Users row
+        UserAuthView user = repo.findAuthViewByUsername(username)
                          .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
         // --- START: CRITICAL CHANGE FOR VERIFICATION ENFORCEMENT ---
@@ -45,6 +47,13 @@ public class MyUserDetailsService implements UserDetailsService {
         // --- END: CRITICAL CHANGE FOR VERIFICATION ENFORCEMENT ---
     }
 
+    // Called by DaoAuthenticationProvider when the stored hash is outdated
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        repo.updatePasswordHash(user.getUsername(), newPassword);
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+
     private Collection<? extends GrantedAuthority> getAuthorities(String role) {
         return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role));
     }
@@ -0,0 +1,228 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.InterviewDrive;
+import com.abhi.authProject.model.PendingNotification;
+import com.abhi.authProject.repo.PendingNotificationRepository;
+import com.abhi.authProject.repo.UserRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Coalesces student notifications (status changes and new jobs/drives) before
+ * they reach the email outbox. A notification is held for
+ * {@code notifications.coalesce-window-seconds}; everything that arrives for the
+ * same recipient in the meantime goes out as one email, and repeated updates of
+ * the same item (same merge key) only keep the latest. Students who opted in to
+ * the daily digest get all of it in a single email at
+ * {@code notifications.digest.cron} instead.
+ */
+@Service
+public class NotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
+
+    // A newer notification for the same item replaces the pending one but keeps its place in the window
+    private static final String UPSERT_SQL = "INSERT INTO pending_notifications "
+            + "(merge_key, recipient_email, kind, template, subject, html_content, summary, link, digest, created_at, deliver_after) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (merge_key) DO UPDATE SET template = EXCLUDED.template, subject = EXCLUDED.subject, "
+            + "html_content = EXCLUDED.html_content, summary = EXCLUDED.summary, link = EXCLUDED.link";
+
+    private static final int RECIPIENT_PAGE = 100;
+
+    @Autowired
+    private PendingNotificationRepository pendingRepository;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EmailTemplateRenderer emailTemplateRenderer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 0 sends every notification straight away (digest subscribers still get the digest)
+    @Value("${notifications.coalesce-window-seconds:300}")
+    private long coalesceWindowSeconds;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Submits a notification for a recipient, looking up whether they take the
+     * daily digest. Joins the caller's transaction.
+     */
+    public void submit(String mergeKey, String kind, String template, String toEmail, String subject,
+            String htmlContent, String summary, String link) {
+        submit(mergeKey, kind, template, toEmail, subject, htmlContent, summary, link,
+                userRepo.existsByEmailAndDigestOptInTrue(toEmail));
+    }
+
+    // For callers that already know the recipient's digest preference (fan-outs); htmlContent may be null for digest
+    public void submit(String mergeKey, String kind, String template, String toEmail, String subject,
+            String htmlContent, String summary, String link, boolean digest) {
+        if (!digest && coalesceWindowSeconds <= 0) {
+            emailOutboxService.enqueue(template, toEmail, subject, htmlContent);
+            count(kind, "immediate");
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(UPSERT_SQL, mergeKey, toEmail, kind, template, subject, htmlContent, truncate(summary, 500),
+                truncate(link, 1000), digest, Timestamp.valueOf(now),
+                Timestamp.valueOf(now.plusSeconds(Math.max(0, coalesceWindowSeconds))));
+        count(kind, digest ? "digest" : "coalesced");
+    }
+
+    /**
+     * Adds a new drive to the next digest of every eligible subscriber, in one
+     * statement. Drives are not emailed individually.
+     */
+    public int driveCreated(InterviewDrive drive) {
+        StringBuilder sql = new StringBuilder("INSERT INTO pending_notifications "
+                + "(merge_key, recipient_email, kind, summary, digest, created_at, deliver_after) "
+                + "SELECT 'drive:' || ? || ':' || u.id, u.email, ?, ?, TRUE, ?, ? FROM users u "
+                + "WHERE u.role = 'USER' AND u.enabled = TRUE AND u.email IS NOT NULL AND u.digest_opt_in = TRUE");
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> args = new ArrayList<>(List.of(drive.getId(), PendingNotification.NEW_DRIVE,
+                truncate(driveSummary(drive), 500), Timestamp.valueOf(now), Timestamp.valueOf(now)));
+        appendIn(sql, args, "u.branch", drive.getEligibleBranches());
+        appendIn(sql, args, "u.semester", drive.getEligibleSemesters());
+        sql.append(" ON CONFLICT (merge_key) DO NOTHING");
+
+        int added = jdbcTemplate.update(sql.toString(), args.toArray());
+        meterRegistry.counter("notifications.submitted", "kind", PendingNotification.NEW_DRIVE, "mode", "digest")
+                .increment(added);
+        return added;
+    }
+
+    private static void appendIn(StringBuilder sql, List<Object> args, String column, List<?> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        sql.append(" AND ").append(column).append(" IN (")
+                .append(String.join(", ", Collections.nCopies(values.size(), "?"))).append(")");
+        args.addAll(values);
+    }
+
+    private static String driveSummary(InterviewDrive drive) {
+        StringBuilder summary = new StringBuilder(drive.getCompany());
+        if (drive.getPositions() != null && !drive.getPositions().isEmpty()) {
+            summary.append(" (").append(drive.getPositions()).append(")");
+        }
+        summary.append(" on ").append(drive.getDate()).append(" at ").append(drive.getTime())
+                .append(", ").append(drive.getVenue());
+        return summary.toString();
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.flush-ms:30000}")
+    public void flushDue() {
+        LocalDateTime now = LocalDateTime.now();
+        flush(false, after -> pendingRepository.findDueRecipients(now, after, PageRequest.of(0, RECIPIENT_PAGE)));
+    }
+
+    @Scheduled(cron = "${notifications.digest.cron:0 0 8 * * *}")
+    public void sendDigests() {
+        flush(true, after -> pendingRepository.findDigestRecipients(after, PageRequest.of(0, RECIPIENT_PAGE)));
+        logger.info("📬 Daily digests queued");
+    }
+
+    /**
+     * One pass over the recipients in email order. Each page starts after the
+     * last recipient of the previous one, so recipients whose flush failed stay
+     * behind the cursor (and are retried on the next run) instead of filling
+     * the page for everyone after them.
+     */
+    private void flush(boolean digest, Function<String, List<String>> pageAfter) {
+        String after = "";
+        while (true) {
+            List<String> recipients = pageAfter.apply(after);
+            if (recipients.isEmpty()) {
+                return;
+            }
+            for (String recipient : recipients) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> deliver(recipient, digest));
+                } catch (Exception e) {
+                    logger.error("❌ Could not flush notifications for {}: {}", recipient, e.getMessage());
+                }
+            }
+            after = recipients.get(recipients.size() - 1);
+        }
+    }
+
+    // Runs in a transaction: the email is queued in the outbox and the rows deleted together
+    private void deliver(String recipient, boolean digest) {
+        List<PendingNotification> pending = pendingRepository.findByRecipientEmailAndDigestOrderByCreatedAtAsc(
+                recipient, digest);
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> ids = pending.stream().map(PendingNotification::getId).toList();
+        String key = "notification:" + ids.get(0) + ":" + ids.size();
+
+        PendingNotification first = pending.get(0);
+        if (!digest && pending.size() == 1 && first.getHtmlContent() != null) {
+            emailOutboxService.enqueueWithKey(key, first.getTemplate(), recipient, first.getSubject(),
+                    first.getHtmlContent());
+            meterRegistry.counter("notifications.emails", "type", "single").increment();
+        } else {
+            String template = digest ? "daily-digest" : "notification-summary";
+            String subject = digest ? "Your daily Placement Portal digest"
+                    : "You have " + pending.size() + " updates from the Placement Portal";
+            Map<String, Object> model = EmailService.model(
+                    "jobs", ofKind(pending, PendingNotification.NEW_JOB),
+                    "drives", ofKind(pending, PendingNotification.NEW_DRIVE),
+                    "statuses", ofKind(pending, PendingNotification.STATUS_CHANGE));
+            emailOutboxService.enqueueWithKey(key, template, recipient, subject,
+                    emailTemplateRenderer.render(template, model));
+            meterRegistry.counter("notifications.emails", "type", digest ? "digest" : "merged").increment();
+        }
+
+        // Another instance flushed this recipient first: roll back rather than send twice
+        if (pendingRepository.deleteByIds(ids) != ids.size()) {
+            throw new IllegalStateException("Pending notifications for " + recipient + " changed during flush");
+        }
+    }
+
+    private static List<PendingNotification> ofKind(List<PendingNotification> pending, String kind) {
+        List<PendingNotification> items = pending.stream().filter(n -> kind.equals(n.getKind())).toList();
+        return items.isEmpty() ? null : items;
+    }
+
+    private void count(String kind, String mode) {
+        meterRegistry.counter("notifications.submitted", "kind", kind, "mode", mode).increment();
+    }
+
+    private static String truncate(String value, int max) {
+        return value != null && value.length() > max ? value.substring(0, max) : value;
+    }
+}
@@ -1,23 +1,130 @@
 package com.abhi.authProject.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.Random;
 
 @Service
 public class OtpService {
 
-    // Simulating a database/cache for OTPs (Phone -> OTP)
-    // Using ConcurrentHashMap for thread safety in simple in-memory storage
-    private final Map<String, String> otpStorage = new ConcurrentHashMap<>();
+    @Value("${otp.ttl-seconds:300}")
+    private int ttlSeconds = 300;
+
+    @Value("${otp.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${otp.capacity:10000}")
+    private int capacity = 10000;
+
+    // OTPs that may be requested per phone within one window
+    @Value("${otp.max-sends:5}")
+    private int maxSends = 5;
+
+    // Sends and wrong guesses are counted per phone over this window, across re-issued OTPs
+    @Value("${otp.window-seconds:3600}")
+    private int windowSeconds = 3600;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Phone -> pending OTP. Bounded by 'capacity'; entries expire after 'ttlSeconds'
+    private final Map<String, OtpEntry> otpStorage = new ConcurrentHashMap<>();
+
+    // Phone -> sends and wrong guesses in the current window; outlives the OTPs themselves
+    private final Map<String, Usage> usage = new ConcurrentHashMap<>();
+
+    // Hashed timing wheel with one-second slots: a key is parked in the slot that the
+    // cursor reaches when it expires, so each tick only looks at that slot's keys
+    private Set<String>[] wheel;
+    private volatile int cursor = 0;
+
+    private Counter expiredCounter;
+    private Counter rejectedCounter;
+    private Counter lockedOutCounter;
+
+    private static final class OtpEntry {
+        private final String otp;
+        private final long expiresAtMillis;
+
+        private OtpEntry(String otp, long expiresAtMillis) {
+            this.otp = otp;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+    }
+
+    private static final class Usage {
+        private final long windowEndsAtMillis;
+        // Guarded by this
+        private int sends;
+        private int wrongAttempts;
+
+        private Usage(long windowEndsAtMillis) {
+            this.windowEndsAtMillis = windowEndsAtMillis;
+        }
+
+        private boolean isOver(long now) {
+            return now >= windowEndsAtMillis;
+        }
+    }
 
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        wheel = new Set[ttlSeconds + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+
+        meterRegistry.gauge("otp.store.size", otpStorage, Map::size);
+        expiredCounter = meterRegistry.counter("otp.store.evicted", "reason", "expired");
+        lockedOutCounter = meterRegistry.counter("otp.store.evicted", "reason", "attempts");
+        rejectedCounter = meterRegistry.counter("otp.store.rejected");
+    }
+
+    /**
+     * Generates and stores a 4-digit OTP for the phone number, replacing any
+     * previous one. Throws IllegalStateException when the store is full, when
+     * the phone has used up its sends for the window or when it is locked out
+     * after too many wrong guesses.
+     */
     public String generateOtp(String phoneNumber) {
+        if (!otpStorage.containsKey(phoneNumber) && otpStorage.size() >= capacity) {
+            rejectedCounter.increment();
+            throw new IllegalStateException("Too many pending OTP requests. Please try again later.");
+        }
+
+        Usage phoneUsage = usageFor(phoneNumber, System.currentTimeMillis());
+        synchronized (phoneUsage) {
+            if (phoneUsage.wrongAttempts >= maxAttempts || phoneUsage.sends >= maxSends) {
+                rejectedCounter.increment();
+                throw new IllegalStateException("Too many OTP requests for this number. Please try again later.");
+            }
+            phoneUsage.sends++;
+        }
+
         // Generate 4-digit OTP
-        String otp = String.format("%04d", new Random().nextInt(10000));
+        String otp = String.format("%04d", random.nextInt(10000));
 
         // Store it
-        otpStorage.put(phoneNumber, otp);
+        otpStorage.put(phoneNumber, new OtpEntry(otp, System.currentTimeMillis() + ttlSeconds * 1000L));
+        wheel[(cursor + ttlSeconds + 1) % wheel.length].add(phoneNumber);
 
         // LOG IT TO CONSOLE (The "Free SMS" Bridge)
         System.out.println("\n\n");
@@ -30,14 +137,69 @@ public class OtpService {
     }
 
     public boolean validateOtp(String phoneNumber, String otp) {
-        if (!otpStorage.containsKey(phoneNumber)) {
+        OtpEntry entry = otpStorage.get(phoneNumber);
+        if (entry == null || otp == null) {
             return false;
         }
-        String storedOtp = otpStorage.get(phoneNumber);
-        if (storedOtp.equals(otp)) {
-            otpStorage.remove(phoneNumber); // OTP is one-time use
+        long now = System.currentTimeMillis();
+        if (entry.isExpired(now)) {
+            otpStorage.remove(phoneNumber, entry);
+            expiredCounter.increment();
+            return false;
+        }
+
+        boolean matches = MessageDigest.isEqual(
+                entry.otp.getBytes(StandardCharsets.UTF_8), otp.getBytes(StandardCharsets.UTF_8));
+        if (matches) {
+            otpStorage.remove(phoneNumber, entry); // OTP is one-time use
             return true;
         }
+
+        Usage phoneUsage = usageFor(phoneNumber, now);
+        synchronized (phoneUsage) {
+            phoneUsage.wrongAttempts++;
+            if (phoneUsage.wrongAttempts >= maxAttempts) {
+                // Too many wrong guesses: burn this OTP; no new one is issued until the window ends
+                if (otpStorage.remove(phoneNumber, entry)) {
+                    lockedOutCounter.increment();
+                }
+            }
+        }
         return false;
     }
+
+    // Current window's counters for the phone, starting a new window once the last one is over
+    private Usage usageFor(String phoneNumber, long now) {
+        return usage.compute(phoneNumber,
+                (phone, current) -> current == null || current.isOver(now)
+                        ? new Usage(now + windowSeconds * 1000L) : current);
+    }
+
+    public int size() {
+        return otpStorage.size();
+    }
+
+    // Advances the wheel by one slot and drops the expired entries parked there
+    @Scheduled(fixedRate = 1000)
+    public void tick() {
+        int next = (cursor + 1) % wheel.length;
+        cursor = next;
+        long now = System.currentTimeMillis();
+        Set<String> slot = wheel[next];
+        for (String phone : slot) {
+            slot.remove(phone);
+            OtpEntry entry = otpStorage.get(phone);
+            // A re-issued OTP is parked in a later slot; only remove what has really expired
+            if (entry != null && entry.isExpired(now) && otpStorage.remove(phone, entry)) {
+                expiredCounter.increment();
+            }
+        }
+    }
+
+    // Forgets phones whose window has ended
+    @Scheduled(fixedRate = 60000)
+    public void sweepUsage() {
+        long now = System.currentTimeMillis();
+        usage.values().removeIf(u -> u.isOver(now));
+    }
 }
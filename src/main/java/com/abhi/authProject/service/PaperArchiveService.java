@@ -0,0 +1,218 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.Paper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a ZIP of papers straight to a response stream. Drive files are
+ * fetched into the disk cache by a shared pool, at most
+ * {@code papers.archive.prefetch} ahead of the entry being written, and copied
+ * from disk into the archive in order. Nothing is buffered in heap beyond the
+ * deflater's window, so memory use does not grow with the archive.
+ */
+@Service
+public class PaperArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaperArchiveService.class);
+
+    private static final String LOCAL_PREFIX = "/api/papers/download/";
+
+    private static final int BULKHEAD_ATTEMPTS = 3;
+
+    @Autowired
+    private BlobStores blobStores;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pdf.storage.directory:/tmp/resumes}")
+    private String uploadDir;
+
+    // Entries fetched ahead of the one being written, per archive
+    @Value("${papers.archive.prefetch:4}")
+    private int prefetch = 4;
+
+    // Drive fetches running at once across all archives
+    @Value("${papers.archive.fetch-threads:4}")
+    private int fetchThreads = 4;
+
+    private ExecutorService fetchPool;
+
+    /**
+     * One archive entry, resolved from the paper before streaming starts so the
+     * writer does not touch the entity (or the database) again.
+     */
+    public record Entry(String name, BlobStores.Location location, Path localFile) {
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        fetchPool = Executors.newFixedThreadPool(Math.max(1, fetchThreads), r -> {
+            Thread t = new Thread(r, "paper-archive-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchPool.shutdownNow();
+    }
+
+    public List<Entry> entries(List<Paper> papers) {
+        List<Entry> entries = new ArrayList<>(papers.size());
+        Set<String> names = new HashSet<>();
+        for (Paper paper : papers) {
+            String base = paper.getSubject() + "/" + paper.getTitle() + "_" + paper.getYear();
+            // Duplicate names would make ZipOutputStream fail half-way through the response
+            String name = base + ".pdf";
+            for (int n = 2; !names.add(name); n++) {
+                name = base + " (" + n + ").pdf";
+            }
+
+            String url = paper.getPdfUrl();
+            BlobStores.Location location = blobStores.locate(paper.getStorage(), url);
+            if (location != null) {
+                entries.add(new Entry(name, location, null));
+            } else if (url != null && url.startsWith(LOCAL_PREFIX)) {
+                Path papersDir = Paths.get(uploadDir, "papers").normalize();
+                Path file = papersDir.resolve(url.substring(LOCAL_PREFIX.length())).normalize();
+                if (file.startsWith(papersDir)) {
+                    entries.add(new Entry(name, null, file));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Writes the archive. Entries whose file cannot be fetched are left out,
+     * as missing local files always were. Does not close {@code out}.
+     */
+    public void writeZip(List<Entry> entries, OutputStream out) throws IOException {
+        Deque<CompletableFuture<BlobContent>> window = new ArrayDeque<>();
+        int next = 0;
+        try {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            // PDFs are compressed already; spend as little CPU as possible re-deflating them
+            zip.setLevel(Deflater.BEST_SPEED);
+
+            for (Entry entry : entries) {
+                while (next < entries.size() && window.size() < Math.max(1, prefetch)) {
+                    window.addLast(fetch(entries.get(next++)));
+                }
+                CompletableFuture<BlobContent> fetched = window.removeFirst();
+
+                if (entry.localFile() != null) {
+                    if (Files.isRegularFile(entry.localFile())) {
+                        zip.putNextEntry(new ZipEntry(entry.name()));
+                        Files.copy(entry.localFile(), zip);
+                        zip.closeEntry();
+                        count("local");
+                    } else {
+                        count("missing");
+                    }
+                    continue;
+                }
+
+                BlobContent file = await(entry, fetched);
+                if (file == null) {
+                    count("missing");
+                    continue;
+                }
+                try (file) {
+                    zip.putNextEntry(new ZipEntry(entry.name()));
+                    file.writeTo(zip);
+                }
+                zip.closeEntry();
+                count(entry.location().store().provider().toLowerCase(Locale.ROOT));
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            // Client went away: fetches still running release their file when they finish
+            for (CompletableFuture<BlobContent> pending : window) {
+                pending.thenAccept(PaperArchiveService::closeQuietly);
+            }
+        }
+    }
+
+    private CompletableFuture<BlobContent> fetch(Entry entry) {
+        if (entry.location() == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            // Archive fetches run on our own pool, so waiting out a full Drive bulkhead costs no request thread
+            for (int attempt = 1;; attempt++) {
+                try {
+                    return entry.location().open();
+                } catch (DriveBulkhead.Rejected e) {
+                    if (attempt >= BULKHEAD_ATTEMPTS) {
+                        throw e;
+                    }
+                    sleepSeconds(e.getRetryAfterSeconds());
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        }, fetchPool);
+    }
+
+    private static void sleepSeconds(long seconds) {
+        try {
+            TimeUnit.SECONDS.sleep(seconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private BlobContent await(Entry entry, CompletableFuture<BlobContent> fetched)
+            throws IOException {
+        try {
+            return fetched.get();
+        } catch (ExecutionException e) {
+            logger.warn("Skipping {} in archive, file {} unavailable: {}", entry.name(), entry.location().fileId(),
+                    e.getCause().getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while building archive", e);
+        }
+    }
+
+    private void count(String source) {
+        meterRegistry.counter("papers.archive.entries", "source", source).increment();
+    }
+
+    private static void closeQuietly(BlobContent file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            logger.debug("Could not close prefetched file: {}", e.getMessage());
+        }
+    }
+}
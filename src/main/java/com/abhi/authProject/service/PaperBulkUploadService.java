@@ -3,28 +3,70 @@ package com.abhi.authProject.service;
 import com.abhi.authProject.model.Department;
 import com.abhi.authProject.model.DepartmentBranch;
 import com.abhi.authProject.model.Paper;
+import com.abhi.authProject.model.PaperImportEntry;
+import com.abhi.authProject.model.PaperImportJob;
 import com.abhi.authProject.repo.DepartmentBranchRepo;
 import com.abhi.authProject.repo.DepartmentRepo;
+import com.abhi.authProject.repo.PaperImportEntryRepository;
+import com.abhi.authProject.repo.PaperImportJobRepository;
 import com.abhi.authProject.repo.PaperRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+/**
+ * ZIP bulk import of papers (Branch/Semester X/Subject/File.pdf). The upload
+ * request only stores the ZIP and records a {@link PaperImportJob} with one
+ * {@link PaperImportEntry} per PDF; the files are then uploaded in the
+ * background, {@code papers.import.upload-threads} at a time across all jobs,
+ * each retried up to {@code papers.import.max-attempts} times (a file already
+ * stored is not uploaded again when only the database write failed, and is
+ * deleted if the entry gives up). Admins poll the
+ * job for progress and a per-file report, and can requeue failed files while
+ * the ZIP is kept ({@code papers.import.retention-hours}). Jobs interrupted by
+ * a restart resume with the entries still pending.
+ */
 @Service
 public class PaperBulkUploadService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PaperBulkUploadService.class);
+
+    private static final String LAYOUT_ERROR = "Expected Branch/Semester X/Subject/File.pdf";
+
     @Autowired
     private PaperRepository paperRepository;
 
@@ -35,67 +77,353 @@ public class PaperBulkUploadService {
     private DepartmentBranchRepo branchRepo;
 
     @Autowired
-    private FileStorageService fileStorageService;
+    private BlobStores blobStores;
+
+    @Autowired
+    private PaperImportJobRepository jobRepository;
+
+    @Autowired
+    private PaperImportEntryRepository entryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Uploaded ZIPs are kept here while their job can still run
+    @Value("${papers.import.directory:${java.io.tmpdir}/paper-imports}")
+    private String importDirectory;
 
-    public List<Paper> processZipFile(MultipartFile file, String university, int defaultYear) throws IOException {
-        Path tempDir = Files.createTempDirectory("paper-upload-");
-        Path zipPath = tempDir.resolve("upload.zip");
-        Files.copy(file.getInputStream(), zipPath);
+    @Value("${papers.import.upload-threads:4}")
+    private int uploadThreads = 4;
 
-        List<Paper> uploadedPapers = new ArrayList<>();
+    @Value("${papers.import.max-attempts:3}")
+    private int maxAttempts = 3;
 
+    @Value("${papers.import.retention-hours:24}")
+    private long retentionHours = 24;
+
+    /**
+     * Progress of an import: the job, counts per entry status and every entry.
+     */
+    public record Report(PaperImportJob job, long uploaded, long failed, long pending, long skipped,
+            List<PaperImportEntry> entries) {
+    }
+
+    // Where a PDF goes, from its path in the ZIP
+    private record Target(String branchCode, int semester, String subject, String fileName) {
+    }
+
+    // A job with uploads queued or running in this instance
+    private record Run(ZipFile zip, AtomicInteger remaining) {
+    }
+
+    private final ConcurrentHashMap<Long, Run> runs = new ConcurrentHashMap<>();
+
+    private ExecutorService uploadPool;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        uploadPool = Executors.newFixedThreadPool(Math.max(1, uploadThreads), r -> {
+            Thread t = new Thread(r, "paper-import-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Entries not uploaded yet stay PENDING and are picked up on the next start
+        uploadPool.shutdownNow();
+    }
+
+    /**
+     * Stores the ZIP, records the job and its entries and starts uploading.
+     * Returns as soon as the job is recorded.
+     */
+    public PaperImportJob startImport(MultipartFile file, String university, int defaultYear, String startedBy)
+            throws IOException {
+        Path directory = Paths.get(importDirectory);
+        Files.createDirectories(directory);
+        Path zipPath = directory.resolve(UUID.randomUUID() + ".zip");
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, zipPath);
+        }
+
+        List<String> pdfs = new ArrayList<>();
+        Set<String> branchCodes = new LinkedHashSet<>();
         try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
             Enumeration<? extends ZipEntry> entries = zipFile.entries();
-
             while (entries.hasMoreElements()) {
                 ZipEntry entry = entries.nextElement();
                 if (entry.isDirectory() || !entry.getName().toLowerCase().endsWith(".pdf")) {
                     continue;
                 }
+                pdfs.add(entry.getName());
+                Target target = target(entry.getName());
+                if (target != null) {
+                    branchCodes.add(target.branchCode());
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(zipPath);
+            throw e;
+        }
 
-                String path = entry.getName();
-                // Expected Structure: Branch/Semester X/Subject/File.pdf
-                // Example: CS/Semester 1/Mathematics/Calculus.pdf
-                String[] parts = path.split("/");
-                if (parts.length < 4)
-                    continue;
+        // Up front, so parallel uploads do not race to create the same branch
+        branchCodes.forEach(this::ensureBranchExists);
+
+        PaperImportJob job = new PaperImportJob();
+        job.setFileName(file.getOriginalFilename());
+        job.setZipPath(zipPath.toString());
+        job.setUniversity(university);
+        job.setDefaultYear(defaultYear);
+        job.setTotalEntries(pdfs.size());
+        job.setStartedBy(startedBy);
+        job.setUpdatedAt(LocalDateTime.now());
+        PaperImportJob saved = jobRepository.save(job);
+
+        List<PaperImportEntry> entries = new ArrayList<>();
+        for (String name : pdfs) {
+            PaperImportEntry entry = new PaperImportEntry(saved.getId(), name);
+            if (target(name) == null) {
+                entry.setStatus(PaperImportEntry.SKIPPED);
+                entry.setError(LAYOUT_ERROR);
+            }
+            entries.add(entry);
+        }
+        entryRepository.saveAll(entries);
+
+        logger.info("Paper import {} started: {} PDFs from {}", saved.getId(), pdfs.size(), job.getFileName());
+        submit(saved.getId());
+        return saved;
+    }
+
+    public Optional<Report> report(Long jobId) {
+        return jobRepository.findById(jobId).map(job -> {
+            List<PaperImportEntry> entries = entryRepository.findByJobIdOrderById(jobId);
+            return new Report(job, count(entries, PaperImportEntry.UPLOADED), count(entries, PaperImportEntry.FAILED),
+                    count(entries, PaperImportEntry.PENDING), count(entries, PaperImportEntry.SKIPPED), entries);
+        });
+    }
+
+    /**
+     * Requeues a finished job's failed entries. Returns false if the job does
+     * not exist, is still running or its ZIP has already been removed.
+     */
+    public boolean retryFailed(Long jobId) {
+        PaperImportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || PaperImportJob.RUNNING.equals(job.getStatus()) || job.getZipPath() == null) {
+            return false;
+        }
+        entryRepository.requeueFailed(jobId);
+        job.setStatus(PaperImportJob.RUNNING);
+        job.setLastError(null);
+        job.setCompletedAt(null);
+        job.setUpdatedAt(LocalDateTime.now());
+        jobRepository.save(job);
+        submit(jobId);
+        return true;
+    }
 
-                String branchCode = parts[parts.length - 4].trim().toUpperCase();
-                String semesterStr = parts[parts.length - 3].trim();
-                String subjectName = parts[parts.length - 2].trim();
-                String fileName = parts[parts.length - 1].trim();
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        for (PaperImportJob job : jobRepository.findByStatus(PaperImportJob.RUNNING)) {
+            logger.info("Resuming paper import {} ({})", job.getId(), job.getFileName());
+            submit(job.getId());
+        }
+    }
 
-                int semester = extractSemesterNumber(semesterStr);
-                int year = extractYear(fileName, defaultYear);
+    // Drops ZIPs of finished jobs once their failed entries may no longer be retried
+    @Scheduled(cron = "0 15 * * * *")
+    public void removeExpiredZips() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        for (PaperImportJob job : jobRepository.findByStatusNotAndZipPathIsNotNullAndCompletedAtBefore(
+                PaperImportJob.RUNNING, cutoff)) {
+            deleteZip(job);
+            jobRepository.save(job);
+        }
+    }
 
-                // 1. Ensure Department/Branch exists
-                ensureBranchExists(branchCode);
+    void submit(Long jobId) {
+        PaperImportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || !PaperImportJob.RUNNING.equals(job.getStatus())) {
+            return;
+        }
+        ZipFile zipFile;
+        try {
+            zipFile = new ZipFile(job.getZipPath());
+        } catch (IOException e) {
+            logger.error("❌ Paper import {} failed, ZIP unreadable: {}", jobId, e.getMessage());
+            finish(job, PaperImportJob.FAILED, "ZIP unreadable: " + e.getMessage());
+            return;
+        }
 
-                // 2. Save the file
-                String savedFileName;
-                try (InputStream is = zipFile.getInputStream(entry)) {
-                    // This returns URL for Google Drive, or filename for local storage
-                    savedFileName = fileStorageService.saveFileFromStream(is, fileName, "papers");
+        List<PaperImportEntry> pending = entryRepository.findByJobIdAndStatusOrderById(jobId, PaperImportEntry.PENDING);
+        Run run = new Run(zipFile, new AtomicInteger(pending.size()));
+        if (runs.putIfAbsent(jobId, run) != null) {
+            // Already uploading in this instance
+            closeQuietly(zipFile);
+            return;
+        }
+        if (pending.isEmpty()) {
+            complete(jobId, run);
+            return;
+        }
+        for (PaperImportEntry entry : pending) {
+            uploadPool.execute(() -> {
+                try {
+                    upload(job, entry, zipFile);
+                } finally {
+                    if (run.remaining().decrementAndGet() == 0) {
+                        complete(jobId, run);
+                    }
                 }
+            });
+        }
+    }
+
+    private void upload(PaperImportJob job, PaperImportEntry entry, ZipFile zipFile) {
+        Target target = target(entry.getEntryName());
+        ZipEntry zipEntry = zipFile.getEntry(entry.getEntryName());
+        if (target == null || zipEntry == null) {
+            fail(entry, target == null ? LAYOUT_ERROR : "Not found in ZIP");
+            return;
+        }
 
-                String downloadUrl;
-                if (savedFileName.startsWith("http")) {
-                    downloadUrl = savedFileName;
-                } else {
-                    downloadUrl = "/api/papers/download/" + savedFileName;
+        // Kept across attempts so a failed database write does not upload the file again
+        BlobStore.Stored stored = null;
+        for (int attempt = entry.getAttempts() + 1;; attempt++) {
+            try {
+                if (stored == null) {
+                    try (InputStream in = zipFile.getInputStream(zipEntry)) {
+                        stored = blobStores.put(BlobStores.Content.PAPERS, target.fileName(), "application/pdf", in);
+                    }
                 }
-                String title = fileName.replace(".pdf", "").replace(".PDF", "").trim();
+                String title = target.fileName().replace(".pdf", "").replace(".PDF", "").trim();
+                Paper paper = new Paper(title, target.subject(), extractYear(target.fileName(), job.getDefaultYear()),
+                        target.semester(), target.branchCode(), null, "End-Sem", job.getUniversity(), stored.url());
+                paper.setStorage(stored.ref());
 
-                Paper paper = new Paper(title, subjectName, year, semester, branchCode, null, "End-Sem",
-                        university, downloadUrl);
-                uploadedPapers.add(paperRepository.save(paper));
+                int attempts = attempt;
+                transactionTemplate.executeWithoutResult(status -> {
+                    Paper saved = paperRepository.save(paper);
+                    entry.setStatus(PaperImportEntry.UPLOADED);
+                    entry.setPaperId(saved.getId());
+                    entry.setAttempts(attempts);
+                    entry.setError(null);
+                    entry.setUpdatedAt(LocalDateTime.now());
+                    entryRepository.save(entry);
+                });
+                meterRegistry.counter("papers.import.entries", "result", "uploaded").increment();
+                return;
+            } catch (IOException | RuntimeException e) {
+                entry.setAttempts(attempt);
+                if (attempt >= maxAttempts) {
+                    logger.warn("Paper import {}: giving up on {} after {} attempts: {}", job.getId(),
+                            entry.getEntryName(), attempt, e.getMessage());
+                    deleteOrphan(job, stored);
+                    fail(entry, e.getMessage());
+                    return;
+                }
+                try {
+                    TimeUnit.SECONDS.sleep(attempt);
+                } catch (InterruptedException interrupted) {
+                    // Shutting down: the entry stays PENDING for the next start, which uploads it again
+                    Thread.currentThread().interrupt();
+                    deleteOrphan(job, stored);
+                    return;
+                }
             }
-        } finally {
-            Files.deleteIfExists(zipPath);
-            Files.deleteIfExists(tempDir);
         }
+    }
 
-        return uploadedPapers;
+    // Removes a file that was stored but never recorded as a paper
+    private void deleteOrphan(PaperImportJob job, BlobStore.Stored stored) {
+        if (stored == null) {
+            return;
+        }
+        try {
+            blobStores.forProvider(stored.ref().getProvider()).delete(stored.ref().getFileId());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Paper import {}: could not delete unrecorded file {}: {}", job.getId(),
+                    stored.ref().getFileId(), e.getMessage());
+        }
+    }
+
+    private void fail(PaperImportEntry entry, String error) {
+        entry.setStatus(PaperImportEntry.FAILED);
+        entry.setError(truncate(error));
+        entry.setUpdatedAt(LocalDateTime.now());
+        entryRepository.save(entry);
+        meterRegistry.counter("papers.import.entries", "result", "failed").increment();
+    }
+
+    private void complete(Long jobId, Run run) {
+        runs.remove(jobId, run);
+        closeQuietly(run.zip());
+        if (uploadPool.isShutdown()) {
+            // Stopping: the job stays RUNNING and resumes on the next start
+            return;
+        }
+        jobRepository.findById(jobId).ifPresent(job -> {
+            long failed = entryRepository.countByJobIdAndStatus(jobId, PaperImportEntry.FAILED);
+            if (failed == 0) {
+                deleteZip(job);
+            }
+            finish(job, PaperImportJob.COMPLETED, failed > 0 ? failed + " files failed to upload" : null);
+            logger.info("✅ Paper import {} completed, {} failed", jobId, failed);
+        });
+    }
+
+    private void finish(PaperImportJob job, String status, String error) {
+        job.setLastError(truncate(error));
+        job.setUpdatedAt(LocalDateTime.now());
+        job.setCompletedAt(LocalDateTime.now());
+        job.setStatus(status);
+        jobRepository.save(job);
+    }
+
+    private void deleteZip(PaperImportJob job) {
+        try {
+            Files.deleteIfExists(Paths.get(job.getZipPath()));
+        } catch (IOException e) {
+            logger.warn("Could not delete import ZIP {}: {}", job.getZipPath(), e.getMessage());
+        }
+        job.setZipPath(null);
+    }
+
+    // Expected Structure: Branch/Semester X/Subject/File.pdf
+    // Example: CS/Semester 1/Mathematics/Calculus.pdf
+    private Target target(String path) {
+        String[] parts = path.split("/");
+        if (parts.length < 4) {
+            return null;
+        }
+        return new Target(parts[parts.length - 4].trim().toUpperCase(),
+                extractSemesterNumber(parts[parts.length - 3].trim()),
+                parts[parts.length - 2].trim(),
+                parts[parts.length - 1].trim());
+    }
+
+    private static long count(List<PaperImportEntry> entries, String status) {
+        return entries.stream().filter(e -> status.equals(e.getStatus())).count();
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    private static void closeQuietly(ZipFile zipFile) {
+        try {
+            zipFile.close();
+        } catch (IOException e) {
+            // Nothing left to read from it
+        }
     }
 
     public int extractYear(String fileName, int defaultYear) {
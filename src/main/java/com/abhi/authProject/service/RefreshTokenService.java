@@ -0,0 +1,114 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.Jwt.JWTService;
+import com.abhi.authProject.Jwt.JwtPrincipalCache;
+import com.abhi.authProject.model.RefreshToken;
+import com.abhi.authProject.model.Users;
+import com.abhi.authProject.repo.RefreshTokenRepository;
+import com.abhi.authProject.repo.UserRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Issues and rotates refresh tokens. The store (and the user row) is only
+ * consulted here, at refresh time; regular requests are authenticated from the
+ * short-lived access token's claims alone.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    public record TokenPair(String accessToken, String refreshToken, long expiresIn) {
+    }
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private JWTService jwtService;
+
+    @Value("${jwt.refresh-token.ttl-days:14}")
+    private long ttlDays;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Starts a new token family, e.g. at login
+    public String issue(String username) {
+        return issue(username, UUID.randomUUID().toString());
+    }
+
+    private String issue(String username, String familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(JwtPrincipalCache.digest(raw));
+        token.setUsername(username);
+        token.setFamilyId(familyId);
+        token.setExpiresAt(LocalDateTime.now().plusDays(ttlDays));
+        refreshTokenRepository.save(token);
+        return raw;
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and a new refresh token.
+     * Throws BadCredentialsException for unknown, expired or reused tokens and
+     * IllegalStateException when the account may not log in right now.
+     */
+    public TokenPair rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new BadCredentialsException("Refresh token is required");
+        }
+
+        RefreshToken stored = refreshTokenRepository.findByTokenHash(JwtPrincipalCache.digest(rawToken))
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+
+        if (stored.isExpired()) {
+            throw new BadCredentialsException("Refresh token expired");
+        }
+
+        if (refreshTokenRepository.markUsed(stored.getId()) == 0) {
+            // A consumed token was presented again: assume it leaked and kill the whole family
+            refreshTokenRepository.revokeFamily(stored.getFamilyId());
+            logger.warn("Refresh token reuse detected for user {}; family revoked", stored.getUsername());
+            throw new BadCredentialsException("Refresh token already used");
+        }
+
+        Users user = userRepo.findByUsername(stored.getUsername())
+                .orElseThrow(() -> new BadCredentialsException("User no longer exists"));
+
+        if (!user.isVerified()) {
+            throw new IllegalStateException("Please verify your email before logging in.");
+        }
+        if (user.getLockedUntil() != null && user.getLockedUntil().isAfter(LocalDateTime.now())) {
+            throw new IllegalStateException("Your account is temporarily suspended due to security violations.");
+        }
+
+        String accessToken = jwtService.generateToken(user);
+        String refreshToken = issue(user.getUsername(), stored.getFamilyId());
+        return new TokenPair(accessToken, refreshToken, jwtService.getAccessTokenTtlSeconds());
+    }
+
+    @Scheduled(fixedRate = 86400000)
+    public void cleanExpiredRefreshTokens() {
+        int removed = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            logger.info("Removed {} expired refresh tokens", removed);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.StorageRef;
+import com.abhi.authProject.repo.NoteRepository;
+import com.abhi.authProject.repo.PaperRepository;
+import com.abhi.authProject.repo.StudentPaperRepository;
+import com.google.api.client.http.HttpResponseException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fills in {@link StorageRef} for papers and notes uploaded before it was
+ * recorded at upload time. Rows are walked in id order, a batch at a time, and
+ * each Drive file's metadata is fetched once. Rows whose file Drive no longer
+ * has are counted as missing and skipped; they stay empty and are looked at
+ * again on the next run. Download paths fall back to parsing the share URL
+ * until a row is filled.
+ */
+@Service
+public class StorageRefBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageRefBackfillService.class);
+
+    private static final String LOCAL_PREFIX = "/api/papers/download/";
+
+    @Autowired
+    private PaperRepository paperRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private StudentPaperRepository studentPaperRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pdf.storage.directory:/tmp/resumes}")
+    private String uploadDir;
+
+    @Value("${storage.backfill.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${storage.backfill.batch-size:50}")
+    private int batchSize = 50;
+
+    @Scheduled(initialDelayString = "${storage.backfill.initial-delay-ms:60000}",
+            fixedDelayString = "${storage.backfill.interval-ms:3600000}")
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        int filled = backfill("papers", paperRepository::findWithoutStorageAfter,
+                p -> p.getId(), p -> p.getPdfUrl(), (p, ref) -> p.setStorage(ref), paperRepository::saveAll);
+        filled += backfill("notes", noteRepository::findWithoutStorageAfter,
+                n -> n.getId(), n -> n.getPdfUrl(), (n, ref) -> n.setStorage(ref), noteRepository::saveAll);
+        filled += backfill("student_papers", studentPaperRepository::findWithoutStorageAfter,
+                p -> p.getId(), p -> p.getDriveFileId(), (p, ref) -> p.setStorage(ref), studentPaperRepository::saveAll);
+        if (filled > 0) {
+            logger.info("Backfilled storage references for {} files", filled);
+        }
+    }
+
+    /**
+     * One pass over a table. Stops early if every lookup in a batch failed with
+     * a transport error or 5xx, which means Drive is down; deleted files only
+     * move the cursor on.
+     */
+    <T> int backfill(String table, BiFunction<Long, Pageable, List<T>> page, Function<T, Long> id,
+            Function<T, String> url, BiConsumer<T, StorageRef> setStorage, Consumer<List<T>> save) {
+        Pageable batch = PageRequest.of(0, batchSize);
+        long afterId = 0;
+        int filled = 0;
+        List<T> rows;
+        while (!(rows = page.apply(afterId, batch)).isEmpty()) {
+            List<T> changed = new ArrayList<>();
+            int missing = 0;
+            int failed = 0;
+            int unavailable = 0;
+            for (T row : rows) {
+                try {
+                    StorageRef ref = describe(url.apply(row));
+                    if (ref != null) {
+                        setStorage.accept(row, ref);
+                        changed.add(row);
+                    }
+                } catch (FileNotFoundException e) {
+                    missing++;
+                    logger.debug("No stored file for {} #{}: {}", table, id.apply(row), e.getMessage());
+                } catch (IOException e) {
+                    failed++;
+                    if (!(e instanceof HttpResponseException response) || response.getStatusCode() >= 500) {
+                        unavailable++;
+                    }
+                    logger.warn("Could not read storage metadata for {} #{}: {}", table, id.apply(row), e.getMessage());
+                }
+            }
+            if (!changed.isEmpty()) {
+                save.accept(changed);
+                filled += changed.size();
+            }
+            meterRegistry.counter("storage.backfill.rows", "table", table, "result", "filled").increment(changed.size());
+            meterRegistry.counter("storage.backfill.rows", "table", table, "result", "missing").increment(missing);
+            meterRegistry.counter("storage.backfill.rows", "table", table, "result", "failed").increment(failed);
+            if (unavailable == rows.size()) {
+                logger.warn("Storage backfill for {} stopped: Drive failed for every file in the batch", table);
+                break;
+            }
+            afterId = id.apply(rows.get(rows.size() - 1));
+        }
+        return filled;
+    }
+
+    // Null when the URL points at neither Drive nor the local paper store; FileNotFoundException when Drive lost the file
+    private StorageRef describe(String url) throws IOException {
+        String fileId = FileStorageService.driveFileId(url);
+        if (fileId == null && url != null && !url.isBlank() && !url.contains("/")) {
+            // Older student submissions stored the bare Drive ID
+            fileId = url;
+        }
+        if (fileId != null) {
+            StorageRef ref = fileStorageService.describeDriveFile(fileId);
+            if (ref == null) {
+                throw new FileNotFoundException("Drive file " + fileId + " not found");
+            }
+            return ref;
+        }
+        if (url == null || !url.startsWith(LOCAL_PREFIX)) {
+            return null;
+        }
+        String name = url.substring(LOCAL_PREFIX.length());
+        Path papersDir = Paths.get(uploadDir, "papers").normalize();
+        Path file = papersDir.resolve(name).normalize();
+        StorageRef ref = new StorageRef(StorageRef.LOCAL, "papers/" + name, null, null, "application/pdf", null);
+        if (file.startsWith(papersDir) && Files.isRegularFile(file)) {
+            ref.setSizeBytes(Files.size(file));
+            ref.setModifiedAt(LocalDateTime.ofInstant(Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault()));
+        }
+        return ref;
+    }
+}
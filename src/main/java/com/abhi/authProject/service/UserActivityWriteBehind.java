@@ -0,0 +1,136 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.Users;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for small bookkeeping fields on {@code users}
+ * (last login time, clearing an expired suspension). Updates are coalesced per
+ * user in memory and flushed on a schedule as batched, column-targeted UPDATEs,
+ * so login and paper downloads no longer wait on a full-row save.
+ */
+@Service
+public class UserActivityWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserActivityWriteBehind.class);
+
+    private static final String UPDATE_LAST_LOGIN =
+            "UPDATE users SET last_login_date = ? WHERE id = ? AND (last_login_date IS NULL OR last_login_date < ?)";
+
+    // Only clears a lock that has actually expired, so a newer suspension is never undone
+    private static final String CLEAR_EXPIRED_LOCK =
+            "UPDATE users SET security_strikes = 0, locked_until = NULL, "
+                    + "lockout_count = CASE WHEN locked_until < ? THEN 0 ELSE lockout_count END "
+                    + "WHERE id = ? AND locked_until IS NOT NULL AND locked_until <= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Integer, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+    private Counter flushedRows;
+
+    private static final class PendingUpdate {
+        private LocalDateTime lastLoginDate;
+        private boolean clearExpiredLock;
+    }
+
+    @PostConstruct
+    public void init() {
+        flushedRows = Counter.builder("users.writebehind.flushed")
+                .description("Coalesced user bookkeeping updates written to the database")
+                .register(meterRegistry);
+        meterRegistry.gauge("users.writebehind.pending", pending, Map::size);
+    }
+
+    public void recordLogin(Users user, LocalDateTime at) {
+        pending.compute(user.getId(), (id, update) -> {
+            PendingUpdate u = update != null ? update : new PendingUpdate();
+            if (u.lastLoginDate == null || at.isAfter(u.lastLoginDate)) {
+                u.lastLoginDate = at;
+            }
+            return u;
+        });
+    }
+
+    /**
+     * Queues clearing of strikes and an expired suspension (and the daily
+     * lockout count when the lock ended on an earlier day).
+     */
+    public void clearExpiredLock(Users user) {
+        clearExpiredLock(user.getId());
+    }
+
+    public void clearExpiredLock(int userId) {
+        pending.compute(userId, (id, update) -> {
+            PendingUpdate u = update != null ? update : new PendingUpdate();
+            u.clearExpiredLock = true;
+            return u;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${users.write-behind.flush-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> logins = new ArrayList<>();
+        List<Object[]> lockClears = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp startOfToday = Timestamp.valueOf(LocalDate.now().atStartOfDay());
+
+        for (Integer userId : new ArrayList<>(pending.keySet())) {
+            PendingUpdate u = pending.remove(userId);
+            if (u == null) {
+                continue;
+            }
+            if (u.lastLoginDate != null) {
+                Timestamp at = Timestamp.valueOf(u.lastLoginDate);
+                logins.add(new Object[] { at, userId, at });
+            }
+            if (u.clearExpiredLock) {
+                lockClears.add(new Object[] { startOfToday, userId, now });
+            }
+        }
+
+        try {
+            if (!logins.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, logins);
+            }
+            if (!lockClears.isEmpty()) {
+                jdbcTemplate.batchUpdate(CLEAR_EXPIRED_LOCK, lockClears);
+            }
+            flushedRows.increment(logins.size() + lockClears.size());
+        } catch (Exception e) {
+            // Bookkeeping only: log and drop rather than retry forever
+            logger.error("Failed to flush {} login and {} lock updates: {}", logins.size(), lockClears.size(),
+                    e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -1,16 +1,13 @@
 package com.abhi.authProject.service;
 
 import com.abhi.authProject.Jwt.JWTService;
+import com.abhi.authProject.Jwt.TokenGenerationService;
 import com.abhi.authProject.model.Users;
 import com.abhi.authProject.repo.UserRepo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -30,10 +27,10 @@ public class UserService {
     private JWTService jwtservice;
 
     @Autowired
-    private AuthenticationManager authManager;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
-    private BCryptPasswordEncoder encoder;
+    private TokenGenerationService tokenGenerationService;
 
     // ADDED: The generic EmailService.
     @Autowired
@@ -54,7 +51,7 @@ public class UserService {
             throw new IllegalArgumentException("Email already registered");
         }
 
-        user.setPassword(encoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         user.setVerified(false);
         String otp = generateOTP();
         user.setVerificationToken(otp);
@@ -93,20 +90,40 @@ public class UserService {
             throw new BadCredentialsException("User not found");
         }
 
-        Users user = userOptional.get();
+        return verifyAndLogin(userOptional.get(), password);
+    }
+
+    /**
+     * Checks the password for an already loaded user and issues a token. The
+     * hash is computed exactly once, on the bounded hashing pool.
+     */
+    public String verifyAndLogin(Users user, String password) {
+        if (!passwordHashingService.matches(password, user.getPassword())) {
+            throw new BadCredentialsException("Bad credentials");
+        }
 
-        // Authenticate using the actual username stored in database
-        Authentication authentication = authManager.authenticate(
-                new UsernamePasswordAuthenticationToken(user.getUsername(), password));
+        upgradePasswordHashIfNeeded(user, password);
 
         if (!user.isVerified()) {
             throw new IllegalStateException("Please verify your email address with the code to log in.");
         }
 
-        if (authentication.isAuthenticated()) {
-            return jwtservice.generateToken(user.getUsername());
-        } else {
-            throw new BadCredentialsException("Authentication failed");
+        return jwtservice.generateToken(user);
+    }
+
+    // Rehash with the current algorithm/cost while we still hold the plain password
+    private void upgradePasswordHashIfNeeded(Users user, String password) {
+        if (!passwordHashingService.needsUpgrade(user.getPassword())) {
+            return;
+        }
+        try {
+            String upgraded = passwordHashingService.encode(password);
+            repo.updatePasswordHash(user.getUsername(), upgraded);
+            user.setPassword(upgraded);
+            logger.info("Upgraded password hash for user {}", user.getId());
+        } catch (Exception e) {
+            // Never fail a login because the upgrade could not be written
+            logger.warn("Password hash upgrade skipped for user {}: {}", user.getId(), e.getMessage());
         }
     }
 
@@ -148,7 +165,9 @@ public class UserService {
 
     // Update user password
     public void updatePassword(Users user, String newPassword) {
-        user.setPassword(encoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword));
         repo.save(user);
+        // A password change logs the user out everywhere
+        tokenGenerationService.revokeAll(user.getUsername());
     }
 }
\ No newline at end of file
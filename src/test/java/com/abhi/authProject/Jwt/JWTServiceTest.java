@@ -0,0 +1,154 @@
+package com.abhi.authProject.Jwt;
+
+import com.abhi.authProject.model.Users;
+import com.abhi.authProject.repo.RefreshTokenRepository;
+import com.abhi.authProject.repo.UserRepo;
+import com.abhi.authProject.service.CurrentUserService;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class JWTServiceTest {
+
+    static final String SECRET = "test-secret-that-is-long-enough-for-the-hs384-signing-key-bytes!";
+
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private JWTService jwtService;
+    private TokenGenerationService tokenGenerationService;
+
+    @BeforeEach
+    void setUp() {
+        tokenGenerationService = tokenGenerationService(generation);
+        jwtService = jwtService(tokenGenerationService);
+    }
+
+    @Test
+    void freshAccessTokenIsValidFromItsClaimsAlone() {
+        VerifiedToken verified = jwtService.verify(jwtService.generateToken(user()));
+
+        assertTrue(jwtService.validateAccessToken(verified));
+        assertEquals("alice", verified.subject());
+        assertEquals("USER", verified.role());
+        assertEquals("MCA", verified.branch());
+        assertEquals(3, verified.semester());
+    }
+
+    @Test
+    void lockedAccountIsRejected() {
+        Users user = user();
+        user.setLockedUntil(LocalDateTime.now().plusMinutes(10));
+
+        assertFalse(jwtService.validateAccessToken(jwtService.verify(jwtService.generateToken(user))));
+    }
+
+    @Test
+    void expiredLockNoLongerCounts() {
+        Users user = user();
+        user.setLockedUntil(LocalDateTime.now().minusMinutes(1));
+
+        assertTrue(jwtService.validateAccessToken(jwtService.verify(jwtService.generateToken(user))));
+    }
+
+    @Test
+    void unverifiedAccountIsRejected() {
+        Users user = user();
+        user.setVerified(false);
+
+        assertFalse(jwtService.validateAccessToken(jwtService.verify(jwtService.generateToken(user))));
+    }
+
+    @Test
+    void disabledAccountIsLeftToTheCompanyAdminChecks() {
+        Users user = user();
+        user.setEnabled(false);
+
+        VerifiedToken verified = jwtService.verify(jwtService.generateToken(user));
+
+        assertTrue(jwtService.validateAccessToken(verified));
+        assertFalse(verified.enabled());
+    }
+
+    @Test
+    void bumpingTheGenerationRevokesEarlierTokens() {
+        String before = jwtService.generateToken(user());
+
+        tokenGenerationService.invalidateAccessTokens("alice");
+
+        assertFalse(jwtService.validateAccessToken(jwtService.verify(before)));
+        assertTrue(jwtService.validateAccessToken(jwtService.verify(jwtService.generateToken(user()))));
+    }
+
+    @Test
+    void expiredTokenFailsVerification() {
+        ReflectionTestUtils.setField(jwtService, "accessTokenTtlMinutes", -1L);
+        String token = jwtService.generateToken(user());
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    void legacyTokensAreNotAccessTokens() {
+        assertFalse(jwtService.validateAccessToken(jwtService.verify(legacyToken("alice"))));
+    }
+
+    // Long-lived token as issued before access/refresh pairs: no typ and no gen claim
+    static String legacyToken(String username) {
+        return Jwts.builder()
+                .claim("authorities", List.of("ROLE_USER"))
+                .subject(username)
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), Jwts.SIG.HS384)
+                .compact();
+    }
+
+    static Users user() {
+        Users user = new Users();
+        user.setUsername("alice");
+        user.setRole("USER");
+        user.setVerified(true);
+        user.setEnabled(true);
+        user.setBranch("MCA");
+        user.setSemester(3);
+        return user;
+    }
+
+    // Backed by a single in-memory generation counter standing in for users.token_generation
+    static TokenGenerationService tokenGenerationService(AtomicInteger generation) {
+        UserRepo userRepo = mock(UserRepo.class);
+        when(userRepo.findTokenGenerationByUsername(anyString())).thenAnswer(i -> Optional.of(generation.get()));
+        when(userRepo.incrementTokenGeneration(anyString())).thenAnswer(i -> {
+            generation.incrementAndGet();
+            return 1;
+        });
+        TokenGenerationService service = new TokenGenerationService();
+        ReflectionTestUtils.setField(service, "userRepo", userRepo);
+        ReflectionTestUtils.setField(service, "principalCache", mock(JwtPrincipalCache.class));
+        ReflectionTestUtils.setField(service, "refreshTokenRepository", mock(RefreshTokenRepository.class));
+        ReflectionTestUtils.setField(service, "currentUserService", mock(CurrentUserService.class));
+        return service;
+    }
+
+    static JWTService jwtService(TokenGenerationService tokenGenerationService) {
+        JWTService service = new JWTService();
+        ReflectionTestUtils.setField(service, "secretkey", SECRET);
+        ReflectionTestUtils.setField(service, "accessTokenTtlMinutes", 15L);
+        ReflectionTestUtils.setField(service, "tokenGenerationService", tokenGenerationService);
+        return service;
+    }
+}
@@ -0,0 +1,122 @@
+package com.abhi.authProject.Jwt;
+
+import com.abhi.authProject.repo.BlacklistedTokenRepository;
+import com.abhi.authProject.service.MyUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class JwtFilterTest {
+
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private JwtFilter filter;
+    private JWTService jwtService;
+    private TokenGenerationService tokenGenerationService;
+    private JwtPrincipalCache principalCache;
+    private ApplicationContext context;
+    private MyUserDetailsService userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        principalCache = new JwtPrincipalCache();
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(principalCache, "maxSize", 100);
+
+        tokenGenerationService = JWTServiceTest.tokenGenerationService(generation);
+        ReflectionTestUtils.setField(tokenGenerationService, "principalCache", principalCache);
+        jwtService = JWTServiceTest.jwtService(tokenGenerationService);
+        ReflectionTestUtils.setField(jwtService, "blacklistedTokenRepository", mock(BlacklistedTokenRepository.class));
+
+        userDetailsService = mock(MyUserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("alice"))
+                .thenReturn(User.withUsername("alice").password("{bcrypt}hash").roles("USER").build());
+        context = mock(ApplicationContext.class);
+        when(context.getBean(MyUserDetailsService.class)).thenReturn(userDetailsService);
+
+        filter = new JwtFilter();
+        ReflectionTestUtils.setField(filter, "jwtService", jwtService);
+        ReflectionTestUtils.setField(filter, "principalCache", principalCache);
+        ReflectionTestUtils.setField(filter, "context", context);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void accessTokenIsAuthorizedFromItsClaimsWithoutLoadingTheUser() throws Exception {
+        Authentication auth = authenticate(jwtService.generateToken(JWTServiceTest.user()));
+
+        assertNotNull(auth);
+        TokenPrincipal principal = assertInstanceOf(TokenPrincipal.class, auth.getPrincipal());
+        assertEquals("MCA", principal.getBranch());
+        assertEquals(3, principal.getSemester());
+        verifyNoInteractions(context);
+        assertEquals(0, principalCache.size());
+    }
+
+    @Test
+    void revokedAccessTokenIsNotAuthorized() throws Exception {
+        String token = jwtService.generateToken(JWTServiceTest.user());
+        tokenGenerationService.invalidateAccessTokens("alice");
+
+        assertNull(authenticate(token));
+    }
+
+    @Test
+    void legacyTokenLoadsTheUserOnceThenComesFromTheCache() throws Exception {
+        String token = JWTServiceTest.legacyToken("alice");
+
+        assertEquals("alice", authenticate(token).getName());
+        SecurityContextHolder.clearContext();
+        assertEquals("alice", authenticate(token).getName());
+
+        verify(userDetailsService, times(1)).loadUserByUsername("alice");
+        assertEquals(1, principalCache.size());
+    }
+
+    @Test
+    void revokingALegacyTokenEvictsItsCachedPrincipal() throws Exception {
+        String token = JWTServiceTest.legacyToken("alice");
+        assertNotNull(authenticate(token));
+        SecurityContextHolder.clearContext();
+
+        tokenGenerationService.revokeAll("alice");
+
+        assertNull(authenticate(token));
+        assertEquals(0, principalCache.size());
+    }
+
+    @Test
+    void tamperedTokenIsIgnored() throws Exception {
+        String token = jwtService.generateToken(JWTServiceTest.user());
+
+        assertNull(authenticate(token.substring(0, token.length() - 2) + "xx"));
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/papers");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest(), "filter must always continue the chain");
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,107 @@
+package com.abhi.authProject.Jwt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtPrincipalCacheTest {
+
+    private JwtPrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new JwtPrincipalCache();
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+    }
+
+    @Test
+    void cachedPrincipalKeepsAuthoritiesButNotThePasswordHash() {
+        cache.put("t1", user("alice"), inOneHour());
+
+        UserDetails cached = cache.get("t1");
+
+        assertEquals("alice", cached.getUsername());
+        assertEquals("", cached.getPassword());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER")), List.copyOf(cached.getAuthorities()));
+    }
+
+    @Test
+    void entryExpiresWithTheTokenEvenWithinTheTtl() {
+        cache.put("t1", user("alice"), System.currentTimeMillis() - 1);
+
+        assertNull(cache.get("t1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void entryExpiresWithTheTtlEvenWhileTheTokenIsValid() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 0L);
+        cache.put("t1", user("alice"), inOneHour());
+
+        assertNull(cache.get("t1"));
+    }
+
+    @Test
+    void purgeDropsOnlyExpiredEntries() {
+        cache.put("t1", user("alice"), System.currentTimeMillis() - 1);
+        cache.put("t2", user("bob"), inOneHour());
+
+        cache.purgeExpired();
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("t2"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        cache.put("t1", user("alice"), inOneHour());
+        cache.put("t2", user("bob"), inOneHour());
+        cache.get("t1");
+
+        cache.put("t3", user("carol"), inOneHour());
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("t1"));
+        assertNull(cache.get("t2"));
+        assertNotNull(cache.get("t3"));
+    }
+
+    @Test
+    void evictUserDropsEveryTokenOfThatUser() {
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+        cache.put("t1", user("alice"), inOneHour());
+        cache.put("t2", user("alice"), inOneHour());
+        cache.put("t3", user("bob"), inOneHour());
+
+        cache.evictUser("alice");
+
+        assertNull(cache.get("t1"));
+        assertNull(cache.get("t2"));
+        assertNotNull(cache.get("t3"));
+    }
+
+    @Test
+    void digestIsStableAndDoesNotContainTheToken() {
+        String token = "header.payload.signature";
+
+        assertEquals(JwtPrincipalCache.digest(token), JwtPrincipalCache.digest(token));
+        assertNotEquals(JwtPrincipalCache.digest(token), JwtPrincipalCache.digest(token + "x"));
+        assertFalse(JwtPrincipalCache.digest(token).contains("payload"));
+    }
+
+    private static UserDetails user(String username) {
+        return User.withUsername(username).password("{bcrypt}hash").roles("USER").build();
+    }
+
+    private static long inOneHour() {
+        return System.currentTimeMillis() + 3_600_000;
+    }
+}
@@ -0,0 +1,121 @@
+package com.abhi.authProject.Jwt;
+
+import com.abhi.authProject.repo.RefreshTokenRepository;
+import com.abhi.authProject.repo.UserRepo;
+import com.abhi.authProject.service.CurrentUserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TokenGenerationServiceTest {
+
+    // Stands in for users.token_generation
+    private final Map<String, Integer> stored = new HashMap<>();
+
+    private TokenGenerationService service;
+    private UserRepo userRepo;
+    private JwtPrincipalCache principalCache;
+    private RefreshTokenRepository refreshTokenRepository;
+    private CurrentUserService currentUserService;
+
+    @BeforeEach
+    void setUp() {
+        userRepo = mock(UserRepo.class);
+        when(userRepo.findTokenGenerationByUsername(anyString()))
+                .thenAnswer(i -> Optional.ofNullable(stored.get(i.<String>getArgument(0))));
+        when(userRepo.incrementTokenGeneration(anyString())).thenAnswer(i -> {
+            stored.merge(i.getArgument(0), 1, Integer::sum);
+            return 1;
+        });
+        principalCache = mock(JwtPrincipalCache.class);
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        currentUserService = mock(CurrentUserService.class);
+
+        service = new TokenGenerationService();
+        ReflectionTestUtils.setField(service, "userRepo", userRepo);
+        ReflectionTestUtils.setField(service, "principalCache", principalCache);
+        ReflectionTestUtils.setField(service, "refreshTokenRepository", refreshTokenRepository);
+        ReflectionTestUtils.setField(service, "currentUserService", currentUserService);
+    }
+
+    @Test
+    void generationIsReadFromTheDatabaseOncePerUser() {
+        stored.put("alice", 4);
+
+        assertEquals(4, service.currentGeneration("alice"));
+        assertTrue(service.isCurrent("alice", 4));
+        assertFalse(service.isCurrent("alice", 3));
+
+        verify(userRepo, times(1)).findTokenGenerationByUsername("alice");
+    }
+
+    @Test
+    void usersWithoutAStoredGenerationStartAtZero() {
+        assertEquals(0, service.currentGeneration("bob"));
+        // Tokens issued before generations existed carry generation 0
+        assertTrue(service.isCurrent("bob", 0));
+    }
+
+    @Test
+    void revokeAllBumpsTheGenerationAndRevokesRefreshTokens() {
+        stored.put("alice", 1);
+        assertTrue(service.isCurrent("alice", 1));
+
+        service.revokeAll("alice");
+
+        assertEquals(2, stored.get("alice"));
+        assertFalse(service.isCurrent("alice", 1));
+        assertTrue(service.isCurrent("alice", 2));
+        verify(refreshTokenRepository).revokeAllForUser("alice");
+        verify(principalCache).evictUser("alice");
+        verify(currentUserService).evict("alice");
+    }
+
+    @Test
+    void invalidatingAccessTokensKeepsRefreshTokens() {
+        service.invalidateAccessTokens("alice");
+
+        assertEquals(1, service.currentGeneration("alice"));
+        assertFalse(service.isCurrent("alice", 0));
+        verify(principalCache).evictUser("alice");
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    void otherUsersAreUnaffected() {
+        stored.put("bob", 0);
+        service.revokeAll("alice");
+
+        assertTrue(service.isCurrent("bob", 0));
+    }
+
+    @Test
+    void forgetRereadsTheGenerationOnTheNextCheck() {
+        stored.put("alice", 1);
+        service.currentGeneration("alice");
+        // Changed behind the service's back, e.g. by another instance
+        stored.put("alice", 5);
+
+        service.forget("alice");
+
+        assertEquals(5, service.currentGeneration("alice"));
+        verify(principalCache).evictUser("alice");
+    }
+
+    @Test
+    void nullUsernameIsIgnored() {
+        service.revokeAll(null);
+        service.invalidateAccessTokens(null);
+        service.forget(null);
+
+        verifyNoInteractions(userRepo, principalCache, refreshTokenRepository, currentUserService);
+    }
+}
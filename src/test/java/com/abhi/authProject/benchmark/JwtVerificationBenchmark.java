@@ -0,0 +1,89 @@
+package com.abhi.authProject.benchmark;
+
+import com.abhi.authProject.Jwt.JWTService;
+import com.abhi.authProject.Jwt.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old per-request JWT path (new key + new parser, token parsed
+ * three times) with {@link JWTService#verify(String)}.
+ *
+ * Run via main() from the IDE, or with org.openjdk.jmh.Main on the test
+ * classpath after mvn test-compile.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-that-is-long-enough-for-hs384-signing-key-bytes!";
+
+    private String token;
+    private JWTService jwtService;
+
+    @Setup
+    public void setUp() {
+        SecretKey key = legacyKey();
+        token = Jwts.builder()
+                .claim("authorities", List.of("ROLE_USER"))
+                .subject("59500")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60))
+                .signWith(key, Jwts.SIG.HS384)
+                .compact();
+
+        jwtService = new JWTService();
+        ReflectionTestUtils.setField(jwtService, "secretkey", SECRET);
+    }
+
+    private static SecretKey legacyKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parser()
+                .verifyWith(legacyKey())
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    // Mirrors the previous JwtFilter + validateToken sequence: subject, subject again, expiration
+    @Benchmark
+    public boolean legacyTripleParse() {
+        String username = legacyParse(token).getSubject();
+        String again = legacyParse(token).getSubject();
+        Date expiration = legacyParse(token).getExpiration();
+        return username.equals(again) && expiration.after(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        VerifiedToken verified = jwtService.verify(token);
+        return verified.subject() != null && !verified.isExpired();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
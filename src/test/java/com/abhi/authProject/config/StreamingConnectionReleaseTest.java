@@ -0,0 +1,353 @@
+package com.abhi.authProject.config;
+
+import com.abhi.authProject.controller.NoteController;
+import com.abhi.authProject.controller.PaperController;
+import com.abhi.authProject.controller.PaperUploadController;
+import com.abhi.authProject.controller.PublicPaperController;
+import com.abhi.authProject.Jwt.TokenGenerationService;
+import com.abhi.authProject.model.GlobalSettings;
+import com.abhi.authProject.model.Note;
+import com.abhi.authProject.model.Paper;
+import com.abhi.authProject.model.StorageRef;
+import com.abhi.authProject.repo.NoteRepository;
+import com.abhi.authProject.repo.PaperRepository;
+import com.abhi.authProject.repo.PaperViewLogRepository;
+import com.abhi.authProject.repo.UserRepo;
+import com.abhi.authProject.service.BlobContent;
+import com.abhi.authProject.service.BlobStore;
+import com.abhi.authProject.service.BlobStores;
+import com.abhi.authProject.service.CurrentUserService;
+import com.abhi.authProject.service.FileStorageService;
+import com.abhi.authProject.service.GlobalSettingsService;
+import com.abhi.authProject.service.LocalBlobStore;
+import com.abhi.authProject.service.PaperArchiveService;
+import com.abhi.authProject.service.PaperBulkUploadService;
+import com.abhi.authProject.service.UserActivityWriteBehind;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.AnnotatedBeanDefinitionReader;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * 50 slow clients against a 10-connection pool, through the real download
+ * handlers. The stand-in EntityManager holds a pooled connection for as long
+ * as it is open, as Hibernate does once it has run a query, so open-in-view
+ * would pin one connection per download.
+ */
+public class StreamingConnectionReleaseTest {
+
+    private static final int CLIENTS = 50;
+
+    private static final String[] DOWNLOADS = {
+            "/api/papers/proxy/",
+            "/api/public/papers/download/",
+            "/api/notes/download/"
+    };
+
+    private static HikariDataSource dataSource;
+    private static EntityManagerFactory entityManagerFactory;
+
+    @TempDir
+    Path dir;
+
+    private GenericWebApplicationContext context;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(stubDataSource());
+        config.setMaximumPoolSize(10);
+        config.setMinimumIdle(10);
+        config.setConnectionTimeout(250);
+        dataSource = new HikariDataSource(config);
+
+        BlobStores blobStores = blobStores();
+        StorageRef pdf = blobStores.put(BlobStores.Content.PAPERS, "DBMS.pdf", "application/pdf",
+                new ByteArrayInputStream(new byte[5 * 1024])).ref();
+
+        context = new GenericWebApplicationContext(new MockServletContext());
+        // Registered as finished objects so the mocks' inherited @Autowired fields are left alone
+        register("blobStores", blobStores);
+        register("paperRepository", paperRepository(pdf));
+        register("noteRepository", noteRepository(pdf));
+        register("globalSettingsService", settingsService());
+        register("currentUserService", mock(CurrentUserService.class));
+        register("userRepo", mock(UserRepo.class));
+        register("paperViewLogRepository", mock(PaperViewLogRepository.class));
+        register("userActivityWriteBehind", mock(UserActivityWriteBehind.class));
+        register("tokenGenerationService", mock(TokenGenerationService.class));
+        register("fileStorageService", mock(FileStorageService.class));
+        register("paperBulkUploadService", mock(PaperBulkUploadService.class));
+        register("paperArchiveService", mock(PaperArchiveService.class));
+        new AnnotatedBeanDefinitionReader(context).register(TestConfig.class);
+        context.refresh();
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+        dataSource.close();
+    }
+
+    @Test
+    void slowDownloadsDoNotHoldPooledConnections() throws Exception {
+        List<Future<Integer>> results = download(DOWNLOADS);
+
+        for (Future<Integer> result : results) {
+            assertEquals(200, result.get());
+        }
+        assertEquals(0, dataSource.getHikariPoolMXBean().getActiveConnections());
+    }
+
+    @Test
+    void openInViewEndpointsStillPinAConnectionPerRequest() throws Exception {
+        // Control: the real note download on a path that keeps open-in-view exhausts the pool
+        List<Future<Integer>> results = download("/api/notes/slow/");
+
+        long failed = 0;
+        for (Future<Integer> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                failed++;
+            }
+        }
+        assertTrue(failed > 0, "expected pool timeouts with open-in-view");
+    }
+
+    @Test
+    void everyFileStreamingHandlerIsExcludedFromOpenInView() throws NoSuchMethodException {
+        List<Method> handlers = List.of(
+                PaperController.class.getMethod("proxyDownload", Long.class, HttpHeaders.class),
+                PaperController.class.getMethod("downloadPaper", String.class),
+                PaperController.class.getMethod("downloadBatch", String.class, int.class, String.class),
+                PaperUploadController.class.getMethod("viewPendingPaper", Long.class, HttpHeaders.class),
+                PublicPaperController.class.getMethod("downloadPaper", Long.class, String.class, HttpHeaders.class),
+                NoteController.class.getMethod("downloadNote", Long.class, HttpHeaders.class));
+
+        for (Method handler : handlers) {
+            String path = handler.getDeclaringClass().getAnnotation(RequestMapping.class).value()[0]
+                    + handler.getAnnotation(GetMapping.class).value()[0];
+            String sample = path.replaceAll("\\{[^}]+}", "1");
+            boolean excluded = Arrays.stream(WebConfig.STREAMING_PATHS)
+                    .anyMatch(pattern -> PathPatternParser.defaultInstance.parse(pattern)
+                            .matches(PathContainer.parsePath(sample)));
+            assertTrue(excluded, path + " streams a file but is not in WebConfig.STREAMING_PATHS");
+        }
+    }
+
+    private List<Future<Integer>> download(String... paths) throws InterruptedException {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            String url = paths[i % paths.length] + (i + 1);
+            results.add(clients.submit(() -> {
+                start.await();
+                SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                        "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+                try {
+                    return mockMvc.perform(get(url)).andReturn().getResponse().getStatus();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+        start.countDown();
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(30, TimeUnit.SECONDS));
+        return results;
+    }
+
+    private void register(String name, Object bean) {
+        context.getBeanFactory().registerSingleton(name, bean);
+    }
+
+    // A local store whose reads take as long as a slow client needs to receive the PDF
+    private BlobStores blobStores() throws IOException {
+        LocalBlobStore store = new LocalBlobStore() {
+            @Override
+            public BlobContent get(String fileId) throws IOException {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return super.get(fileId);
+            }
+        };
+        ReflectionTestUtils.setField(store, "directory", dir.toString());
+        ReflectionTestUtils.setField(store, "meterRegistry", new SimpleMeterRegistry());
+        store.init();
+
+        BlobStores blobStores = new BlobStores();
+        ReflectionTestUtils.setField(blobStores, "stores", List.<BlobStore>of(store));
+        ReflectionTestUtils.setField(blobStores, "papersBackend", "local");
+        ReflectionTestUtils.setField(blobStores, "notesBackend", "local");
+        blobStores.init();
+        return blobStores;
+    }
+
+    private static PaperRepository paperRepository(StorageRef pdf) {
+        PaperRepository repository = mock(PaperRepository.class);
+        when(repository.findById(anyLong())).thenAnswer(invocation -> {
+            query();
+            Paper paper = new Paper();
+            paper.setId(invocation.getArgument(0));
+            paper.setTitle("DBMS");
+            paper.setStorage(pdf);
+            return Optional.of(paper);
+        });
+        return repository;
+    }
+
+    private static NoteRepository noteRepository(StorageRef pdf) {
+        NoteRepository repository = mock(NoteRepository.class);
+        when(repository.findById(anyLong())).thenAnswer(invocation -> {
+            query();
+            Note note = new Note();
+            note.setId(invocation.getArgument(0));
+            note.setTitle("DBMS");
+            note.setVisibility("ALL");
+            note.setStorage(pdf);
+            return Optional.of(note);
+        });
+        return repository;
+    }
+
+    private static GlobalSettingsService settingsService() {
+        GlobalSettingsService settingsService = mock(GlobalSettingsService.class);
+        when(settingsService.getSettings()).thenReturn(new GlobalSettings());
+        return settingsService;
+    }
+
+    // Outside open-in-view a repository call borrows a connection and returns it straight away
+    private static void query() throws SQLException {
+        if (!TransactionSynchronizationManager.hasResource(entityManagerFactory)) {
+            try (Connection connection = dataSource.getConnection()) {
+                assertNotNull(connection);
+            }
+        }
+    }
+
+    private static DataSource stubDataSource() {
+        DataSource stub = mock(DataSource.class);
+        try {
+            when(stub.getConnection()).thenAnswer(invocation -> stubConnection());
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return stub;
+    }
+
+    private static Connection stubConnection() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "isValid", "getAutoCommit" -> true;
+                    case "isClosed", "isReadOnly" -> false;
+                    case "getTransactionIsolation" -> Connection.TRANSACTION_READ_COMMITTED;
+                    case "getNetworkTimeout" -> 0;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @Import({ WebConfig.class, PaperController.class, PublicPaperController.class, NoteController.class })
+    static class TestConfig {
+
+        @Bean
+        CurrentUserArgumentResolver currentUserArgumentResolver() {
+            return new CurrentUserArgumentResolver(new SimpleMeterRegistry());
+        }
+
+        @Bean
+        EntityManagerFactory entityManagerFactory() {
+            EntityManagerFactory factory = mock(EntityManagerFactory.class);
+            when(factory.createEntityManager()).thenAnswer(invocation -> {
+                Connection connection = dataSource.getConnection();
+                EntityManager entityManager = mock(EntityManager.class);
+                when(entityManager.isOpen()).thenReturn(true);
+                doAnswer(close -> {
+                    connection.close();
+                    return null;
+                }).when(entityManager).close();
+                return entityManager;
+            });
+            entityManagerFactory = factory;
+            return factory;
+        }
+
+        @Bean
+        SlowPathController slowPathController(NoteController noteController) {
+            return new SlowPathController(noteController);
+        }
+    }
+
+    // The real note download, mapped where open-in-view still applies
+    @RestController
+    static class SlowPathController {
+
+        private final NoteController noteController;
+
+        SlowPathController(NoteController noteController) {
+            this.noteController = noteController;
+        }
+
+        @GetMapping("/api/notes/slow/{id}")
+        ResponseEntity<?> slow(@PathVariable Long id, @RequestHeader HttpHeaders requestHeaders) {
+            return noteController.downloadNote(id, requestHeaders);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.abhi.authProject.controller;
+
+import com.abhi.authProject.model.Users;
+import com.abhi.authProject.repo.UserRepo;
+import com.abhi.authProject.service.LoginThrottleService;
+import com.abhi.authProject.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AuthControllerLoginTest {
+
+    private AuthController controller;
+    private UserService userService;
+    private LoginThrottleService throttle;
+
+    @BeforeEach
+    void setUp() {
+        Users user = new Users();
+        user.setUsername("alice");
+        user.setPassword("{bcrypt}hash");
+        user.setRole("USER");
+        user.setVerified(true);
+        UserRepo userRepo = mock(UserRepo.class);
+        when(userRepo.findByComputerCodeOrUsername("alice")).thenReturn(Optional.of(user));
+
+        userService = mock(UserService.class);
+
+        throttle = new LoginThrottleService();
+        ReflectionTestUtils.setField(throttle, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(throttle, "ipMaxAttempts", 50);
+        ReflectionTestUtils.setField(throttle, "identifierMaxFailures", 3);
+        throttle.init();
+
+        controller = new AuthController();
+        ReflectionTestUtils.setField(controller, "userRepo", userRepo);
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        ReflectionTestUtils.setField(controller, "loginThrottleService", throttle);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void saturatedHashingPoolIsReportedAs503WithRetryAfter() {
+        when(userService.verifyAndLogin(any(Users.class), anyString()))
+                .thenThrow(new RejectedExecutionException("Too many concurrent logins. Please retry shortly."));
+
+        ResponseEntity<?> response = login();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(Map.of("message", "Too many concurrent logins. Please retry shortly."), response.getBody());
+    }
+
+    @Test
+    void shedLoginsDoNotCountAsFailedPasswords() {
+        when(userService.verifyAndLogin(any(Users.class), anyString()))
+                .thenThrow(new RejectedExecutionException("Too many concurrent logins. Please retry shortly."));
+
+        // More shed attempts than the identifier's failure budget
+        for (int i = 0; i < 4; i++) {
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, login().getStatusCode());
+        }
+
+        assertEquals(0, throttle.checkAndRecordAttempt("alice", "10.0.0.2"));
+    }
+
+    private ResponseEntity<?> login() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr("10.0.0.1");
+        return controller.login(new AuthController.LoginRequest("alice", null, "secret"), request);
+    }
+}
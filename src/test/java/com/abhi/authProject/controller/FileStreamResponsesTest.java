@@ -0,0 +1,82 @@
+package com.abhi.authProject.controller;
+
+import com.abhi.authProject.model.StorageRef;
+import com.abhi.authProject.service.BlobContent;
+import com.abhi.authProject.service.DriveContentCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileStreamResponsesTest {
+
+    private static final LocalDateTime DRIVE_MODIFIED = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @TempDir
+    Path dir;
+
+    private DriveContentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new DriveContentCache();
+        ReflectionTestUtils.setField(cache, "directory", dir.toString());
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+    }
+
+    @Test
+    void lastModifiedIsTheStoredTimeNotTheFetchTime() throws IOException {
+        StorageRef storage = new StorageRef(StorageRef.DRIVE, "file-a", 4L, null, "application/pdf", DRIVE_MODIFIED);
+        long driveModified = DRIVE_MODIFIED.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        ResponseEntity<?> first = FileStreamResponses.pdf(fetch(), storage, new HttpHeaders(), "inline");
+        assertEquals(driveModified, first.getHeaders().getLastModified());
+
+        // A refetch after eviction, or another instance, still validates the client's copy
+        HttpHeaders request = new HttpHeaders();
+        request.setIfModifiedSince(driveModified);
+        ResponseEntity<?> refetched = FileStreamResponses.pdf(fetch(), storage, request, "inline");
+        assertEquals(HttpStatus.NOT_MODIFIED, refetched.getStatusCode());
+    }
+
+    @Test
+    void rowsWithoutStoredTimeFallBackToFetchTime() throws IOException {
+        BlobContent file = fetch();
+        long fetchedAt = file.lastModifiedMillis();
+
+        ResponseEntity<?> response = FileStreamResponses.pdf(file, null, new HttpHeaders(), "inline");
+
+        assertEquals(fetchedAt / 1000 * 1000, response.getHeaders().getLastModified());
+    }
+
+    @Test
+    void ifModifiedSinceIsAnsweredFromTheStoredTimeBeforeFetching() {
+        StorageRef storage = new StorageRef(StorageRef.DRIVE, "file-a", 4L, "abc", "application/pdf", DRIVE_MODIFIED);
+        HttpHeaders request = new HttpHeaders();
+        request.setIfModifiedSince(DRIVE_MODIFIED.plusDays(1).atZone(ZoneId.systemDefault()).toInstant());
+
+        ResponseEntity<?> response = FileStreamResponses.notModified(storage, request);
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(FileStreamResponses.notModified(storage, new HttpHeaders()));
+    }
+
+    private BlobContent fetch() throws IOException {
+        cache.invalidate("file-a");
+        return cache.fill("file-a", new ByteArrayInputStream("%PDF".getBytes()));
+    }
+}
@@ -0,0 +1,158 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.config.CurrentUser;
+import com.abhi.authProject.config.CurrentUserArgumentResolver;
+import com.abhi.authProject.model.UserAuthView;
+import com.abhi.authProject.model.Users;
+import com.abhi.authProject.repo.UserRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CurrentUserServiceTest {
+
+    private CurrentUserService service;
+    private UserRepo userRepo;
+    private SimpleMeterRegistry meterRegistry;
+    private ServletRequestAttributes request;
+
+    @BeforeEach
+    void setUp() {
+        UserAuthView view = mock(UserAuthView.class);
+        when(view.getUsername()).thenReturn("alice");
+        Users entity = new Users();
+        entity.setUsername("alice");
+
+        userRepo = mock(UserRepo.class);
+        when(userRepo.findAuthViewByUsername("alice")).thenReturn(Optional.of(view));
+        when(userRepo.findByUsername("alice")).thenReturn(Optional.of(entity));
+
+        meterRegistry = new SimpleMeterRegistry();
+        service = new CurrentUserService();
+        ReflectionTestUtils.setField(service, "userRepo", userRepo);
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        service.init();
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("alice", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        request = newRequest();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void viewIsLookedUpAtMostOncePerRequest() {
+        UserAuthView first = service.currentView();
+
+        assertSame(first, service.currentView());
+        assertSame(first, service.currentView());
+        verify(userRepo, times(1)).findAuthViewByUsername("alice");
+        assertEquals(1, CurrentUserService.lookupCount(request));
+    }
+
+    @Test
+    void laterRequestsReuseTheSharedViewUntilEvicted() {
+        service.currentView();
+
+        ServletRequestAttributes second = newRequest();
+        assertNotNull(service.currentView());
+        assertEquals(0, CurrentUserService.lookupCount(second));
+
+        service.evict("alice");
+        ServletRequestAttributes third = newRequest();
+        assertNotNull(service.currentView());
+        assertEquals(1, CurrentUserService.lookupCount(third));
+        verify(userRepo, times(2)).findAuthViewByUsername("alice");
+    }
+
+    @Test
+    void sharedViewExpiresAfterTheTtl() {
+        ReflectionTestUtils.setField(service, "ttlSeconds", 0L);
+        service.currentView();
+
+        ServletRequestAttributes second = newRequest();
+        service.currentView();
+
+        assertEquals(1, CurrentUserService.lookupCount(second));
+    }
+
+    @Test
+    void entityIsMemoisedPerRequestButNeverShared() {
+        Users first = service.currentEntity();
+        assertSame(first, service.currentEntity());
+        assertEquals(1, CurrentUserService.lookupCount(request));
+
+        ServletRequestAttributes second = newRequest();
+        service.currentEntity();
+
+        assertEquals(1, CurrentUserService.lookupCount(second));
+        verify(userRepo, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void anonymousCallerResolvesToNullWithoutALookup() {
+        SecurityContextHolder.clearContext();
+
+        assertNull(service.currentView());
+        assertNull(service.currentEntity());
+        verifyNoInteractions(userRepo);
+    }
+
+    @Test
+    void resolverSharesTheRequestMemoAndRecordsLookupsPerRequest() throws Exception {
+        CurrentUserArgumentResolver resolver = new CurrentUserArgumentResolver(meterRegistry);
+        ReflectionTestUtils.setField(resolver, "currentUserService", service);
+        Method handler = CurrentUserServiceTest.class.getDeclaredMethod("handler", UserAuthView.class, Users.class,
+                UserAuthView.class);
+        MethodParameter viewParam = new MethodParameter(handler, 0);
+        MethodParameter entityParam = new MethodParameter(handler, 1);
+        MethodParameter plainParam = new MethodParameter(handler, 2);
+        ServletWebRequest webRequest = new ServletWebRequest(request.getRequest());
+
+        assertTrue(resolver.supportsParameter(viewParam));
+        assertTrue(resolver.supportsParameter(entityParam));
+        assertFalse(resolver.supportsParameter(plainParam));
+
+        Object view = resolver.resolveArgument(viewParam, null, webRequest, null);
+        // A controller that also asks the service directly gets the same memoised view
+        assertSame(view, service.currentView());
+        assertInstanceOf(Users.class, resolver.resolveArgument(entityParam, null, webRequest, null));
+
+        resolver.afterCompletion(request.getRequest(), new MockHttpServletResponse(), null, null);
+
+        verify(userRepo, times(1)).findAuthViewByUsername("alice");
+        assertEquals(2.0, meterRegistry.get("users.lookups.per-request").summary().totalAmount());
+    }
+
+    @SuppressWarnings("unused")
+    private void handler(@CurrentUser UserAuthView view, @CurrentUser Users user, UserAuthView plain) {
+    }
+
+    private static ServletRequestAttributes newRequest() {
+        ServletRequestAttributes attributes = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+        return attributes;
+    }
+}
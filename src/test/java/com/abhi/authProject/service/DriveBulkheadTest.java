@@ -0,0 +1,77 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DriveBulkheadTest {
+
+    private DriveBulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        bulkhead = new DriveBulkhead();
+        ReflectionTestUtils.setField(bulkhead, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bulkhead, "initialLimit", 4);
+        ReflectionTestUtils.setField(bulkhead, "queueSize", 1);
+        ReflectionTestUtils.setField(bulkhead, "queueWaitMs", 50L);
+        bulkhead.init();
+    }
+
+    @Test
+    void limitGrowsWhileLatencyIsSteadyAndShrinksWhenDriveSlowsDown() {
+        for (int i = 0; i < 50; i++) {
+            runAtLimit(100);
+        }
+        int grown = bulkhead.getLimit();
+        assertTrue(grown > 4, "limit should grow under steady latency, was " + grown);
+
+        for (int i = 0; i < 10; i++) {
+            runAtLimit(2000);
+        }
+        assertTrue(bulkhead.getLimit() < grown / 2, "limit should shrink when latency rises, was "
+                + bulkhead.getLimit());
+    }
+
+    @Test
+    void failuresCutTheLimitDownToTheMinimum() {
+        for (int i = 0; i < 50; i++) {
+            bulkhead.acquire();
+            bulkhead.release(-1, true);
+        }
+        assertEquals(2, bulkhead.getLimit());
+    }
+
+    @Test
+    void callersBeyondLimitAndQueueAreRejected() {
+        for (int i = 0; i < 4; i++) {
+            bulkhead.acquire();
+        }
+
+        long start = System.nanoTime();
+        DriveBulkhead.Rejected rejected = assertThrows(DriveBulkhead.Rejected.class, bulkhead::acquire);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), "should queue before shedding");
+        assertEquals(5, rejected.getRetryAfterSeconds());
+
+        // A slot freed while queued is handed to the waiter
+        bulkhead.release(TimeUnit.MILLISECONDS.toNanos(100), false);
+        bulkhead.acquire();
+        assertEquals(4, bulkhead.getInflight());
+    }
+
+    // Fills every slot, then completes them all with the given time to first byte
+    private void runAtLimit(long latencyMs) {
+        int slots = bulkhead.getLimit();
+        for (int i = 0; i < slots; i++) {
+            bulkhead.acquire();
+        }
+        for (int i = 0; i < slots; i++) {
+            bulkhead.release(TimeUnit.MILLISECONDS.toNanos(latencyMs), false);
+        }
+    }
+}
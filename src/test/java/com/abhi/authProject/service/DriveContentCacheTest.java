@@ -0,0 +1,117 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DriveContentCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private DriveContentCache cache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new DriveContentCache();
+        ReflectionTestUtils.setField(cache, "directory", dir.toString());
+        ReflectionTestUtils.setField(cache, "maxBytes", 250L);
+        ReflectionTestUtils.setField(cache, "maxFileBytes", 200L);
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        cache.init();
+    }
+
+    @Test
+    void missThenFillThenHitServesSameBytes() throws IOException {
+        byte[] pdf = bytes(100, (byte) 7);
+
+        assertNull(cache.open("file-a"));
+        assertArrayEquals(pdf, read(cache.fill("file-a", new ByteArrayInputStream(pdf))));
+        assertArrayEquals(pdf, read(cache.open("file-a")));
+
+        assertEquals(1, meterRegistry.counter("drive.cache.requests", "result", "hit").count());
+        assertEquals(1, meterRegistry.counter("drive.cache.requests", "result", "miss").count());
+        assertEquals(100, meterRegistry.counter("drive.cache.served.bytes", "source", "cache").count());
+        // Only the renamed file and its MD5 remain, no partial temp files
+        try (var files = Files.list(dir)) {
+            assertEquals(List.of("file-a", "file-a.md5"), files.map(f -> f.getFileName().toString()).sorted().toList());
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenFull() throws IOException {
+        cache.fill("file-a", new ByteArrayInputStream(bytes(100, (byte) 1))).close();
+        cache.fill("file-b", new ByteArrayInputStream(bytes(100, (byte) 2))).close();
+        cache.open("file-a").close(); // a is now more recent than b
+
+        cache.fill("file-c", new ByteArrayInputStream(bytes(100, (byte) 3))).close();
+
+        assertNotNull(cache.open("file-a"));
+        assertNull(cache.open("file-b"));
+        assertNotNull(cache.open("file-c"));
+        assertEquals(200, cache.sizeBytes());
+        assertFalse(Files.exists(dir.resolve("file-b")));
+        assertFalse(Files.exists(dir.resolve("file-b.md5")));
+    }
+
+    @Test
+    void oversizedFileIsServedButNotKept() throws IOException {
+        byte[] large = bytes(240, (byte) 9);
+
+        assertArrayEquals(large, read(cache.fill("file-big", new ByteArrayInputStream(large))));
+
+        assertNull(cache.open("file-big"));
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void reloadsExistingEntriesOnStartup() throws IOException {
+        String md5;
+        try (BlobContent file = cache.fill("file-a", new ByteArrayInputStream(bytes(50, (byte) 1)))) {
+            md5 = file.md5();
+        }
+        Files.write(dir.resolve("file-x.123.part"), bytes(10, (byte) 0));
+        // Cached without its MD5: dropped instead of rehashed
+        Files.write(dir.resolve("file-y"), bytes(10, (byte) 0));
+
+        DriveContentCache restarted = new DriveContentCache();
+        ReflectionTestUtils.setField(restarted, "directory", dir.toString());
+        ReflectionTestUtils.setField(restarted, "meterRegistry", new SimpleMeterRegistry());
+        restarted.init();
+
+        try (BlobContent file = restarted.open("file-a")) {
+            assertEquals(md5, file.md5());
+        }
+        assertNull(restarted.open("file-y"));
+        assertFalse(Files.exists(dir.resolve("file-y")));
+        assertFalse(Files.exists(dir.resolve("file-x.123.part")));
+    }
+
+    private static byte[] read(BlobContent file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        file.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int size, byte value) {
+        byte[] data = new byte[size];
+        Arrays.fill(data, value);
+        return data;
+    }
+}
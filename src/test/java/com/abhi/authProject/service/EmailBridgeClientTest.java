@@ -0,0 +1,95 @@
+package com.abhi.authProject.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailBridgeClientTest {
+
+    private HttpServer server;
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile int status = 302;
+    private volatile long delayMs = 0;
+
+    private EmailBridgeClient client;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/exec", exchange -> {
+            calls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (status == 302) {
+                exchange.getResponseHeaders().add("Location", "http://127.0.0.1/echo");
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        client = new EmailBridgeClient();
+        ReflectionTestUtils.setField(client, "googleScriptUrl",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/exec");
+        ReflectionTestUtils.setField(client, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(client, "readTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(client, "failureThreshold", 3);
+        ReflectionTestUtils.setField(client, "openSeconds", 60L);
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void redirectFromBridgeCountsAsSuccess() throws IOException {
+        client.send("key-1", "verification", "student@example.com", "Subject", "<p>Hi</p>");
+
+        assertEquals(1, calls.get());
+        assertEquals(1, meterRegistry.timer("email.bridge.send", "template", "verification", "outcome", "success")
+                .count());
+    }
+
+    @Test
+    void slowBridgeTimesOut() {
+        delayMs = 3000;
+
+        long start = System.currentTimeMillis();
+        assertThrows(IOException.class,
+                () -> client.send("key-1", "generic", "student@example.com", "Subject", "<p>Hi</p>"));
+        assertTrue(System.currentTimeMillis() - start < 3000);
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndFailsFast() {
+        status = 500;
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IOException.class,
+                    () -> client.send("key", "status-update", "student@example.com", "Subject", "<p>Hi</p>"));
+        }
+        assertTrue(client.isCircuitOpen());
+
+        // Further calls are rejected without reaching the bridge
+        assertThrows(IOException.class,
+                () -> client.send("key", "status-update", "student@example.com", "Subject", "<p>Hi</p>"));
+        assertEquals(3, calls.get());
+    }
+}
@@ -0,0 +1,52 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailOutboxServiceTest {
+
+    private EmailOutboxService outbox;
+
+    @BeforeEach
+    void setUp() {
+        outbox = new EmailOutboxService();
+        ReflectionTestUtils.setField(outbox, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outbox, "workers", 4);
+        ReflectionTestUtils.setField(outbox, "ratePerSecond", 10.0);
+        outbox.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outbox.shutdown();
+    }
+
+    @Test
+    void sendsAreLimitedToTheConfiguredRate() throws InterruptedException {
+        // A full bucket allows one second's worth at once
+        assertEquals(10, outbox.takeSendTokens(50));
+
+        long start = System.nanoTime();
+        int sent = 0;
+        while (sent < 5) {
+            sent += outbox.takeSendTokens(5 - sent);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs >= 400, "5 more sends at 10/s took only " + elapsedMs + " ms");
+    }
+
+    @Test
+    void zeroRateDisablesPacing() throws InterruptedException {
+        ReflectionTestUtils.setField(outbox, "ratePerSecond", 0.0);
+
+        assertEquals(500, outbox.takeSendTokens(500));
+    }
+}
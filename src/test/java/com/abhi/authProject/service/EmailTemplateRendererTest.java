@@ -0,0 +1,76 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.PendingNotification;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailTemplateRendererTest {
+
+    private final EmailTemplateRenderer renderer = new EmailTemplateRenderer();
+
+    @Test
+    void renderEscapesModelValues() {
+        String html = renderer.render("status-update",
+                EmailService.model("name", "<b>Alice</b>", "title", "Dev", "company", "Acme", "status", "SHORTLISTED"));
+
+        assertTrue(html.contains("Hi &lt;b&gt;Alice&lt;/b&gt;,"));
+        assertTrue(html.contains("<strong>SHORTLISTED</strong>"));
+    }
+
+    @Test
+    void optionalSectionsAreOmittedForNullValues() {
+        String html = renderer.render("interview-booked", EmailService.model("applicantName", "Alice",
+                "jobTitle", "Dev", "companyName", "Acme", "dateTime", "01-01-2026 10:00:00",
+                "link", null, "location", "Room 4"));
+
+        assertFalse(html.contains("Meeting Link"));
+        assertTrue(html.contains("Location: Room 4"));
+    }
+
+    @Test
+    void optionalSectionsAreOmittedForBlankValues() {
+        String html = renderer.render("interview-booked", EmailService.model("applicantName", "Alice",
+                "jobTitle", "Dev", "companyName", "Acme", "dateTime", "01-01-2026 10:00:00",
+                "link", "", "location", "   "));
+
+        assertFalse(html.contains("Meeting Link"));
+        assertFalse(html.contains("Location:"));
+    }
+
+    @Test
+    void batchRendersEachRecipientWithSharedFields() {
+        EmailTemplateRenderer.Batch batch = renderer.batch("new-job-alert",
+                Map.of("jobTitle", "Dev", "company", "Acme", "salary", "100", "applyLink", "https://example.com/apply"));
+
+        String first = batch.with("studentName", "Alice").render();
+        String second = batch.with("studentName", "Bob").render();
+
+        assertTrue(first.contains("Hi Alice, New Job Posted!"));
+        assertTrue(second.contains("Hi Bob, New Job Posted!"));
+        assertFalse(second.contains("Alice"));
+        assertTrue(second.contains("href=\"https://example.com/apply\""));
+        assertEquals(renderer.render("new-job-alert", Map.of("studentName", "Bob", "jobTitle", "Dev",
+                "company", "Acme", "salary", "100", "applyLink", "https://example.com/apply")), second);
+    }
+
+    @Test
+    void mergedNotificationsListOnlyNonEmptySections() {
+        PendingNotification status = new PendingNotification();
+        status.setSummary("Dev at Acme: Selected");
+        PendingNotification job = new PendingNotification();
+        job.setSummary("Tester at Initech");
+        job.setLink("https://example.com/apply");
+
+        String html = renderer.render("notification-summary",
+                EmailService.model("statuses", List.of(status), "jobs", List.of(job), "drives", null));
+
+        assertTrue(html.contains("<li>Dev at Acme: Selected</li>"));
+        assertTrue(html.contains("Tester at Initech"));
+        assertTrue(html.contains("href=\"https://example.com/apply\""));
+        assertFalse(html.contains("New interview drives"));
+    }
+}
@@ -0,0 +1,167 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileStorageServiceTest {
+
+    private static final byte[] PDF = "%PDF-1.4 paper".getBytes();
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger driveCalls = new AtomicInteger();
+    private volatile boolean driveFails;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DriveContentCache cache;
+    private CachedDownloads downloads;
+    private FileStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        cache = new DriveContentCache();
+        ReflectionTestUtils.setField(cache, "directory", dir.toString());
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        cache.init();
+
+        // Slow stand-in for Drive so concurrent requests overlap
+        storage = new FileStorageService() {
+            @Override
+            public InputStream getFileStream(String fileId) throws IOException {
+                driveCalls.incrementAndGet();
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (driveFails) {
+                    throw new IOException("Drive returned 500");
+                }
+                return new ByteArrayInputStream(PDF);
+            }
+        };
+        DriveBulkhead bulkhead = new DriveBulkhead();
+        ReflectionTestUtils.setField(bulkhead, "meterRegistry", meterRegistry);
+        bulkhead.init();
+        downloads = new CachedDownloads();
+        ReflectionTestUtils.setField(downloads, "contentCache", cache);
+        ReflectionTestUtils.setField(downloads, "bulkhead", bulkhead);
+        ReflectionTestUtils.setField(downloads, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(storage, "driveContentCache", cache);
+        ReflectionTestUtils.setField(storage, "cachedDownloads", downloads);
+    }
+
+    @Test
+    void concurrentMissesShareOneDriveFetch() throws Exception {
+        List<Future<byte[]>> results = runConcurrently(20);
+
+        for (Future<byte[]> result : results) {
+            assertArrayEquals(PDF, result.get());
+        }
+        assertEquals(1, driveCalls.get());
+    }
+
+    @Test
+    void fetchFailureIsPropagatedToWaitingRequests() throws Exception {
+        driveFails = true;
+
+        List<Future<byte[]>> results = runConcurrently(10);
+
+        for (Future<byte[]> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertInstanceOf(IOException.class, e.getCause());
+        }
+        assertEquals(1, driveCalls.get());
+    }
+
+    @Test
+    void filesTooLargeToCacheAreStillFetchedOnce() throws Exception {
+        ReflectionTestUtils.setField(cache, "maxFileBytes", 4L);
+
+        List<Future<byte[]>> results = runConcurrently(20);
+
+        for (Future<byte[]> result : results) {
+            assertArrayEquals(PDF, result.get());
+        }
+        assertEquals(1, driveCalls.get());
+        assertEquals(0, cache.entryCount());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count(), "temp copy is deleted once every reader closed it");
+        }
+    }
+
+    @Test
+    void waitingRequestsGetTheLeadersRejection() throws Exception {
+        DriveBulkhead bulkhead = new DriveBulkhead();
+        ReflectionTestUtils.setField(bulkhead, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(bulkhead, "initialLimit", 2);
+        ReflectionTestUtils.setField(bulkhead, "queueWaitMs", 200L);
+        bulkhead.init();
+        bulkhead.acquire();
+        bulkhead.acquire();
+        ReflectionTestUtils.setField(downloads, "bulkhead", bulkhead);
+
+        List<Future<byte[]>> results = runConcurrently(10);
+
+        for (Future<byte[]> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertInstanceOf(DriveBulkhead.Rejected.class, e.getCause());
+        }
+        assertEquals(0, driveCalls.get());
+    }
+
+    @Test
+    void waitingTooLongForAnotherDownloadIsRejected() throws Exception {
+        ReflectionTestUtils.setField(downloads, "fetchWaitTimeoutMs", 50L);
+
+        List<Future<byte[]>> results = runConcurrently(10);
+
+        int served = 0;
+        for (Future<byte[]> result : results) {
+            try {
+                assertArrayEquals(PDF, result.get());
+                served++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(DriveBulkhead.Rejected.class, e.getCause());
+            }
+        }
+        assertEquals(1, served, "only the request doing the download is served");
+        assertEquals(1, driveCalls.get());
+    }
+
+    private List<Future<byte[]>> runConcurrently(int requests) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                storage.openFile("paper-1").writeTo(out);
+                return out.toByteArray();
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        return results;
+    }
+}
@@ -0,0 +1,208 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.JobAlertRecipient;
+import com.abhi.authProject.model.JobAlertRun;
+import com.abhi.authProject.model.JobDetails;
+import com.abhi.authProject.repo.JobAlertRunRepository;
+import com.abhi.authProject.repo.JobDetailsRepo;
+import com.abhi.authProject.repo.UserRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class JobAlertServiceTest {
+
+    private record Student(int id, String branch, int semester) implements JobAlertRecipient {
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public String getEmail() {
+            return "s" + id + "@test.com";
+        }
+
+        @Override
+        public String getUsername() {
+            return "s" + id;
+        }
+
+        @Override
+        public String getName() {
+            return null;
+        }
+
+        @Override
+        public boolean isDigestOptIn() {
+            return false;
+        }
+    }
+
+    private final Map<Long, JobAlertRun> runs = new HashMap<>();
+    private final List<Student> students = new ArrayList<>();
+    private final List<String> alerted = new ArrayList<>();
+    private Consumer<String> onAlert = to -> {
+    };
+
+    private JobAlertService service;
+    private JobDetails job;
+
+    @BeforeEach
+    void setUp() {
+        job = new JobDetails();
+        job.setId(7);
+        job.setTitle("Backend Intern");
+        job.setCompany_name("Acme");
+        job.setApply_link("https://acme.test/apply");
+
+        JobAlertRunRepository runRepository = mock(JobAlertRunRepository.class);
+        when(runRepository.findById(anyLong())).thenAnswer(i -> Optional.ofNullable(runs.get(i.<Long>getArgument(0))));
+        when(runRepository.findByJobId(anyInt())).thenAnswer(i -> runs.values().stream()
+                .filter(r -> r.getJobId() == i.<Integer>getArgument(0)).findFirst());
+        when(runRepository.findByStatus(anyString())).thenAnswer(i -> runs.values().stream()
+                .filter(r -> r.getStatus().equals(i.getArgument(0))).toList());
+        when(runRepository.save(any(JobAlertRun.class))).thenAnswer(i -> {
+            JobAlertRun run = i.getArgument(0);
+            if (run.getId() == null) {
+                run.setId((long) runs.size() + 1);
+            }
+            runs.put(run.getId(), run);
+            return run;
+        });
+
+        JobDetailsRepo jobRepository = mock(JobDetailsRepo.class);
+        when(jobRepository.findById(7)).thenAnswer(i -> Optional.of(job));
+
+        // Same audience rules as UserRepo.JOB_ALERT_AUDIENCE
+        UserRepo userRepo = mock(UserRepo.class);
+        when(userRepo.findJobAlertRecipients(anyBoolean(), anyCollection(), anyBoolean(), anyCollection(), anyInt(),
+                any(Pageable.class))).thenAnswer(i -> audience(i.getArgument(0), i.getArgument(1), i.getArgument(2),
+                        i.getArgument(3)).stream()
+                .filter(s -> s.id() > i.<Integer>getArgument(4))
+                .limit(i.<Pageable>getArgument(5).getPageSize())
+                .map(s -> (JobAlertRecipient) s)
+                .toList());
+        when(userRepo.countJobAlertRecipients(anyBoolean(), anyCollection(), anyBoolean(), anyCollection()))
+                .thenAnswer(i -> (long) audience(i.getArgument(0), i.getArgument(1), i.getArgument(2),
+                        i.getArgument(3)).size());
+
+        EmailService emailService = mock(EmailService.class);
+        doAnswer(i -> {
+            String to = i.getArgument(2);
+            onAlert.accept(to);
+            alerted.add(to);
+            return null;
+        }).when(emailService).queueNewJobAlert(anyString(), any(), anyString(), anyString(), anyString(),
+                anyString(), anyString(), anyBoolean());
+
+        service = new JobAlertService();
+        ReflectionTestUtils.setField(service, "runRepository", runRepository);
+        ReflectionTestUtils.setField(service, "jobRepository", jobRepository);
+        ReflectionTestUtils.setField(service, "userRepo", userRepo);
+        ReflectionTestUtils.setField(service, "emailService", emailService);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "pageSize", 2);
+        ReflectionTestUtils.setField(service, "concurrentRuns", 1);
+        service.init();
+        // Runs on the calling thread so each test sees the finished run
+        service.shutdown();
+        ReflectionTestUtils.setField(service, "executor", new ExecutorServiceAdapter(new SyncTaskExecutor()));
+
+        students.add(new Student(1, "MCA", 3));
+        students.add(new Student(2, "BCA", 5));
+        students.add(new Student(3, "MCA", 5));
+        students.add(new Student(4, "IMCA", 1));
+        students.add(new Student(5, "MCA", 5));
+    }
+
+    @Test
+    void emptyEligibilityListsAlertEveryStudent() {
+        JobAlertRun run = service.start(job);
+
+        assertEquals(5, run.getTotalRecipients());
+        assertEquals(5, run.getQueued());
+        assertEquals(5, run.getLastUserId());
+        assertEquals(JobAlertRun.COMPLETED, run.getStatus());
+        assertEquals(List.of("s1@test.com", "s2@test.com", "s3@test.com", "s4@test.com", "s5@test.com"), alerted);
+    }
+
+    @Test
+    void onlyMatchingBranchesAndSemestersAreAlerted() {
+        job.setEligibleBranches(List.of("MCA"));
+        job.setEligibleSemesters(List.of(5));
+
+        JobAlertRun run = service.start(job);
+
+        assertEquals(2, run.getTotalRecipients());
+        assertEquals(2, run.getQueued());
+        assertEquals(List.of("s3@test.com", "s5@test.com"), alerted);
+    }
+
+    @Test
+    void interruptedRunResumesAfterTheLastQueuedPage() {
+        // Shutdown lands while the second page is being queued; that page still commits
+        onAlert = to -> {
+            if (to.equals("s3@test.com")) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        JobAlertRun run = service.start(job);
+        Thread.interrupted();
+
+        assertEquals(JobAlertRun.RUNNING, run.getStatus());
+        assertEquals(4, run.getLastUserId());
+        assertEquals(4, run.getQueued());
+
+        onAlert = to -> {
+        };
+        service.resumeUnfinishedRuns();
+
+        assertEquals(JobAlertRun.COMPLETED, run.getStatus());
+        assertEquals(5, run.getQueued());
+        assertEquals(run.getTotalRecipients(), run.getQueued());
+        assertEquals(List.of("s1@test.com", "s2@test.com", "s3@test.com", "s4@test.com", "s5@test.com"), alerted);
+    }
+
+    @Test
+    void failedPageLeavesTheCursorAtTheLastCommittedPage() {
+        onAlert = to -> {
+            if (to.equals("s4@test.com")) {
+                throw new IllegalStateException("outbox insert failed");
+            }
+        };
+
+        JobAlertRun run = service.start(job);
+
+        assertEquals(JobAlertRun.FAILED, run.getStatus());
+        assertEquals(2, run.getLastUserId());
+        assertEquals(2, run.getQueued());
+        assertEquals("outbox insert failed", run.getLastError());
+    }
+
+    private List<Student> audience(boolean anyBranch, Collection<String> branches, boolean anySemester,
+            Collection<Integer> semesters) {
+        return students.stream()
+                .filter(s -> anyBranch || branches.contains(s.branch()))
+                .filter(s -> anySemester || semesters.contains(s.semester()))
+                .toList();
+    }
+}
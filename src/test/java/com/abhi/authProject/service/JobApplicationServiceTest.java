@@ -11,13 +11,16 @@ import com.abhi.authProject.repo.UserRepo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -41,14 +44,20 @@ public class JobApplicationServiceTest {
     @Mock
     private JobDetailsRepo jobDetailsRepo;
 
+    @Spy
+    private EmailTemplateRenderer emailTemplateRenderer = new EmailTemplateRenderer();
+
     @InjectMocks
     private JobApplicationService jobApplicationService;
 
+    @TempDir
+    Path resumeDir;
+
     @BeforeEach
     void setUp() {
         // Set values for @Value fields
         ReflectionTestUtils.setField(jobApplicationService, "recipientEmail", "admin@test.com");
-        ReflectionTestUtils.setField(jobApplicationService, "resumeStorageDirectory", "tmp/resumes");
+        ReflectionTestUtils.setField(jobApplicationService, "resumeStorageDirectory", resumeDir.toString());
     }
 
     @Test
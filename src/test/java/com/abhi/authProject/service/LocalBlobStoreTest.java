@@ -0,0 +1,98 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.StorageRef;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalBlobStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private LocalBlobStore store;
+    private BlobStores blobStores;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new LocalBlobStore();
+        ReflectionTestUtils.setField(store, "directory", dir.resolve("store").toString());
+        ReflectionTestUtils.setField(store, "meterRegistry", new SimpleMeterRegistry());
+        store.init();
+
+        blobStores = new BlobStores();
+        ReflectionTestUtils.setField(blobStores, "stores", List.of(store));
+        ReflectionTestUtils.setField(blobStores, "papersBackend", "local");
+        ReflectionTestUtils.setField(blobStores, "notesBackend", "local");
+        blobStores.init();
+    }
+
+    @Test
+    void uploadedPaperStreamsBackWholeAndByRange() throws IOException {
+        BlobStore.Stored stored = blobStores.put(BlobStores.Content.PAPERS, "DBMS Midsem.pdf",
+                "application/pdf", stream("%PDF-1.4 midsem"));
+
+        StorageRef ref = stored.ref();
+        assertEquals(StorageRef.LOCAL, ref.getProvider());
+        assertTrue(ref.getFileId().matches("papers/[0-9a-f-]{36}_DBMS_Midsem\\.pdf"), ref.getFileId());
+        assertEquals("/api/papers/download/" + ref.getFileId().substring("papers/".length()), stored.url());
+        assertEquals(15L, ref.getSizeBytes());
+        assertEquals("41c578c9b59174ce0f12aa573b41f35d", ref.getMd5());
+
+        BlobStores.Location location = blobStores.locate(ref, stored.url());
+        BlobContent file = location.open();
+        assertEquals(ref.getMd5(), file.md5());
+        assertEquals("%PDF-1.4 midsem", read(file));
+        assertEquals("midsem", read(store.get(ref.getFileId(), 9, 6)));
+        assertThrows(IllegalArgumentException.class, () -> store.get(ref.getFileId(), 10, 6));
+    }
+
+    @Test
+    void statListAndDelete() throws IOException {
+        StorageRef first = store.put("notes", "a.pdf", "application/pdf", stream("first")).ref();
+        StorageRef second = store.put("notes", "a.pdf", "application/pdf", stream("second")).ref();
+        assertNotEquals(first.getFileId(), second.getFileId());
+
+        assertEquals(first.getMd5(), store.stat(first.getFileId()).getMd5());
+        assertEquals(2, store.list("notes").size());
+        assertEquals(List.of(), store.list("papers"));
+
+        assertTrue(store.delete(first.getFileId()));
+        assertFalse(store.delete(first.getFileId()));
+        assertNull(store.stat(first.getFileId()));
+        assertThrows(FileNotFoundException.class, () -> store.get(first.getFileId()));
+        assertEquals(List.of(second.getFileId()), store.list("notes").stream().map(StorageRef::getFileId).toList());
+    }
+
+    @Test
+    void fileIdsCannotLeaveTheStorageDirectory() throws IOException {
+        Files.writeString(dir.resolve("secret.txt"), "secret");
+
+        assertThrows(FileNotFoundException.class, () -> store.get("../secret.txt"));
+        StorageRef ref = store.put("notes", "../../etc/passwd", "text/plain", stream("x")).ref();
+        assertTrue(ref.getFileId().startsWith("notes/") && ref.getFileId().endsWith("_passwd"), ref.getFileId());
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(BlobContent file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        file.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoginThrottleServiceTest {
+
+    private LoginThrottleService throttle;
+
+    @BeforeEach
+    void setUp() {
+        throttle = new LoginThrottleService();
+        ReflectionTestUtils.setField(throttle, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(throttle, "ipMaxAttempts", 5);
+        ReflectionTestUtils.setField(throttle, "identifierMaxFailures", 3);
+        throttle.init();
+    }
+
+    @Test
+    void blocksIpAfterMaxAttempts() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, throttle.checkAndRecordAttempt("user" + i, "10.0.0.1"));
+        }
+
+        assertTrue(throttle.checkAndRecordAttempt("user9", "10.0.0.1") > 0);
+        assertEquals(0, throttle.checkAndRecordAttempt("user9", "10.0.0.2"));
+    }
+
+    @Test
+    void blocksIdentifierAfterFailuresUntilSuccessClearsIt() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, throttle.checkAndRecordAttempt("CS101", "10.0.0." + i));
+            throttle.recordFailure("CS101");
+        }
+
+        // Case and whitespace do not give a fresh budget
+        assertTrue(throttle.checkAndRecordAttempt(" cs101 ", "10.0.0.50") > 0);
+
+        throttle.recordSuccess("CS101");
+        assertEquals(0, throttle.checkAndRecordAttempt("CS101", "10.0.0.51"));
+    }
+
+    @Test
+    void slidingWindowWeightsPreviousWindow() {
+        LoginThrottleService.SlidingWindow window = new LoginThrottleService.SlidingWindow(1000);
+        for (int i = 0; i < 10; i++) {
+            window.incrementAndEstimate(1000);
+        }
+
+        // Halfway into the next window half of the previous count still applies
+        assertEquals(5, window.estimate(2500));
+        assertEquals(0, window.estimate(3500));
+    }
+}
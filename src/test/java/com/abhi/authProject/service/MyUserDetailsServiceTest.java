@@ -0,0 +1,85 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.UserAuthView;
+import com.abhi.authProject.repo.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class MyUserDetailsServiceTest {
+
+    private MyUserDetailsService service;
+    private UserRepo repo;
+    private UserAuthView view;
+
+    @BeforeEach
+    void setUp() {
+        view = mock(UserAuthView.class);
+        when(view.getUsername()).thenReturn("alice");
+        when(view.getPassword()).thenReturn("{bcrypt}hash");
+        when(view.getRole()).thenReturn("DEPT_ADMIN");
+        when(view.isVerified()).thenReturn(true);
+
+        repo = mock(UserRepo.class);
+        when(repo.findAuthViewByUsername("alice")).thenReturn(Optional.of(view));
+        when(repo.findAuthViewByUsername("nobody")).thenReturn(Optional.empty());
+
+        service = new MyUserDetailsService();
+        ReflectionTestUtils.setField(service, "repo", repo);
+    }
+
+    @Test
+    void loadsThroughTheProjectionOnly() {
+        UserDetails details = service.loadUserByUsername("alice");
+
+        assertEquals("alice", details.getUsername());
+        assertEquals("{bcrypt}hash", details.getPassword());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_DEPT_ADMIN")), List.copyOf(details.getAuthorities()));
+        verify(repo, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void unverifiedAndUnknownUsersAreRejected() {
+        when(view.isVerified()).thenReturn(false);
+
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("alice"));
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("nobody"));
+    }
+
+    @Test
+    void upgradedHashIsWrittenWithoutLoadingTheEntity() {
+        UserDetails details = service.loadUserByUsername("alice");
+
+        UserDetails updated = service.updatePassword(details, "{bcrypt}new-hash");
+
+        assertEquals("{bcrypt}new-hash", updated.getPassword());
+        verify(repo).updatePasswordHash("alice", "{bcrypt}new-hash");
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void projectionQuerySelectsEveryViewPropertyAndNoProfileColumns() {
+        // Spring maps projection getters by alias; a missing alias silently returns null
+        for (Method getter : UserAuthView.class.getMethods()) {
+            String name = getter.getName().replaceFirst("^(get|is)", "");
+            String property = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+            assertTrue(UserRepo.AUTH_VIEW_SELECT.matches(".* AS " + property + "[, ].*"),
+                    "no alias for " + property + " in " + UserRepo.AUTH_VIEW_SELECT);
+        }
+        for (String heavy : List.of("profilePictureUrl", "idCardImage", "address", "resumeFile")) {
+            assertFalse(UserRepo.AUTH_VIEW_SELECT.contains("u." + heavy), heavy + " should not be selected");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.PendingNotification;
+import com.abhi.authProject.repo.PendingNotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class NotificationServiceTest {
+
+    // Stands in for the pending_notifications table
+    private final List<PendingNotification> pending = new ArrayList<>();
+    private final List<String> emailed = new ArrayList<>();
+    private Predicate<String> outboxFails = to -> false;
+
+    private NotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        PendingNotificationRepository repository = mock(PendingNotificationRepository.class);
+        // Same rules as the JPQL: due (or digest) recipients after the cursor, in email order
+        when(repository.findDueRecipients(any(LocalDateTime.class), anyString(), any(Pageable.class)))
+                .thenAnswer(i -> recipients(false, i.getArgument(1), i.getArgument(2)));
+        when(repository.findDigestRecipients(anyString(), any(Pageable.class)))
+                .thenAnswer(i -> recipients(true, i.getArgument(0), i.getArgument(1)));
+        when(repository.findByRecipientEmailAndDigestOrderByCreatedAtAsc(anyString(), anyBoolean()))
+                .thenAnswer(i -> pending.stream()
+                        .filter(n -> n.getRecipientEmail().equals(i.getArgument(0)))
+                        .filter(n -> n.isDigest() == i.<Boolean>getArgument(1))
+                        .toList());
+        when(repository.deleteByIds(anyCollection())).thenAnswer(i -> {
+            Collection<Long> ids = i.getArgument(0);
+            int before = pending.size();
+            pending.removeIf(n -> ids.contains(n.getId()));
+            return before - pending.size();
+        });
+
+        EmailOutboxService outbox = mock(EmailOutboxService.class);
+        doAnswer(i -> {
+            String to = i.getArgument(2);
+            if (outboxFails.test(to)) {
+                throw new IllegalStateException("outbox insert failed");
+            }
+            emailed.add(to);
+            return null;
+        }).when(outbox).enqueueWithKey(anyString(), anyString(), anyString(), anyString(), anyString());
+
+        EmailTemplateRenderer renderer = mock(EmailTemplateRenderer.class);
+        when(renderer.render(anyString(), anyMap())).thenReturn("<html>digest</html>");
+
+        service = new NotificationService();
+        ReflectionTestUtils.setField(service, "pendingRepository", repository);
+        ReflectionTestUtils.setField(service, "emailOutboxService", outbox);
+        ReflectionTestUtils.setField(service, "emailTemplateRenderer", renderer);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.init();
+    }
+
+    @Test
+    void everyDueRecipientIsFlushedAcrossPages() {
+        for (int i = 0; i < 250; i++) {
+            add(recipient(i), false, LocalDateTime.now().minusMinutes(1));
+        }
+        add("later@test.com", false, LocalDateTime.now().plusMinutes(5));
+
+        service.flushDue();
+
+        assertEquals(250, emailed.size());
+        assertEquals(1, pending.size());
+        assertEquals("later@test.com", pending.get(0).getRecipientEmail());
+    }
+
+    @Test
+    void fullPageOfFailuresDoesNotStarveLaterRecipients() {
+        for (int i = 0; i < 150; i++) {
+            add(recipient(i), false, LocalDateTime.now().minusMinutes(1));
+        }
+        // The whole first page fails
+        outboxFails = to -> to.compareTo(recipient(100)) < 0;
+
+        service.flushDue();
+
+        assertEquals(50, emailed.size());
+        assertEquals(recipient(100), emailed.get(0));
+        assertEquals(100, pending.size());
+
+        // Failed recipients are retried on the next run
+        outboxFails = to -> false;
+        service.flushDue();
+
+        assertEquals(150, emailed.size());
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void digestsSkipFailedRecipientsAndReachEveryoneElse() {
+        for (int i = 0; i < 120; i++) {
+            add(recipient(i), true, LocalDateTime.now());
+        }
+        outboxFails = to -> to.equals(recipient(0)) || to.equals(recipient(99));
+
+        service.sendDigests();
+
+        assertEquals(118, emailed.size());
+        assertEquals(2, pending.size());
+    }
+
+    private List<String> recipients(boolean digest, String after, Pageable page) {
+        LocalDateTime now = LocalDateTime.now();
+        return pending.stream()
+                .filter(n -> n.isDigest() == digest)
+                .filter(n -> digest || !n.getDeliverAfter().isAfter(now))
+                .map(PendingNotification::getRecipientEmail)
+                .filter(email -> email.compareTo(after) > 0)
+                .distinct()
+                .sorted()
+                .limit(page.getPageSize())
+                .toList();
+    }
+
+    private void add(String recipient, boolean digest, LocalDateTime deliverAfter) {
+        PendingNotification n = new PendingNotification();
+        n.setId((long) pending.size() + 1);
+        n.setMergeKey("job:1:" + recipient);
+        n.setRecipientEmail(recipient);
+        n.setKind(PendingNotification.NEW_JOB);
+        n.setTemplate("new-job-alert");
+        n.setSubject("New job");
+        n.setHtmlContent("<html>job</html>");
+        n.setSummary("Backend Intern at Acme");
+        n.setDigest(digest);
+        n.setCreatedAt(LocalDateTime.now());
+        n.setDeliverAfter(deliverAfter);
+        pending.add(n);
+    }
+
+    private static String recipient(int i) {
+        return String.format("s%03d@test.com", i);
+    }
+}
@@ -0,0 +1,111 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OtpServiceTest {
+
+    private OtpService otpService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        otpService = new OtpService();
+        ReflectionTestUtils.setField(otpService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(otpService, "ttlSeconds", 1);
+        ReflectionTestUtils.setField(otpService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(otpService, "capacity", 2);
+        otpService.init();
+    }
+
+    @Test
+    void otpIsSingleUse() {
+        String otp = otpService.generateOtp("9000000001");
+
+        assertTrue(otpService.validateOtp("9000000001", otp));
+        assertFalse(otpService.validateOtp("9000000001", otp));
+        assertEquals(0, otpService.size());
+    }
+
+    @Test
+    void otpIsBurnedAfterMaxWrongAttempts() {
+        String otp = otpService.generateOtp("9000000001");
+        String wrong = otp.equals("0000") ? "1111" : "0000";
+
+        for (int i = 0; i < 3; i++) {
+            assertFalse(otpService.validateOtp("9000000001", wrong));
+        }
+
+        assertFalse(otpService.validateOtp("9000000001", otp));
+        assertEquals(1.0, meterRegistry.counter("otp.store.evicted", "reason", "attempts").count());
+    }
+
+    @Test
+    void regeneratingDoesNotResetWrongAttempts() {
+        String otp = otpService.generateOtp("9000000001");
+        String wrong = otp.equals("0000") ? "1111" : "0000";
+        assertFalse(otpService.validateOtp("9000000001", wrong));
+        assertFalse(otpService.validateOtp("9000000001", wrong));
+
+        otp = otpService.generateOtp("9000000001");
+        wrong = otp.equals("0000") ? "1111" : "0000";
+        assertFalse(otpService.validateOtp("9000000001", wrong));
+
+        // Third wrong guess in the window burns the new OTP and locks the number
+        assertFalse(otpService.validateOtp("9000000001", otp));
+        assertThrows(IllegalStateException.class, () -> otpService.generateOtp("9000000001"));
+        assertEquals(1.0, meterRegistry.counter("otp.store.evicted", "reason", "attempts").count());
+    }
+
+    @Test
+    void sendsPerPhoneAreLimitedWithinTheWindow() {
+        ReflectionTestUtils.setField(otpService, "maxSends", 2);
+        otpService.generateOtp("9000000001");
+        otpService.generateOtp("9000000001");
+
+        assertThrows(IllegalStateException.class, () -> otpService.generateOtp("9000000001"));
+        assertDoesNotThrow(() -> otpService.generateOtp("9000000002"));
+    }
+
+    @Test
+    void countersStartOverInANewWindow() throws InterruptedException {
+        ReflectionTestUtils.setField(otpService, "maxSends", 1);
+        ReflectionTestUtils.setField(otpService, "windowSeconds", 1);
+        otpService.generateOtp("9000000001");
+        assertThrows(IllegalStateException.class, () -> otpService.generateOtp("9000000001"));
+
+        Thread.sleep(1100);
+        otpService.sweepUsage();
+
+        assertDoesNotThrow(() -> otpService.generateOtp("9000000001"));
+    }
+
+    @Test
+    void storeRejectsNewPhonesWhenFull() {
+        otpService.generateOtp("9000000001");
+        otpService.generateOtp("9000000002");
+
+        assertThrows(IllegalStateException.class, () -> otpService.generateOtp("9000000003"));
+        // Re-sending to a phone that already has a pending OTP is still allowed
+        assertDoesNotThrow(() -> otpService.generateOtp("9000000001"));
+        assertEquals(2, otpService.size());
+    }
+
+    @Test
+    void expiredEntriesAreSweptByTheWheel() throws InterruptedException {
+        otpService.generateOtp("9000000001");
+
+        Thread.sleep(1100);
+        for (int i = 0; i < 3; i++) {
+            otpService.tick();
+        }
+
+        assertEquals(0, otpService.size());
+        assertEquals(1.0, meterRegistry.counter("otp.store.evicted", "reason", "expired").count());
+    }
+}
@@ -0,0 +1,139 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.Paper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaperArchiveServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    private PaperArchiveService archive;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DriveContentCache cache = new DriveContentCache();
+        ReflectionTestUtils.setField(cache, "directory", dir.toString());
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        cache.init();
+
+        // Slow stand-in for Drive that records how many fetches overlap
+        FileStorageService storage = new FileStorageService() {
+            @Override
+            public BlobContent openFile(String fileId) throws IOException {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                    if (fileId.equals("broken")) {
+                        throw new IOException("Drive returned 404");
+                    }
+                    return cache.fill(fileId, new ByteArrayInputStream(("pdf " + fileId).getBytes()));
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+
+        DriveBlobStore drive = new DriveBlobStore();
+        ReflectionTestUtils.setField(drive, "fileStorageService", storage);
+        BlobStores blobStores = new BlobStores();
+        ReflectionTestUtils.setField(blobStores, "stores", List.of(drive));
+        blobStores.init();
+
+        archive = new PaperArchiveService();
+        ReflectionTestUtils.setField(archive, "blobStores", blobStores);
+        ReflectionTestUtils.setField(archive, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(archive, "uploadDir", dir.toString());
+        ReflectionTestUtils.setField(archive, "prefetch", 3);
+        ReflectionTestUtils.setField(archive, "fetchThreads", 8);
+        archive.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archive.shutdown();
+    }
+
+    @Test
+    void writesEntriesInOrderWithBoundedPrefetch() throws IOException {
+        List<Paper> papers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            papers.add(paper("Paper" + i, "https://drive.google.com/file/d/file-" + i + "/view"));
+        }
+
+        Map<String, String> zip = unzip(write(papers));
+
+        assertEquals(10, zip.size());
+        List<String> names = new ArrayList<>(zip.keySet());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("DBMS/Paper" + i + "_2024.pdf", names.get(i));
+            assertEquals("pdf file-" + i, zip.get(names.get(i)));
+        }
+        assertTrue(maxRunning.get() <= 3, "at most 3 fetches ahead, saw " + maxRunning.get());
+    }
+
+    @Test
+    void unavailableFilesAreSkippedAndDuplicateNamesKept() throws IOException {
+        List<Paper> papers = List.of(
+                paper("Midsem", "https://drive.google.com/open?id=first"),
+                paper("Midsem", "https://drive.google.com/file/d/broken/view"),
+                paper("Midsem", "https://drive.google.com/file/d/second/view"));
+
+        Map<String, String> zip = unzip(write(papers));
+
+        assertEquals(List.of("DBMS/Midsem_2024.pdf", "DBMS/Midsem_2024 (3).pdf"), new ArrayList<>(zip.keySet()));
+        assertEquals("pdf second", zip.get("DBMS/Midsem_2024 (3).pdf"));
+    }
+
+    private byte[] write(List<Paper> papers) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archive.writeZip(archive.entries(papers), out);
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> unzip(byte[] bytes) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static Paper paper(String title, String pdfUrl) {
+        Paper paper = new Paper();
+        paper.setTitle(title);
+        paper.setSubject("DBMS");
+        paper.setYear(2024);
+        paper.setPdfUrl(pdfUrl);
+        return paper;
+    }
+}
@@ -0,0 +1,282 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.DepartmentBranch;
+import com.abhi.authProject.model.Paper;
+import com.abhi.authProject.model.PaperImportEntry;
+import com.abhi.authProject.model.PaperImportJob;
+import com.abhi.authProject.model.StorageRef;
+import com.abhi.authProject.repo.DepartmentBranchRepo;
+import com.abhi.authProject.repo.DepartmentRepo;
+import com.abhi.authProject.repo.PaperImportEntryRepository;
+import com.abhi.authProject.repo.PaperImportJobRepository;
+import com.abhi.authProject.repo.PaperRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PaperBulkUploadServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final Map<Long, PaperImportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<Long, PaperImportEntry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private volatile boolean driveBroken = true;
+    private final Map<String, AtomicInteger> puts = new ConcurrentHashMap<>();
+    private final List<String> deleted = new CopyOnWriteArrayList<>();
+    // Paper titles whose database insert fails this many more times
+    private final Map<String, AtomicInteger> failingSaves = new ConcurrentHashMap<>();
+
+    private PaperBulkUploadService service;
+
+    @BeforeEach
+    void setUp() {
+        // Slow stand-in for Drive that records overlapping uploads and rejects "Broken" files while driveBroken is set
+        BlobStore drive = new DriveBlobStore() {
+            @Override
+            public BlobStore.Stored put(String folder, String name, String contentType, InputStream content)
+                    throws IOException {
+                puts.computeIfAbsent(name, n -> new AtomicInteger()).incrementAndGet();
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    content.readAllBytes();
+                    Thread.sleep(50);
+                    if (driveBroken && name.startsWith("Broken")) {
+                        throw new IOException("Drive returned 500");
+                    }
+                    return new BlobStore.Stored("https://drive.google.com/file/d/" + name + "/view",
+                            new StorageRef(StorageRef.DRIVE, name, null, null, "application/pdf", null));
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+
+            @Override
+            public boolean delete(String fileId) {
+                deleted.add(fileId);
+                return true;
+            }
+        };
+        BlobStores blobStores = new BlobStores();
+        ReflectionTestUtils.setField(blobStores, "stores", List.of(drive));
+        blobStores.init();
+
+        service = new PaperBulkUploadService();
+        ReflectionTestUtils.setField(service, "blobStores", blobStores);
+        ReflectionTestUtils.setField(service, "jobRepository", jobRepository());
+        ReflectionTestUtils.setField(service, "entryRepository", entryRepository());
+        ReflectionTestUtils.setField(service, "paperRepository", paperRepository());
+        ReflectionTestUtils.setField(service, "departmentRepo", departmentRepo());
+        ReflectionTestUtils.setField(service, "branchRepo", branchRepo());
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "importDirectory", dir.toString());
+        ReflectionTestUtils.setField(service, "uploadThreads", 3);
+        ReflectionTestUtils.setField(service, "maxAttempts", 2);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void uploadsInParallelInTheBackgroundAndRetriesFailedFiles() throws Exception {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            for (int i = 0; i < 8; i++) {
+                add(out, "MCA/Semester 2/DBMS/Midsem " + (2020 + i) + ".pdf");
+            }
+            add(out, "MCA/Semester 2/DBMS/Broken 2023.pdf");
+            add(out, "loose.pdf");
+            add(out, "MCA/Semester 2/DBMS/notes.txt");
+        }
+
+        PaperImportJob job = service.startImport(new MockMultipartFile("file", "papers.zip", "application/zip",
+                zip.toByteArray()), "DAVV", 2024, "admin");
+        assertEquals(10, job.getTotalEntries());
+
+        PaperBulkUploadService.Report report = awaitFinished(job.getId());
+        assertEquals(PaperImportJob.COMPLETED, report.job().getStatus());
+        assertEquals(8, report.uploaded());
+        assertEquals(1, report.failed());
+        assertEquals(1, report.skipped());
+        assertEquals(0, report.pending());
+        PaperImportEntry broken = report.entries().stream()
+                .filter(e -> e.getEntryName().contains("Broken")).findFirst().orElseThrow();
+        assertEquals(2, broken.getAttempts());
+        assertEquals("Drive returned 500", broken.getError());
+        assertTrue(maxRunning.get() > 1 && maxRunning.get() <= 3, "uploads should overlap, up to 3: " + maxRunning.get());
+        // Kept for the retry
+        Path zipPath = Paths.get(report.job().getZipPath());
+        assertTrue(Files.exists(zipPath));
+
+        driveBroken = false;
+        assertTrue(service.retryFailed(job.getId()));
+        report = awaitFinished(job.getId());
+        assertEquals(9, report.uploaded());
+        assertEquals(0, report.failed());
+        assertNull(report.job().getZipPath());
+        assertFalse(Files.exists(zipPath));
+        assertFalse(service.retryFailed(job.getId()));
+    }
+
+    @Test
+    void failedDatabaseWritesAreRetriedWithoutUploadingAgain() throws Exception {
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        failingSaves.put("Flaky 2021", new AtomicInteger(1));
+        failingSaves.put("Doomed 2022", new AtomicInteger(3));
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            add(out, "MCA/Semester 2/DBMS/Flaky 2021.pdf");
+            add(out, "MCA/Semester 2/DBMS/Doomed 2022.pdf");
+        }
+
+        PaperImportJob job = service.startImport(new MockMultipartFile("file", "papers.zip", "application/zip",
+                zip.toByteArray()), "DAVV", 2024, "admin");
+
+        PaperBulkUploadService.Report report = awaitFinished(job.getId());
+        assertEquals(1, report.uploaded());
+        assertEquals(1, report.failed());
+        assertEquals(1, puts.get("Flaky 2021.pdf").get());
+        assertEquals(1, puts.get("Doomed 2022.pdf").get());
+        // The file nobody can reach from a paper row is removed again
+        assertEquals(List.of("Doomed 2022.pdf"), deleted);
+    }
+
+    private PaperBulkUploadService.Report awaitFinished(Long jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            PaperBulkUploadService.Report report = service.report(jobId).orElseThrow();
+            if (!PaperImportJob.RUNNING.equals(report.job().getStatus()) && report.pending() == 0) {
+                return report;
+            }
+            Thread.sleep(20);
+        }
+        fail("import " + jobId + " did not finish");
+        return null;
+    }
+
+    private static void add(ZipOutputStream zip, String name) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(("%PDF " + name).getBytes());
+        zip.closeEntry();
+    }
+
+    private PaperImportJobRepository jobRepository() {
+        PaperImportJobRepository repository = mock(PaperImportJobRepository.class);
+        when(repository.save(any())).thenAnswer(invocation -> {
+            PaperImportJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(ids.incrementAndGet());
+            }
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(repository.findById(anyLong())).thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.getArgument(0))));
+        return repository;
+    }
+
+    private PaperImportEntryRepository entryRepository() {
+        PaperImportEntryRepository repository = mock(PaperImportEntryRepository.class);
+        when(repository.save(any())).thenAnswer(invocation -> {
+            PaperImportEntry entry = invocation.getArgument(0);
+            entries.put(entry.getId(), entry);
+            return entry;
+        });
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<PaperImportEntry> saved = invocation.getArgument(0);
+            for (PaperImportEntry entry : saved) {
+                entry.setId(ids.incrementAndGet());
+                entries.put(entry.getId(), entry);
+            }
+            return saved;
+        });
+        when(repository.findByJobIdOrderById(anyLong())).thenAnswer(invocation ->
+                entries.values().stream().filter(e -> e.getJobId().equals(invocation.getArgument(0)))
+                        .sorted(Comparator.comparing(PaperImportEntry::getId)).toList());
+        when(repository.findByJobIdAndStatusOrderById(anyLong(), anyString())).thenAnswer(invocation ->
+                entries.values().stream().filter(e -> e.getJobId().equals(invocation.getArgument(0))
+                        && e.getStatus().equals(invocation.getArgument(1)))
+                        .sorted(Comparator.comparing(PaperImportEntry::getId)).toList());
+        when(repository.countByJobIdAndStatus(anyLong(), anyString())).thenAnswer(invocation ->
+                entries.values().stream().filter(e -> e.getJobId().equals(invocation.getArgument(0))
+                        && e.getStatus().equals(invocation.getArgument(1))).count());
+        when(repository.requeueFailed(anyLong())).thenAnswer(invocation -> {
+            int requeued = 0;
+            for (PaperImportEntry entry : entries.values()) {
+                if (entry.getJobId().equals(invocation.getArgument(0))
+                        && PaperImportEntry.FAILED.equals(entry.getStatus())) {
+                    entry.setStatus(PaperImportEntry.PENDING);
+                    entry.setAttempts(0);
+                    entry.setError(null);
+                    requeued++;
+                }
+            }
+            return requeued;
+        });
+        return repository;
+    }
+
+    private PaperRepository paperRepository() {
+        PaperRepository repository = mock(PaperRepository.class);
+        when(repository.save(any())).thenAnswer(invocation -> {
+            Paper paper = invocation.getArgument(0);
+            AtomicInteger failures = failingSaves.get(paper.getTitle());
+            if (failures != null && failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("connection reset");
+            }
+            paper.setId(ids.incrementAndGet());
+            return paper;
+        });
+        return repository;
+    }
+
+    private static DepartmentRepo departmentRepo() {
+        DepartmentRepo repository = mock(DepartmentRepo.class);
+        when(repository.existsByCode(anyString())).thenReturn(true);
+        return repository;
+    }
+
+    private static DepartmentBranchRepo branchRepo() {
+        DepartmentBranchRepo repository = mock(DepartmentBranchRepo.class);
+        when(repository.findByBranchCode(anyString())).thenReturn(Optional.of(new DepartmentBranch()));
+        return repository;
+    }
+}
@@ -0,0 +1,95 @@
+package com.abhi.authProject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class PasswordHashingServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private PasswordHashingService hashing;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        // Every hash blocks until the test releases it, so the pool can be filled on purpose
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.matches(anyString(), anyString())).thenAnswer(i -> {
+            started.countDown();
+            release.await();
+            return i.getArgument(0).equals("secret");
+        });
+
+        meterRegistry = new SimpleMeterRegistry();
+        hashing = new PasswordHashingService();
+        ReflectionTestUtils.setField(hashing, "passwordEncoder", encoder);
+        ReflectionTestUtils.setField(hashing, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(hashing, "poolSize", 1);
+        ReflectionTestUtils.setField(hashing, "queueCapacity", 1);
+        ReflectionTestUtils.setField(hashing, "waitTimeoutMs", 5000L);
+        hashing.init();
+        callers = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        hashing.shutdown();
+    }
+
+    @Test
+    void saturatedPoolRejectsInsteadOfQueueing() throws Exception {
+        Future<Boolean> running = callers.submit(() -> hashing.matches("secret", "hash"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<Boolean> queued = callers.submit(() -> hashing.matches("wrong", "hash"));
+        awaitQueueDepth(1);
+
+        assertThrows(RejectedExecutionException.class, () -> hashing.matches("secret", "hash"));
+        assertEquals(1.0, meterRegistry.counter("auth.password.rejected").count());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertFalse(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void callerGivesUpAfterTheWaitTimeout() throws Exception {
+        ReflectionTestUtils.setField(hashing, "waitTimeoutMs", 50L);
+
+        assertThrows(RejectedExecutionException.class, () -> hashing.matches("secret", "hash"));
+        assertEquals(1.0, meterRegistry.counter("auth.password.rejected").count());
+    }
+
+    @Test
+    void missingPasswordIsRejectedWithoutHashing() {
+        assertFalse(hashing.matches(null, "hash"));
+        assertFalse(hashing.matches("secret", null));
+        assertEquals(1, started.getCount());
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("auth.password.queue.depth").gauge().value() < depth) {
+            assertTrue(System.currentTimeMillis() < deadline, "hash request never queued");
+            Thread.sleep(5);
+        }
+    }
+}
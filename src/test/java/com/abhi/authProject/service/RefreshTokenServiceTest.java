@@ -0,0 +1,156 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.Jwt.JWTService;
+import com.abhi.authProject.Jwt.JwtPrincipalCache;
+import com.abhi.authProject.Jwt.TokenGenerationService;
+import com.abhi.authProject.model.RefreshToken;
+import com.abhi.authProject.model.Users;
+import com.abhi.authProject.repo.RefreshTokenRepository;
+import com.abhi.authProject.repo.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RefreshTokenServiceTest {
+
+    private static final String SECRET = "test-secret-that-is-long-enough-for-the-hs384-signing-key-bytes!";
+
+    // Token hash -> row, standing in for refresh_tokens
+    private final Map<String, RefreshToken> tokens = new ConcurrentHashMap<>();
+
+    private Users user;
+    private JWTService jwtService;
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        user = new Users();
+        user.setUsername("alice");
+        user.setRole("USER");
+        user.setVerified(true);
+        user.setEnabled(true);
+
+        UserRepo userRepo = mock(UserRepo.class);
+        when(userRepo.findByUsername("alice")).thenAnswer(i -> Optional.of(user));
+        when(userRepo.findTokenGenerationByUsername(anyString())).thenReturn(Optional.of(0));
+
+        TokenGenerationService tokenGenerationService = new TokenGenerationService();
+        ReflectionTestUtils.setField(tokenGenerationService, "userRepo", userRepo);
+
+        jwtService = new JWTService();
+        ReflectionTestUtils.setField(jwtService, "secretkey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "accessTokenTtlMinutes", 15L);
+        ReflectionTestUtils.setField(jwtService, "tokenGenerationService", tokenGenerationService);
+
+        refreshTokenService = new RefreshTokenService();
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenRepository", refreshTokenRepository());
+        ReflectionTestUtils.setField(refreshTokenService, "userRepo", userRepo);
+        ReflectionTestUtils.setField(refreshTokenService, "jwtService", jwtService);
+        ReflectionTestUtils.setField(refreshTokenService, "ttlDays", 14L);
+    }
+
+    @Test
+    void rotationIssuesANewPairInTheSameFamily() {
+        String first = refreshTokenService.issue("alice");
+
+        RefreshTokenService.TokenPair pair = refreshTokenService.rotate(first);
+
+        assertNotEquals(first, pair.refreshToken());
+        assertEquals(900, pair.expiresIn());
+        assertTrue(jwtService.validateAccessToken(jwtService.verify(pair.accessToken())));
+        assertTrue(row(first).isRevoked(), "a rotated token is consumed");
+        assertFalse(row(pair.refreshToken()).isRevoked());
+        assertEquals(row(first).getFamilyId(), row(pair.refreshToken()).getFamilyId());
+    }
+
+    @Test
+    void reusedTokenRevokesTheWholeFamily() {
+        String first = refreshTokenService.issue("alice");
+        String other = refreshTokenService.issue("alice");
+        String second = refreshTokenService.rotate(first).refreshToken();
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(first));
+
+        assertTrue(row(second).isRevoked(), "the legitimate successor is revoked too");
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(second));
+        // Another login's family is untouched
+        assertFalse(row(other).isRevoked());
+        assertNotNull(refreshTokenService.rotate(other).accessToken());
+    }
+
+    @Test
+    void lockedUserCannotRefresh() {
+        String token = refreshTokenService.issue("alice");
+        user.setLockedUntil(LocalDateTime.now().plusMinutes(5));
+
+        assertThrows(IllegalStateException.class, () -> refreshTokenService.rotate(token));
+    }
+
+    @Test
+    void unverifiedUserCannotRefresh() {
+        String token = refreshTokenService.issue("alice");
+        user.setVerified(false);
+
+        assertThrows(IllegalStateException.class, () -> refreshTokenService.rotate(token));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String token = refreshTokenService.issue("alice");
+        row(token).setExpiresAt(LocalDateTime.now().minusSeconds(1));
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(token));
+        assertFalse(row(token).isRevoked(), "an expired token is not consumed");
+    }
+
+    @Test
+    void unknownOrMissingTokenIsRejected() {
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate("not-a-token"));
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(" "));
+    }
+
+    private RefreshToken row(String raw) {
+        return tokens.get(JwtPrincipalCache.digest(raw));
+    }
+
+    private RefreshTokenRepository refreshTokenRepository() {
+        RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+        when(repository.save(any(RefreshToken.class))).thenAnswer(i -> {
+            RefreshToken token = i.getArgument(0);
+            token.setId((long) tokens.size() + 1);
+            tokens.put(token.getTokenHash(), token);
+            return token;
+        });
+        when(repository.findByTokenHash(anyString())).thenAnswer(i -> Optional.ofNullable(tokens.get(i.<String>getArgument(0))));
+        when(repository.markUsed(anyLong())).thenAnswer(i -> {
+            for (RefreshToken token : tokens.values()) {
+                if (token.getId().equals(i.getArgument(0)) && !token.isRevoked()) {
+                    token.setRevoked(true);
+                    return 1;
+                }
+            }
+            return 0;
+        });
+        when(repository.revokeFamily(anyString())).thenAnswer(i -> {
+            int revoked = 0;
+            for (RefreshToken token : tokens.values()) {
+                if (token.getFamilyId().equals(i.getArgument(0))) {
+                    token.setRevoked(true);
+                    revoked++;
+                }
+            }
+            return revoked;
+        });
+        return repository;
+    }
+}
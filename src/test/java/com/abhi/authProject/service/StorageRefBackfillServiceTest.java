@@ -0,0 +1,100 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.model.Note;
+import com.abhi.authProject.model.StorageRef;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StorageRefBackfillServiceTest {
+
+    private final List<String> described = new ArrayList<>();
+    private final List<List<Note>> saved = new ArrayList<>();
+
+    private StorageRefBackfillService backfill;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageService storage = new FileStorageService() {
+            @Override
+            public StorageRef describeDriveFile(String fileId) throws IOException {
+                described.add(fileId);
+                if (fileId.startsWith("gone")) {
+                    return null;
+                }
+                if (fileId.startsWith("down")) {
+                    throw new IOException("Connection reset");
+                }
+                return new StorageRef(StorageRef.DRIVE, fileId, 10L, "md5-" + fileId, "application/pdf", null);
+            }
+        };
+        backfill = new StorageRefBackfillService();
+        ReflectionTestUtils.setField(backfill, "fileStorageService", storage);
+        ReflectionTestUtils.setField(backfill, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(backfill, "batchSize", 2);
+    }
+
+    @Test
+    void walksTableInBatchesAndLeavesMissingFilesForNextRun() {
+        List<Note> notes = List.of(
+                note(1L, "https://drive.google.com/file/d/a/view"),
+                note(2L, "https://drive.google.com/file/d/gone-b/view"),
+                note(3L, "https://example.com/not-drive.pdf"),
+                note(4L, "https://drive.google.com/open?id=c"),
+                note(5L, "https://drive.google.com/file/d/d/view"));
+
+        int filled = run(notes);
+
+        assertEquals(3, filled);
+        assertEquals(List.of("a", "gone-b", "c", "d"), described);
+        assertEquals(3, saved.size(), "one save per batch with changes");
+        assertEquals("md5-c", notes.get(3).getStorage().getMd5());
+        assertNull(notes.get(1).getStorage());
+        assertNull(notes.get(2).getStorage());
+    }
+
+    @Test
+    void deletedFilesMoveTheCursorOn() {
+        List<Note> notes = List.of(
+                note(1L, "https://drive.google.com/file/d/gone-1/view"),
+                note(2L, "https://drive.google.com/file/d/gone-2/view"),
+                note(3L, "https://drive.google.com/file/d/fine/view"));
+
+        assertEquals(1, run(notes));
+        assertEquals(List.of("gone-1", "gone-2", "fine"), described);
+        assertEquals("md5-fine", notes.get(2).getStorage().getMd5());
+    }
+
+    @Test
+    void stopsWhenDriveFailsForEveryFileInABatch() {
+        List<Note> notes = List.of(
+                note(1L, "https://drive.google.com/file/d/down-1/view"),
+                note(2L, "https://drive.google.com/file/d/down-2/view"),
+                note(3L, "https://drive.google.com/file/d/fine/view"));
+
+        assertEquals(0, run(notes));
+        assertEquals(List.of("down-1", "down-2"), described);
+    }
+
+    private int run(List<Note> notes) {
+        return backfill.backfill("notes",
+                (afterId, page) -> notes.stream()
+                        .filter(n -> n.getStorage() == null && n.getId() > afterId)
+                        .limit(page.getPageSize()).toList(),
+                Note::getId, Note::getPdfUrl, Note::setStorage, saved::add);
+    }
+
+    private static Note note(Long id, String url) {
+        Note note = new Note();
+        note.setId(id);
+        note.setPdfUrl(url);
+        return note;
+    }
+}
@@ -0,0 +1,129 @@
+package com.abhi.authProject.service;
+
+import com.abhi.authProject.Jwt.JWTService;
+import com.abhi.authProject.config.PasswordEncoderConfig;
+import com.abhi.authProject.model.Users;
+import com.abhi.authProject.repo.UserRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class UserServiceRehashTest {
+
+    // Stands in for users.password
+    private final Map<String, String> storedHashes = new HashMap<>();
+
+    private UserService userService;
+    private PasswordHashingService hashing;
+    private PasswordEncoder encoder;
+    private UserRepo repo;
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoderConfig config = new PasswordEncoderConfig();
+        ReflectionTestUtils.setField(config, "algorithm", "bcrypt");
+        ReflectionTestUtils.setField(config, "bcryptCost", 5);
+        encoder = config.passwordEncoder();
+
+        hashing = new PasswordHashingService();
+        ReflectionTestUtils.setField(hashing, "passwordEncoder", encoder);
+        ReflectionTestUtils.setField(hashing, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hashing, "poolSize", 1);
+        ReflectionTestUtils.setField(hashing, "queueCapacity", 4);
+        ReflectionTestUtils.setField(hashing, "waitTimeoutMs", 5000L);
+        hashing.init();
+
+        repo = mock(UserRepo.class);
+        when(repo.updatePasswordHash(anyString(), anyString())).thenAnswer(i -> {
+            storedHashes.put(i.getArgument(0), i.getArgument(1));
+            return 1;
+        });
+        JWTService jwtService = mock(JWTService.class);
+        when(jwtService.generateToken(any(Users.class))).thenReturn("access-token");
+
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "repo", repo);
+        ReflectionTestUtils.setField(userService, "jwtservice", jwtService);
+        ReflectionTestUtils.setField(userService, "passwordHashingService", hashing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashing.shutdown();
+    }
+
+    @Test
+    void legacyUnprefixedHashIsRewrittenOnLogin() {
+        Users user = user(new BCryptPasswordEncoder(4).encode("secret"));
+
+        assertEquals("access-token", userService.verifyAndLogin(user, "secret"));
+
+        String upgraded = storedHashes.get("alice");
+        assertTrue(upgraded.startsWith("{bcrypt}$2a$05$"), upgraded);
+        assertEquals(upgraded, user.getPassword());
+        assertTrue(encoder.matches("secret", upgraded));
+        assertFalse(hashing.needsUpgrade(upgraded));
+    }
+
+    @Test
+    void lowerCostHashIsRewrittenAtTheConfiguredCost() {
+        Users user = user("{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret"));
+
+        userService.verifyAndLogin(user, "secret");
+
+        assertTrue(storedHashes.get("alice").startsWith("{bcrypt}$2a$05$"));
+    }
+
+    @Test
+    void currentHashIsLeftAlone() {
+        Users user = user(encoder.encode("secret"));
+
+        userService.verifyAndLogin(user, "secret");
+
+        verify(repo, never()).updatePasswordHash(anyString(), anyString());
+    }
+
+    @Test
+    void wrongPasswordNeverRewritesTheHash() {
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        Users user = user(legacy);
+
+        assertThrows(BadCredentialsException.class, () -> userService.verifyAndLogin(user, "wrong"));
+
+        verify(repo, never()).updatePasswordHash(anyString(), anyString());
+        assertEquals(legacy, user.getPassword());
+    }
+
+    @Test
+    void failedUpgradeWriteDoesNotFailTheLogin() {
+        when(repo.updatePasswordHash(anyString(), anyString())).thenThrow(new IllegalStateException("db down"));
+        String legacy = new BCryptPasswordEncoder(4).encode("secret");
+        Users user = user(legacy);
+
+        assertEquals("access-token", userService.verifyAndLogin(user, "secret"));
+        assertEquals(legacy, user.getPassword());
+    }
+
+    private static Users user(String passwordHash) {
+        Users user = new Users();
+        user.setId(1);
+        user.setUsername("alice");
+        user.setPassword(passwordHash);
+        user.setRole("USER");
+        user.setVerified(true);
+        return user;
+    }
+}